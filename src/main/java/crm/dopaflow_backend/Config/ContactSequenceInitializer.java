@@ -0,0 +1,45 @@
+package crm.dopaflow_backend.Config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Contact ids used to come from the IDENTITY column and now come from contacts_seq (created by
+ * Hibernate's ddl update, starting at 1). Moves the sequence past the highest existing id before the
+ * first insert so pooled ids never collide with rows created before the switch, and at least one block
+ * past 1: Hibernate special-cases the sequence's initial value, CopyImportService does not. Runs after the
+ * EntityManagerFactory, i.e. after the schema update, and is a no-op once the sequence is ahead.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class ContactSequenceInitializer {
+    private static final Logger logger = LoggerFactory.getLogger(ContactSequenceInitializer.class);
+
+    // allocationSize of Contact's contacts_seq generator (the sequence's INCREMENT BY)
+    private static final int BLOCK = 50;
+    // With the pooled optimizer the next block is (last_value + 1 .. last_value + allocationSize). A sequence
+    // not called yet returns 1 first, the top of the block -48..1, so it is moved to at least one block.
+    private static final String ALIGN_SQL = "SELECT setval('contacts_seq', GREATEST(COALESCE(m.max_id, 0), " + BLOCK + ")) " +
+            "FROM (SELECT MAX(id) AS max_id FROM contacts) m, contacts_seq s " +
+            "WHERE m.max_id >= s.last_value OR NOT s.is_called";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ContactSequenceInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void alignSequence() {
+        try {
+            jdbcTemplate.queryForList(ALIGN_SQL, Long.class)
+                    .forEach(value -> logger.info("contacts_seq moved to {}", value));
+        } catch (Exception e) {
+            logger.error("Failed to align contacts_seq with existing contact ids: {}", e.getMessage());
+        }
+    }
+}
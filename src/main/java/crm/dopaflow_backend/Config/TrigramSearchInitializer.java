@@ -0,0 +1,62 @@
+package crm.dopaflow_backend.Config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Creates the pg_trgm extension and the GIN trigram indexes behind fuzzy contact/company search
+ * (Hibernate's ddl-auto cannot express expression or GIN indexes). Indexes are built CONCURRENTLY so
+ * a first start on a large table does not block writes. If the extension cannot be created (e.g. the
+ * database user lacks the privilege) search falls back to plain substring matching.
+ */
+@Component
+public class TrigramSearchInitializer {
+    private static final Logger logger = LoggerFactory.getLogger(TrigramSearchInitializer.class);
+
+    private static final List<String> INDEXES = List.of(
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_contacts_name_trgm ON contacts USING gin (name gin_trgm_ops)",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_contacts_email_trgm ON contacts USING gin (email gin_trgm_ops)",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_contacts_phone_trgm ON contacts USING gin (phone gin_trgm_ops)",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_contacts_name_lower_prefix ON contacts (lower(name) text_pattern_ops)",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_companies_name_trgm ON companies USING gin (name gin_trgm_ops)",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_companies_email_trgm ON companies USING gin (email gin_trgm_ops)",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_companies_phone_trgm ON companies USING gin (phone gin_trgm_ops)",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_companies_name_lower_prefix ON companies (lower(name) text_pattern_ops)"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile boolean trigramAvailable;
+
+    public TrigramSearchInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        try {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+        } catch (Exception e) {
+            logger.warn("pg_trgm extension not available, search will use substring matching: {}", e.getMessage());
+            return;
+        }
+        trigramAvailable = true;
+        for (String ddl : INDEXES) {
+            try {
+                jdbcTemplate.execute(ddl);
+            } catch (Exception e) {
+                logger.error("Failed to create search index ({}): {}", ddl, e.getMessage());
+            }
+        }
+        logger.info("Trigram search indexes ready");
+    }
+
+    public boolean isTrigramAvailable() {
+        return trigramAvailable;
+    }
+}
@@ -0,0 +1,54 @@
+package crm.dopaflow_backend.Controller;
+
+import crm.dopaflow_backend.Model.StoredAttachment;
+import crm.dopaflow_backend.Service.AttachmentUploadService;
+import crm.dopaflow_backend.Service.FileServingService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+/**
+ * Serves ticket attachments. Content-addressed ones (/attachments/{sha256}/{file name}) use the hash as ETag and
+ * the file name only as download name; flat ones from before the store (/attachments/UUID_name) are served from
+ * the attachment directory. Both names always denote the same content, so both are cached as immutable.
+ */
+@RestController
+@RequiredArgsConstructor
+public class AttachmentController {
+    private static final Path LEGACY_DIR = Paths.get("uploads/attachments");
+
+    private final AttachmentUploadService attachmentUploadService;
+    private final FileServingService fileServingService;
+
+    @GetMapping("/attachments/{sha256:[0-9a-f]{64}}/{filename:.+}")
+    public void getAttachment(@PathVariable String sha256, @PathVariable String filename,
+                              HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<StoredAttachment> stored = attachmentUploadService.findStored(sha256);
+        if (stored.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String contentType = stored.get().getContentType() != null
+                ? stored.get().getContentType() : FileServingService.contentTypeOf(filename);
+        fileServingService.serve(request, response, attachmentUploadService.pathOf(sha256), contentType, sha256,
+                fileServingService.immutable(),
+                ContentDisposition.inline().filename(filename, StandardCharsets.UTF_8).build().toString());
+    }
+
+    @GetMapping("/attachments/{filename:.+}")
+    public void getLegacyAttachment(@PathVariable String filename,
+                                    HttpServletRequest request, HttpServletResponse response) throws IOException {
+        fileServingService.serve(request, response, FileServingService.resolve(LEGACY_DIR, filename),
+                FileServingService.contentTypeOf(filename), null, fileServingService.immutable(), null);
+    }
+}
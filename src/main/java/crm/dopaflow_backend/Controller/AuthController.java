@@ -2,6 +2,8 @@ package crm.dopaflow_backend.Controller;
 
 import crm.dopaflow_backend.DTO.AuthDTO;
 import crm.dopaflow_backend.Model.User;
+import crm.dopaflow_backend.Security.PasswordHashingService;
+import crm.dopaflow_backend.Security.TooManyRequestsException;
 import crm.dopaflow_backend.Service.AuthService;
 import crm.dopaflow_backend.Service.UserService;
 import lombok.RequiredArgsConstructor;
@@ -19,10 +21,12 @@ import java.util.UUID;
 public class AuthController {
     private final UserService userService;
     private final AuthService authService;
+    private final PasswordHashingService passwordHashingService;
 
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody AuthDTO.RegisterRequest request) {
+    public ResponseEntity<?> register(@RequestBody AuthDTO.RegisterRequest request, HttpServletRequest httpRequest) {
         try {
+            passwordHashingService.checkThrottle(httpRequest.getRemoteAddr(), null);
             User user = userService.registerUser(
                     request.getUsername(),
                     request.getEmail(),
@@ -35,6 +39,8 @@ public class AuthController {
                     "userId", user.getId()
             );
             return new ResponseEntity<>(response, HttpStatus.CREATED);
+        } catch (TooManyRequestsException e) {
+            return tooManyRequests(e);
         } catch (Exception e) {
             return new ResponseEntity<>(Map.of("message", e.getMessage()), HttpStatus.BAD_REQUEST);
         }
@@ -46,6 +52,8 @@ public class AuthController {
             Map<String, Object> authResponse = authService.authenticateUser(request, httpRequest);
             System.out.println("Login response: " + authResponse);
             return new ResponseEntity<>(authResponse, HttpStatus.OK);
+        } catch (TooManyRequestsException e) {
+            return tooManyRequests(e);
         } catch (Exception e) {
             System.out.println("Login error: " + e.getMessage());
             return new ResponseEntity<>(Map.of("message", e.getMessage()), HttpStatus.UNAUTHORIZED);
@@ -128,13 +136,22 @@ public class AuthController {
                     Map.of("message", "Password reset successful. Please login with your new password"),
                     HttpStatus.OK
             );
+        } catch (TooManyRequestsException e) {
+            return tooManyRequests(e);
         } catch (Exception e) {
             return new ResponseEntity<>(Map.of("message", e.getMessage()), HttpStatus.BAD_REQUEST);
         }
     }
     @PostMapping("/logout")
-    public ResponseEntity<?> logout() {
+    public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authHeader) {
+        authService.logout(authHeader);
         return new ResponseEntity<>(Map.of("message", "Logout successful"), HttpStatus.OK);
     }
 
+    private ResponseEntity<?> tooManyRequests(TooManyRequestsException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header("Retry-After", String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("message", e.getMessage()));
+    }
+
 }
\ No newline at end of file
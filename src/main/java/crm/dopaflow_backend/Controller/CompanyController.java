@@ -1,31 +1,36 @@
 package crm.dopaflow_backend.Controller;
 
 import crm.dopaflow_backend.Model.Company;
+import crm.dopaflow_backend.Model.ImportJob;
+import crm.dopaflow_backend.Security.TooManyRequestsException;
 import crm.dopaflow_backend.Service.CompanyService;
-import crm.dopaflow_backend.Service.ImportResult;
-import crm.dopaflow_backend.Utils.ProgressTracker;
+import crm.dopaflow_backend.Service.DuplicateMatcherService;
+import crm.dopaflow_backend.Service.ExportService;
+import crm.dopaflow_backend.Service.ImageDerivativeService;
+import crm.dopaflow_backend.Service.ImportJobService;
+import crm.dopaflow_backend.Service.SuggestionIndexService;
+import crm.dopaflow_backend.Utils.CompanyRowMapper;
+import crm.dopaflow_backend.Utils.DuplicateMatcher;
+import crm.dopaflow_backend.Utils.ImportFileReader;
+import crm.dopaflow_backend.Utils.StreamingExcelWriter;
+import crm.dopaflow_backend.Utils.StreamingUpload;
 import lombok.RequiredArgsConstructor;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVRecord;
-import org.apache.poi.ss.usermodel.*;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.*;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @RestController
@@ -33,8 +38,11 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class CompanyController {
     private final CompanyService companyService;
-    @Autowired
-    private final SimpMessagingTemplate messagingTemplate;
+    private final SuggestionIndexService suggestionIndexService;
+    private final ExportService exportService;
+    private final ImportJobService importJobService;
+    private final DuplicateMatcherService duplicateMatcherService;
+    private final ImageDerivativeService imageDerivativeService;
     private static final String UPLOAD_DIR = "uploads/company-photos/";
 
     @PostMapping("/{companyId}/uploadPhoto")
@@ -46,9 +54,9 @@ public class CompanyController {
             Files.createDirectories(uploadDir);
 
             String fileName = "c" + (company != null ? company.getId() : UUID.randomUUID()) + "_" +
-                    System.currentTimeMillis() + "_" + file.getOriginalFilename();
-            Path filePath = uploadDir.resolve(fileName);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+                    System.currentTimeMillis() + "_" + StreamingUpload.safeFileName(file.getOriginalFilename());
+            Path filePath = StreamingUpload.store(file, uploadDir.resolve(fileName)).path();
+            imageDerivativeService.generateAsync(filePath);
 
             String photoUrl = "/company-photos/" + fileName;
             if (company != null) {
@@ -57,6 +65,7 @@ public class CompanyController {
             }
 
             response.put("photoUrl", photoUrl);
+            response.put("thumbnails", imageDerivativeService.derivativeUrls(photoUrl));
             return ResponseEntity.ok(response);
         } catch (IOException e) {
             response.put("error", "Photo upload failed: " + e.getMessage());
@@ -68,9 +77,16 @@ public class CompanyController {
     public ResponseEntity<?> getAllCompanies(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "25") int size,
-            @RequestParam(defaultValue = "id,desc") String sort) {
+            @RequestParam(defaultValue = "id,desc") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean keyset) {
         try {
+            if (keyset || cursor != null) {
+                return ResponseEntity.ok(companyService.getCompaniesAfter(cursor, size, sort));
+            }
             return ResponseEntity.ok(companyService.getAllCompanies(page, size, sort));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(500).body(Map.of("error", "Failed to fetch companies: " + e.getMessage()));
         }
@@ -79,11 +95,12 @@ public class CompanyController {
     @GetMapping("/search")
     public ResponseEntity<?> searchCompanies(
             @RequestParam String query,
+            @RequestParam(defaultValue = "fuzzy") String mode,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "25") int size,
             @RequestParam(defaultValue = "id,desc") String sort) {
         try {
-            return ResponseEntity.ok(companyService.searchCompanies(query, page, size, sort));
+            return ResponseEntity.ok(companyService.searchCompanies(query, mode, page, size, sort));
         } catch (Exception e) {
             return ResponseEntity.status(500).body(Map.of("error", "Failed to search companies: " + e.getMessage()));
         }
@@ -96,14 +113,33 @@ public class CompanyController {
             @RequestParam(defaultValue = "false") boolean unassignedOnly,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "25") int size,
-            @RequestParam(defaultValue = "id,desc") String sort) {
+            @RequestParam(defaultValue = "id,desc") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean keyset) {
         try {
+            if (keyset || cursor != null) {
+                return ResponseEntity.ok(companyService.filterCompaniesAfter(status, ownerId, unassignedOnly, cursor, size, sort));
+            }
             return ResponseEntity.ok(companyService.filterCompanies(status, ownerId, unassignedOnly, page, size, sort));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(500).body(Map.of("error", "Failed to filter companies: " + e.getMessage()));
         }
     }
 
+    @GetMapping("/facets")
+    public ResponseEntity<?> getCompanyFacets(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long ownerId,
+            @RequestParam(defaultValue = "false") boolean unassignedOnly) {
+        try {
+            return ResponseEntity.ok(companyService.getFacets(status, ownerId, unassignedOnly));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Map.of("error", "Failed to count company facets: " + e.getMessage()));
+        }
+    }
+
     @GetMapping("/get/{id}")
     public ResponseEntity<?> getCompany(@PathVariable Long id) {
         try {
@@ -147,6 +183,7 @@ public class CompanyController {
         return deleted ? ResponseEntity.ok().build() : ResponseEntity.badRequest().build();
     }
 
+    // The preview is read in the request, the import itself is queued as a background job (see ImportJobService)
     @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<Map<String, Object>> importCompanies(
             @RequestParam("file") MultipartFile file,
@@ -154,53 +191,74 @@ public class CompanyController {
             @RequestParam(value = "preview", defaultValue = "false") boolean preview,
             @RequestParam(value = "updateExisting", defaultValue = "false") boolean updateExisting,
             @RequestParam(value = "columns", required = false) String selectedColumns,
-            @RequestParam(value = "sessionId") String sessionId) {
+            @RequestParam(value = "sessionId") String sessionId,
+            @RequestParam(value = "bulkMode", required = false) String bulkMode) {
         Map<String, Object> response = new HashMap<>();
         try {
             if (file == null || file.isEmpty()) {
                 response.put("error", "No file uploaded.");
                 return ResponseEntity.badRequest().body(response);
             }
+            if (!"csv".equalsIgnoreCase(fileType) && !"excel".equalsIgnoreCase(fileType)) {
+                response.put("error", "Invalid file type. Use 'csv' or 'excel'.");
+                return ResponseEntity.badRequest().body(response);
+            }
 
             List<String> columnsToInclude = selectedColumns != null && !selectedColumns.isEmpty()
                     ? Arrays.asList(selectedColumns.split(","))
                     : null;
 
-            List<Company> companies;
-            if ("csv".equalsIgnoreCase(fileType)) {
-                companies = parseCsv(file, columnsToInclude);
-            } else if ("excel".equalsIgnoreCase(fileType)) {
-                companies = parseExcel(file, columnsToInclude);
-            } else {
-                response.put("error", "Invalid file type. Use 'csv' or 'excel'.");
-                return ResponseEntity.badRequest().body(response);
-            }
-
             if (preview) {
+                List<Company> companies = new ArrayList<>();
+                DuplicateMatcher matcher = duplicateMatcherService.companyMatcher();
+                Map<Integer, DuplicateMatcher.Match> collisions = new LinkedHashMap<>();
+                CompanyRowMapper mapper;
+                try (InputStream in = file.getInputStream()) {
+                    mapper = ImportFileReader.readCompanies(in, file.getSize(), fileType, columnsToInclude, company -> {
+                        DuplicateMatcher.Match match = matcher.matchCompany(companies.size(), company.getName(), company.getEmail(), company.getPhone());
+                        if (match.type() != DuplicateMatcher.MatchType.NEW) {
+                            collisions.put(companies.size(), match);
+                        }
+                        companies.add(company);
+                    }, null);
+                }
                 response.put("companies", companies);
-                response.put("unmappedFields", getUnmappedFields());
-                response.put("headers", getHeaders());
-                return ResponseEntity.ok(response);
-            } else {
-                ProgressTracker progressTracker = new ProgressTracker();
-                ImportResult<Company> importResult = companyService.bulkImportCompanies(companies, updateExisting, progressTracker);
-                messagingTemplate.convertAndSend("/topic/import-progress/" + sessionId, Map.of("progress", progressTracker.getProgress()));
-
-                response.put("message", String.format("Imported companies: %d created, %d updated, %d skipped out of %d parsed rows",
-                        importResult.getCreated(), importResult.getUpdated(), importResult.getSkipped(), companies.size()));
-                response.put("unmappedFields", getUnmappedFields());
+                response.put("unmappedFields", new HashSet<>(mapper.getUnmappedFields()));
+                response.put("headers", mapper.getHeaders());
+                response.put("duplicates", DuplicateMatcherService.report(matcher, collisions));
                 return ResponseEntity.ok(response);
             }
+
+            String email = SecurityContextHolder.getContext().getAuthentication().getName();
+            ImportJob job = importJobService.submitCompanyImport(file, fileType, updateExisting,
+                    "copy".equalsIgnoreCase(bulkMode), columnsToInclude, sessionId, email);
+            response.put("message", "Import queued");
+            response.put("jobId", job.getId());
+            response.put("status", job.getStatus());
+            return ResponseEntity.accepted().body(response);
+        } catch (TooManyRequestsException e) {
+            response.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header("Retry-After", String.valueOf(e.getRetryAfterSeconds()))
+                    .body(response);
         } catch (Exception e) {
             response.put("error", "Import failed: " + e.getMessage());
             return ResponseEntity.status(500).body(response);
-        } finally {
-            unmappedFields.remove();
-            headers.remove();
         }
     }
 
     // In CompanyController.java
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggestCompanies(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(suggestionIndexService.suggestCompanies(prefix, limit));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Map.of("error", "Failed to suggest companies: " + e.getMessage()));
+        }
+    }
+
     @GetMapping("/allNames")
     public ResponseEntity<List<Map<String, Object>>> getAllCompanyNames() {
         try {
@@ -218,291 +276,33 @@ public class CompanyController {
             return ResponseEntity.status(500).body(Collections.emptyList());
         }
     }
+    // Progress events of the import submitted with this session id, also published on /topic/import-progress/{sessionId}
     @GetMapping(value = "/import-progress/{sessionId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter getImportProgress(@PathVariable String sessionId) {
-        SseEmitter emitter = new SseEmitter(Long.MAX_VALUE);
-        // Implementation for SSE progress updates can be added here if needed
-        return emitter;
-    }
-
-    private List<Company> parseCsv(MultipartFile file, List<String> columnsToInclude) throws IOException {
-        final Pattern EMAIL_PATTERN = Pattern.compile("^[\\w-\\.]+@([\\w-]+\\.)+[\\w-]{2,4}$", Pattern.CASE_INSENSITIVE);
-        final Pattern PHONE_PATTERN = Pattern.compile("^\\+?[1-9]\\d{1,14}$");
-
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream()));
-             CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT.withFirstRecordAsHeader()
-                     .withTrim()
-                     .withAllowMissingColumnNames()
-                     .withIgnoreEmptyLines()
-                     .withIgnoreHeaderCase())) {
-
-            List<Company> companies = new ArrayList<>();
-            Set<String> unmappedFields = new HashSet<>();
-            Map<String, String> fieldMappings = new HashMap<>();
-            Set<String> nameHints = Set.of("name", "company", "business", "org", "organization");
-            List<String> allHeaders = csvParser.getHeaderNames() != null ? new ArrayList<>(csvParser.getHeaderNames()) : new ArrayList<>();
-
-            setHeaders(allHeaders);
-
-            for (String header : allHeaders) {
-                String lowerHeader = header.toLowerCase();
-                if (columnsToInclude != null && !columnsToInclude.contains(lowerHeader)) {
-                    unmappedFields.add(header);
-                    continue;
-                }
-                if (nameHints.stream().anyMatch(lowerHeader::contains)) {
-                    fieldMappings.put(lowerHeader, "name");
-                } else if (lowerHeader.contains("email")) {
-                    fieldMappings.put(lowerHeader, "email");
-                } else if (lowerHeader.contains("phone") || lowerHeader.contains("mobile")) {
-                    fieldMappings.put(lowerHeader, "phone");
-                } else if (lowerHeader.contains("status")) {
-                    fieldMappings.put(lowerHeader, "status");
-                } else if (lowerHeader.contains("address")) {
-                    fieldMappings.put(lowerHeader, "address");
-                } else if (lowerHeader.contains("website") || lowerHeader.contains("url")) {
-                    fieldMappings.put(lowerHeader, "website");
-                } else if (lowerHeader.contains("industry")) {
-                    fieldMappings.put(lowerHeader, "industry");
-                } else if (lowerHeader.contains("notes")) {
-                    fieldMappings.put(lowerHeader, "notes");
-                } else if (lowerHeader.contains("owner")) {
-                    fieldMappings.put(lowerHeader, "ownerUsername");
-                } else {
-                    unmappedFields.add(header);
-                }
-            }
-            setUnmappedFields(unmappedFields);
-
-            for (CSVRecord record : csvParser) {
-                Company company = new Company();
-                boolean hasName = false;
-                StringBuilder notes = new StringBuilder();
-
-                for (String header : allHeaders) {
-                    String value = record.isSet(header) ? record.get(header).trim() : "";
-                    if (value.isEmpty()) continue;
-
-                    String lowerHeader = header.toLowerCase();
-                    if (columnsToInclude != null && !columnsToInclude.contains(lowerHeader)) {
-                        notes.append(header).append(": ").append(value).append("; ");
-                        continue;
-                    }
-
-                    String mappedField = fieldMappings.getOrDefault(lowerHeader, null);
-                    if (mappedField != null) {
-                        switch (mappedField) {
-                            case "name":
-                                company.setName(value);
-                                hasName = true;
-                                break;
-                            case "email":
-                                if (EMAIL_PATTERN.matcher(value).matches()) company.setEmail(value);
-                                break;
-                            case "phone":
-                                String normalizedPhone = value.replaceAll("[^0-9+]", "");
-                                if (PHONE_PATTERN.matcher(normalizedPhone).matches()) company.setPhone(normalizedPhone);
-                                break;
-                            case "status":
-                                company.setStatus(value);
-                                break;
-                            case "address":
-                                company.setAddress(value);
-                                break;
-                            case "website":
-                                company.setWebsite(value);
-                                break;
-                            case "industry":
-                                company.setIndustry(value);
-                                break;
-                            case "notes":
-                                company.setNotes(value);
-                                break;
-                            case "ownerUsername":
-                                company.setOwnerUsername(value);
-                                break;
-                        }
-                    } else {
-                        notes.append(header).append(": ").append(value).append("; ");
-                    }
-                }
-
-                if (hasName) {
-                    if (notes.length() > 0) {
-                        company.setNotes(notes.substring(0, notes.length() - 2)); // Remove trailing "; "
-                    }
-                    companies.add(company);
-                }
-            }
-            return companies;
-        }
-    }
-
-    private List<Company> parseExcel(MultipartFile file, List<String> columnsToInclude) throws IOException {
-        final Pattern EMAIL_PATTERN = Pattern.compile("^[\\w-\\.]+@([\\w-]+\\.)+[\\w-]{2,4}$", Pattern.CASE_INSENSITIVE);
-        final Pattern PHONE_PATTERN = Pattern.compile("^\\+?[1-9]\\d{1,14}$");
-
-        try (Workbook workbook = WorkbookFactory.create(file.getInputStream())) {
-            Sheet sheet = workbook.getSheetAt(0);
-            List<Company> companies = new ArrayList<>();
-            Set<String> unmappedFields = new HashSet<>();
-            Map<String, String> fieldMappings = new HashMap<>();
-            Set<String> nameHints = Set.of("name", "company", "business", "org", "organization");
-            Row headerRow = sheet.getRow(0);
-            List<String> allHeaders = new ArrayList<>();
-
-            if (headerRow != null) {
-                for (Cell cell : headerRow) {
-                    allHeaders.add(cell.getStringCellValue().trim());
-                }
-            }
-            setHeaders(allHeaders);
-
-            if (headerRow != null) {
-                for (Cell cell : headerRow) {
-                    String header = cell.getStringCellValue().trim();
-                    String lowerHeader = header.toLowerCase();
-                    if (columnsToInclude != null && !columnsToInclude.contains(lowerHeader)) {
-                        unmappedFields.add(header);
-                        continue;
-                    }
-                    if (nameHints.stream().anyMatch(lowerHeader::contains)) {
-                        fieldMappings.put(lowerHeader, "name");
-                    } else if (lowerHeader.contains("email")) {
-                        fieldMappings.put(lowerHeader, "email");
-                    } else if (lowerHeader.contains("phone") || lowerHeader.contains("mobile")) {
-                        fieldMappings.put(lowerHeader, "phone");
-                    } else if (lowerHeader.contains("status")) {
-                        fieldMappings.put(lowerHeader, "status");
-                    } else if (lowerHeader.contains("address")) {
-                        fieldMappings.put(lowerHeader, "address");
-                    } else if (lowerHeader.contains("website") || lowerHeader.contains("url")) {
-                        fieldMappings.put(lowerHeader, "website");
-                    } else if (lowerHeader.contains("industry")) {
-                        fieldMappings.put(lowerHeader, "industry");
-                    } else if (lowerHeader.contains("notes")) {
-                        fieldMappings.put(lowerHeader, "notes");
-                    } else if (lowerHeader.contains("owner")) {
-                        fieldMappings.put(lowerHeader, "ownerUsername");
-                    } else {
-                        unmappedFields.add(header);
-                    }
-                }
-            }
-            setUnmappedFields(unmappedFields);
-
-            for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-                Row row = sheet.getRow(i);
-                if (row == null) continue;
-                Company company = new Company();
-                boolean hasName = false;
-                StringBuilder notes = new StringBuilder();
-
-                for (Cell cell : row) {
-                    String header = headerRow.getCell(cell.getColumnIndex()).getStringCellValue().trim();
-                    String value = getCellValue(cell);
-                    if (value.isEmpty()) continue;
-
-                    String lowerHeader = header.toLowerCase();
-                    if (columnsToInclude != null && !columnsToInclude.contains(lowerHeader)) {
-                        notes.append(header).append(": ").append(value).append("; ");
-                        continue;
-                    }
-
-                    String mappedField = fieldMappings.getOrDefault(lowerHeader, null);
-                    if (mappedField != null) {
-                        switch (mappedField) {
-                            case "name":
-                                company.setName(value);
-                                hasName = true;
-                                break;
-                            case "email":
-                                if (EMAIL_PATTERN.matcher(value).matches()) company.setEmail(value);
-                                break;
-                            case "phone":
-                                String normalizedPhone = value.replaceAll("[^0-9+]", "");
-                                if (PHONE_PATTERN.matcher(normalizedPhone).matches()) company.setPhone(normalizedPhone);
-                                break;
-                            case "status":
-                                company.setStatus(value);
-                                break;
-                            case "address":
-                                company.setAddress(value);
-                                break;
-                            case "website":
-                                company.setWebsite(value);
-                                break;
-                            case "industry":
-                                company.setIndustry(value);
-                                break;
-                            case "notes":
-                                company.setNotes(value);
-                                break;
-                            case "ownerUsername":
-                                company.setOwnerUsername(value);
-                                break;
-                        }
-                    } else {
-                        notes.append(header).append(": ").append(value).append("; ");
-                    }
-                }
-
-                if (hasName) {
-                    if (notes.length() > 0) {
-                        company.setNotes(notes.substring(0, notes.length() - 2));
-                    }
-                    companies.add(company);
-                }
-            }
-            return companies;
-        }
-    }
-
-    private String getCellValue(Cell cell) {
-        if (cell == null) return "";
-        switch (cell.getCellType()) {
-            case STRING: return cell.getStringCellValue().trim();
-            case NUMERIC: return String.valueOf((long) cell.getNumericCellValue());
-            case BOOLEAN: return String.valueOf(cell.getBooleanCellValue());
-            default: return "";
-        }
-    }
-
-    private ThreadLocal<Set<String>> unmappedFields = new ThreadLocal<>();
-    private ThreadLocal<List<String>> headers = new ThreadLocal<>();
-
-    private void setUnmappedFields(Set<String> fields) {
-        unmappedFields.set(fields);
-    }
-
-    private Set<String> getUnmappedFields() {
-        return unmappedFields.get() != null ? new HashSet<>(unmappedFields.get()) : new HashSet<>();
-    }
-
-    private void setHeaders(List<String> headersList) {
-        headers.set(headersList);
-    }
-
-    private List<String> getHeaders() {
-        return headers.get() != null ? new ArrayList<>(headers.get()) : new ArrayList<>();
+    public ResponseEntity<SseEmitter> getImportProgress(@PathVariable String sessionId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        boolean admin = authentication.getAuthorities().stream()
+                .anyMatch(authority -> authority.getAuthority().equals("Admin") || authority.getAuthority().equals("SuperAdmin"));
+        return importJobService.subscribeBySession(sessionId, authentication.getName(), admin)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(404).build());
     }
 
     @GetMapping("/export")
     public ResponseEntity<?> exportCompanies(
             @RequestParam("columns") String columns,
             @RequestParam("type") String fileType) {
-        try {
-            List<String> columnList = Arrays.asList(columns.split(","));
-            byte[] data = "csv".equalsIgnoreCase(fileType) ?
-                    companyService.exportCompaniesToCsv(columnList) :
-                    companyService.exportCompaniesToExcel(columnList);
-            String filename = "companies." + ("csv".equalsIgnoreCase(fileType) ? "csv" : "xlsx");
-
+        List<String> columnList = Arrays.asList(columns.split(","));
+        // Streamed from a JDBC cursor, rows reach the client while the query is still running; errors from
+        // here on are handled by ExportService.streamed since the response is already committed
+        if ("csv".equalsIgnoreCase(fileType)) {
             return ResponseEntity.ok()
-                    .header("Content-Disposition", "attachment; filename=" + filename)
-                    .body(data);
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body(Map.of("error", "Export failed: " + e.getMessage()));
+                    .header("Content-Disposition", "attachment; filename=companies.csv")
+                    .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                    .body(exportService.streamed("Company CSV", out -> exportService.writeCompaniesCsv(columnList, out)));
         }
+        return ResponseEntity.ok()
+                .header("Content-Disposition", "attachment; filename=companies.xlsx")
+                .contentType(MediaType.parseMediaType(StreamingExcelWriter.CONTENT_TYPE))
+                .body(exportService.streamed("Company Excel", out -> exportService.writeCompaniesExcel(columnList, out)));
     }
 }
\ No newline at end of file
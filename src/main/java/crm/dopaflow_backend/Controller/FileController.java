@@ -0,0 +1,61 @@
+package crm.dopaflow_backend.Controller;
+
+import crm.dopaflow_backend.Service.FileServingService;
+import crm.dopaflow_backend.Service.ImageDerivativeService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+/**
+ * Serves uploaded photos with their thumbnails, and the stock avatars. Photo names are unique per upload and
+ * never rewritten (a new photo gets a new name), so photos and thumbnails are cached as immutable; avatars
+ * keep their names across deployments and are revalidated.
+ */
+@RestController
+@RequiredArgsConstructor
+public class FileController {
+    private static final Map<String, Path> PHOTO_DIRECTORIES = Map.of(
+            "photos", Paths.get("uploads/photos"),
+            "contact-photos", Paths.get("uploads/contact-photos"),
+            "company-photos", Paths.get("uploads/company-photos"));
+    private static final Path AVATAR_DIR = Paths.get("uploads/avatars");
+
+    private final FileServingService fileServingService;
+    private final ImageDerivativeService imageDerivativeService;
+
+    @GetMapping("/{directory:photos|contact-photos|company-photos}/{filename:.+}")
+    public void getPhoto(@PathVariable String directory, @PathVariable String filename,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path file = FileServingService.resolve(PHOTO_DIRECTORIES.get(directory), filename);
+        if (file != null && !Files.exists(file)) {
+            // Thumbnail not built yet (or photo from before thumbnails): the original stands in, revalidated
+            // so that clients switch to the thumbnail once it exists
+            String originalName = imageDerivativeService.originalOf(filename);
+            Path original = originalName != null ? file.resolveSibling(originalName) : null;
+            if (original != null && Files.isRegularFile(original)) {
+                imageDerivativeService.generateAsync(original);
+                fileServingService.serve(request, response, original, FileServingService.contentTypeOf(originalName),
+                        null, fileServingService.revalidated(), null);
+                return;
+            }
+        }
+        fileServingService.serve(request, response, file, FileServingService.contentTypeOf(filename),
+                null, fileServingService.immutable(), null);
+    }
+
+    @GetMapping("/avatars/{filename:.+}")
+    public void getAvatar(@PathVariable String filename,
+                          HttpServletRequest request, HttpServletResponse response) throws IOException {
+        fileServingService.serve(request, response, FileServingService.resolve(AVATAR_DIR, filename),
+                FileServingService.contentTypeOf(filename), null, fileServingService.revalidated(), null);
+    }
+}
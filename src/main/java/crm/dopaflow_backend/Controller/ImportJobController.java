@@ -0,0 +1,65 @@
+package crm.dopaflow_backend.Controller;
+
+import crm.dopaflow_backend.Model.ImportJob;
+import crm.dopaflow_backend.Service.ImportJobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+import java.util.Optional;
+
+// Background contact and company imports, submitted through /api/contacts/import and /api/companies/import
+@RestController
+@RequestMapping("/api/imports")
+@RequiredArgsConstructor
+public class ImportJobController {
+    private final ImportJobService importJobService;
+
+    @GetMapping
+    public ResponseEntity<?> getMyImports(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(importJobService.listJobs(currentUserEmail(), limit));
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<?> getImport(@PathVariable String jobId) {
+        Optional<ImportJob> job = importJobService.getJob(jobId).filter(ImportJobController::canAccess);
+        if (job.isEmpty()) {
+            return ResponseEntity.status(404).body(Map.of("error", "Import job not found"));
+        }
+        return ResponseEntity.ok(job.get());
+    }
+
+    @GetMapping(value = "/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> getImportEvents(@PathVariable String jobId) {
+        if (importJobService.getJob(jobId).filter(ImportJobController::canAccess).isEmpty()) {
+            return ResponseEntity.status(404).build();
+        }
+        return ResponseEntity.ok(importJobService.subscribe(jobId));
+    }
+
+    @PostMapping("/{jobId}/cancel")
+    public ResponseEntity<?> cancelImport(@PathVariable String jobId) {
+        if (importJobService.getJob(jobId).filter(ImportJobController::canAccess).isEmpty()) {
+            return ResponseEntity.status(404).body(Map.of("error", "Import job not found"));
+        }
+        return importJobService.cancel(jobId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(404).body(Map.of("error", "Import job not found")));
+    }
+
+    private static String currentUserEmail() {
+        return SecurityContextHolder.getContext().getAuthentication().getName();
+    }
+
+    // Jobs are visible to the user who submitted them and to admins
+    private static boolean canAccess(ImportJob job) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return job.getCreatedBy().equals(authentication.getName()) || authentication.getAuthorities().stream()
+                .anyMatch(authority -> authority.getAuthority().equals("Admin") || authority.getAuthority().equals("SuperAdmin"));
+    }
+}
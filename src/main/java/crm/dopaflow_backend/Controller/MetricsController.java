@@ -0,0 +1,83 @@
+package crm.dopaflow_backend.Controller;
+
+import crm.dopaflow_backend.Security.PasswordHashingService;
+import crm.dopaflow_backend.Security.TokenRevocationService;
+import crm.dopaflow_backend.Security.VerifiedPrincipalCache;
+import crm.dopaflow_backend.Service.FacetService;
+import crm.dopaflow_backend.Service.FileServingService;
+import crm.dopaflow_backend.Service.GeoIpService;
+import crm.dopaflow_backend.Service.ImageDerivativeService;
+import crm.dopaflow_backend.Service.ImportJobService;
+import crm.dopaflow_backend.Service.LoginHistoryWriter;
+import crm.dopaflow_backend.Service.SuggestionIndexService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/metrics")
+@RequiredArgsConstructor
+public class MetricsController {
+    private final VerifiedPrincipalCache principalCache;
+    private final GeoIpService geoIpService;
+    private final LoginHistoryWriter loginHistoryWriter;
+    private final PasswordHashingService passwordHashingService;
+    private final TokenRevocationService tokenRevocationService;
+    private final SuggestionIndexService suggestionIndexService;
+    private final ImportJobService importJobService;
+    private final FacetService facetService;
+    private final ImageDerivativeService imageDerivativeService;
+    private final FileServingService fileServingService;
+
+    @GetMapping
+    public ResponseEntity<?> getMetrics(Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            return forbidden();
+        }
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("principalCache", principalCache.getStats());
+        metrics.put("geoIp", geoIpService.getStats());
+        metrics.put("loginHistoryWriter", loginHistoryWriter.getStats());
+        metrics.put("passwordHashing", passwordHashingService.getStats());
+        metrics.put("tokenRevocation", tokenRevocationService.getStats());
+        metrics.put("suggestionIndex", suggestionIndexService.getStats());
+        metrics.put("importJobs", importJobService.getStats());
+        metrics.put("facets", facetService.getStats());
+        metrics.put("imageDerivatives", imageDerivativeService.getStats());
+        metrics.put("fileServing", fileServingService.getStats());
+        return ResponseEntity.ok(metrics);
+    }
+
+    @GetMapping("/principal-cache")
+    public ResponseEntity<?> getPrincipalCacheStats(Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            return forbidden();
+        }
+        return ResponseEntity.ok(principalCache.getStats());
+    }
+
+    @GetMapping("/password-hashing")
+    public ResponseEntity<?> getPasswordHashingStats(Authentication authentication) {
+        if (!isAdmin(authentication)) {
+            return forbidden();
+        }
+        return ResponseEntity.ok(passwordHashingService.getStats());
+    }
+
+    // Authorities are the bare role names (no ROLE_ prefix), so hasAnyRole would never match
+    private static boolean isAdmin(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .anyMatch(authority -> authority.getAuthority().equals("Admin") || authority.getAuthority().equals("SuperAdmin"));
+    }
+
+    private static ResponseEntity<Map<String, String>> forbidden() {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Only admins can view metrics"));
+    }
+}
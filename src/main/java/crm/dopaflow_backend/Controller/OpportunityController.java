@@ -1,5 +1,6 @@
 package crm.dopaflow_backend.Controller;
 
+import crm.dopaflow_backend.DTO.OpportunityListItem;
 import crm.dopaflow_backend.Model.Opportunity;
 import crm.dopaflow_backend.Model.User;
 import crm.dopaflow_backend.Service.OpportunityService;
@@ -21,11 +22,11 @@ public class OpportunityController {
     private final JwtUtil jwtUtil;         // Add JwtUtil dependency
 
     @GetMapping("/all")
-    public ResponseEntity<Page<Opportunity>> getAllOpportunities(
+    public ResponseEntity<Page<OpportunityListItem>> getAllOpportunities(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "25") int size,
             @RequestParam(defaultValue = "createdAt,desc") String sort) {
-        return ResponseEntity.ok(opportunityService.getAllOpportunities(page, size, sort));
+        return ResponseEntity.ok(opportunityService.getOpportunityListItems(page, size, sort));
     }
 
     @GetMapping("/get/{id}")
@@ -3,6 +3,9 @@ package crm.dopaflow_backend.Controller;
 import crm.dopaflow_backend.Model.Notification;
 import crm.dopaflow_backend.Model.User;
 import crm.dopaflow_backend.Security.JwtUtil;
+import crm.dopaflow_backend.Security.TooManyRequestsException;
+import crm.dopaflow_backend.Service.ImageDerivativeService;
+import crm.dopaflow_backend.Service.LoginHistoryService;
 import crm.dopaflow_backend.Service.NotificationService;
 import crm.dopaflow_backend.Service.UserService;
 import lombok.RequiredArgsConstructor;
@@ -20,7 +23,6 @@ import java.util.Date;
 
 import java.util.Map;
 import java.util.TimeZone;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api")
@@ -30,6 +32,8 @@ public class ProfileController {
     private final UserService userService;
     private final JwtUtil jwtUtil;
     private final NotificationService notificationService;
+    private final LoginHistoryService loginHistoryService;
+    private final ImageDerivativeService imageDerivativeService;
     private static final Logger logger = LoggerFactory.getLogger(ProfileController.class);
     @GetMapping("/profile")
     public ResponseEntity<?> getProfile(@RequestHeader("Authorization") String authHeader) {
@@ -50,15 +54,7 @@ public class ProfileController {
                     "profilePhotoUrl", user.getProfilePhotoUrl() != null ? user.getProfilePhotoUrl() : "",
                     "birthdate", birthdateStr,
                     "status", user.getStatus(),
-                    "verified", user.getVerified(),
-                    "loginHistory", user.getLoginHistory().stream()
-                            .map(history -> Map.of(
-                                    "ipAddress", history.getIpAddress(),
-                                    "location", history.getLocation() != null ? history.getLocation() : "Unknown",
-                                    "deviceInfo", history.getDeviceInfo() != null ? history.getDeviceInfo() : "Unknown",
-                                    "loginTime", history.getLoginTime()
-                            ))
-                            .collect(Collectors.toList())
+                    "verified", user.getVerified()
             );
             return new ResponseEntity<>(profileData, HttpStatus.OK);
         } catch (Exception e) {
@@ -66,6 +62,24 @@ public class ProfileController {
         }
     }
 
+    // Login history is no longer embedded in /profile, it is paged newest-first with an opaque cursor
+    @GetMapping("/profile/login-history")
+    public ResponseEntity<?> getLoginHistory(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            String email = jwtUtil.getEmailFromToken(authHeader);
+            User user = userService.findByEmail(email)
+                    .orElseThrow(() -> new IllegalArgumentException("User not found for email: " + email));
+            return ResponseEntity.ok(loginHistoryService.getLoginHistoryPage(user.getId(), cursor, size));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(Map.of("error", e.getMessage()), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            return new ResponseEntity<>(Map.of("error", "Invalid or missing token"), HttpStatus.UNAUTHORIZED);
+        }
+    }
+
     @PostMapping("/profile/upload-photo")
     public ResponseEntity<?> uploadProfilePhoto(
             @RequestHeader("Authorization") String authHeader,
@@ -77,7 +91,8 @@ public class ProfileController {
             User updatedUser = userService.updateProfilePhoto(user.getEmail(), photo);
             return new ResponseEntity<>(Map.of(
                     "message", "Photo uploaded successfully",
-                    "photoUrl", updatedUser.getProfilePhotoUrl()
+                    "photoUrl", updatedUser.getProfilePhotoUrl(),
+                    "thumbnails", imageDerivativeService.derivativeUrls(updatedUser.getProfilePhotoUrl())
             ), HttpStatus.OK);
         } catch (IOException e) {
             return new ResponseEntity<>(Map.of("error", "Photo upload failed: " + e.getMessage()),
@@ -191,6 +206,10 @@ public class ProfileController {
                     Notification.NotificationType.PASSWORD_CHANGE
                         );
             return new ResponseEntity<>(Map.of("message", "Password changed successfully"), HttpStatus.OK);
+        } catch (TooManyRequestsException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header("Retry-After", String.valueOf(e.getRetryAfterSeconds()))
+                    .body(Map.of("error", e.getMessage()));
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(Map.of("error", e.getMessage()), HttpStatus.BAD_REQUEST);
         }
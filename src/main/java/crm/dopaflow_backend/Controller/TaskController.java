@@ -23,12 +23,20 @@ public class TaskController {
     private final TaskService taskService;
 
     @GetMapping("/all")
-    public ResponseEntity<Page<TaskDTO>> getAllTasks(
+    public ResponseEntity<?> getAllTasks(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "25") int size,
-            @RequestParam(defaultValue = "deadline,desc") String sort) {
+            @RequestParam(defaultValue = "deadline,desc") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean keyset) {
         try {
+            if (keyset || cursor != null) {
+                return ResponseEntity.ok(taskService.getTasksAfter(cursor, size, sort));
+            }
             return ResponseEntity.ok(taskService.getAllTasks(page, size, sort));
+        } catch (IllegalArgumentException e) {
+            System.out.println("Invalid parameter: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
         } catch (SecurityException e) {
             System.out.println("Security error fetching tasks: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(null);
@@ -127,7 +135,7 @@ public class TaskController {
     }
 
     @GetMapping("/filter")
-    public ResponseEntity<Page<TaskDTO>> filterTasks(
+    public ResponseEntity<?> filterTasks(
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String startDate,
             @RequestParam(required = false) String endDate,
@@ -138,8 +146,13 @@ public class TaskController {
             @RequestParam(defaultValue = "false") boolean archived,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "25") int size,
-            @RequestParam(defaultValue = "deadline,desc") String sort) {
+            @RequestParam(defaultValue = "deadline,desc") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean keyset) {
         try {
+            if (keyset || cursor != null) {
+                return ResponseEntity.ok(taskService.filterTasksAfter(status, startDate, endDate, assignedUserId, unassignedOnly, opportunityId, priority, archived, cursor, size, sort));
+            }
             return ResponseEntity.ok(taskService.filterTasks(status, startDate, endDate, assignedUserId, unassignedOnly, opportunityId, priority, archived, page, size, sort)
                     .map(TaskDTO::new));
         } catch (IllegalArgumentException e) {
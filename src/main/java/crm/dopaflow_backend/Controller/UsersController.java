@@ -4,6 +4,7 @@ import crm.dopaflow_backend.DTO.UserDTO;
 import crm.dopaflow_backend.Model.Role;
 import crm.dopaflow_backend.Model.StatutUser;
 import crm.dopaflow_backend.Model.User;
+import crm.dopaflow_backend.Service.OwnershipReassignmentService;
 import crm.dopaflow_backend.Service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -25,6 +26,8 @@ import java.util.stream.Collectors;
 public class UsersController {
 
     private final UserService userService;
+    private final OwnershipReassignmentService ownershipReassignmentService;
+
     @GetMapping("/search")
     public ResponseEntity<List<UserDTO>> searchUsers(@RequestParam("search") String searchTerm) {
         List<User> users = userService.searchUsers(searchTerm);
@@ -146,6 +149,31 @@ public class UsersController {
             return ResponseEntity.notFound().build();
         }
     }
+    /**
+     * Moves a user's contacts, companies, opportunities and tasks to another user (toUserId null: unassigned).
+     * Body: {"fromUserId": 1, "toUserId": 2, "dryRun": true}; the dry run only returns the counts.
+     */
+    @PostMapping("/reassign")
+    public ResponseEntity<?> reassignRecords(@RequestBody Map<String, Object> request, Authentication authentication) {
+        boolean admin = authentication.getAuthorities().stream()
+                .anyMatch(authority -> authority.getAuthority().equals("Admin") || authority.getAuthority().equals("SuperAdmin"));
+        if (!admin) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Only admins can reassign records"));
+        }
+        try {
+            Long fromUserId = toLong(request.get("fromUserId"));
+            Long toUserId = toLong(request.get("toUserId"));
+            boolean dryRun = Boolean.parseBoolean(String.valueOf(request.getOrDefault("dryRun", false)));
+            return ResponseEntity.ok(ownershipReassignmentService.reassign(fromUserId, toUserId, dryRun));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private static Long toLong(Object value) {
+        return value == null ? null : Long.valueOf(String.valueOf(value));
+    }
+
     @PreAuthorize("hasAnyRole('Admin', 'SuperAdmin')")
     @PostMapping("/block")
     public ResponseEntity<?> blockUser(@RequestBody Map<String, Long> request) {
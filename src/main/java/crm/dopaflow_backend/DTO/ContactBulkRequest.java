@@ -0,0 +1,35 @@
+package crm.dopaflow_backend.DTO;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Body of the /api/contacts/bulk endpoints: the contacts are selected either by ids or by a filter
+ * (same criteria as /api/contacts/filter). For updates, only the changes that are set are applied.
+ */
+@Data
+public class ContactBulkRequest {
+    private List<Long> ids;
+    private Filter filter;
+
+    private String status;
+    private Long ownerId;
+    private boolean clearOwner;
+    private Long companyId;
+    private boolean clearCompany;
+
+    @Data
+    public static class Filter {
+        private String status;
+        private String startDate;
+        private String endDate;
+        private Long ownerId;
+        private Long companyId;
+        private boolean unassignedOnly;
+        private String lastActivityStart;
+        private String lastActivityEnd;
+        private String emailDomain;
+        private Boolean hasOpportunities;
+    }
+}
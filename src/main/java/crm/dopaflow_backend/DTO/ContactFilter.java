@@ -0,0 +1,22 @@
+package crm.dopaflow_backend.DTO;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Criteria for ContactSpecifications, every null field means "no constraint"
+@Data
+@Builder
+public class ContactFilter {
+    private String status;
+    private Long ownerId;
+    private boolean unassignedOnly;
+    private Long companyId;
+    private LocalDateTime createdFrom;
+    private LocalDateTime createdTo;
+    private LocalDateTime lastActivityFrom;
+    private LocalDateTime lastActivityTo;
+    private String emailDomain;
+    private Boolean hasOpportunities;
+}
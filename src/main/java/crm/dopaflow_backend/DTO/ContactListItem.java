@@ -0,0 +1,45 @@
+package crm.dopaflow_backend.DTO;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import crm.dopaflow_backend.Model.Contact;
+
+import java.time.LocalDateTime;
+
+/**
+ * A row of the contact list: the displayed columns only, read with one joined query
+ * (ContactRepository.findListItems) instead of loading the EAGER owner and company graphs.
+ */
+public record ContactListItem(
+        Long id,
+        String name,
+        String email,
+        String phone,
+        String status,
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss", timezone = "Europe/Paris")
+        LocalDateTime createdAt,
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss", timezone = "Europe/Paris")
+        LocalDateTime lastActivity,
+        String photoUrl,
+        UserSummary owner,
+        CompanyRef company) {
+
+    public record CompanyRef(Long id, String name) {
+    }
+
+    // JPQL constructor expression, flat columns of the contact and its LEFT JOINed owner and company
+    public ContactListItem(Long id, String name, String email, String phone, String status,
+                           LocalDateTime createdAt, LocalDateTime lastActivity, String photoUrl,
+                           Long ownerId, String ownerUsername, String ownerEmail, String ownerPhotoUrl,
+                           Long companyId, String companyName) {
+        this(id, name, email, phone, status, createdAt, lastActivity, photoUrl,
+                UserSummary.of(ownerId, ownerUsername, ownerEmail, ownerPhotoUrl),
+                companyId != null ? new CompanyRef(companyId, companyName) : null);
+    }
+
+    public static ContactListItem from(Contact contact) {
+        return new ContactListItem(contact.getId(), contact.getName(), contact.getEmail(), contact.getPhone(),
+                contact.getStatus(), contact.getCreatedAt(), contact.getLastActivity(), contact.getPhotoUrl(),
+                UserSummary.from(contact.getOwner()),
+                contact.getCompany() != null ? new CompanyRef(contact.getCompany().getId(), contact.getCompany().getName()) : null);
+    }
+}
@@ -0,0 +1,39 @@
+package crm.dopaflow_backend.DTO;
+
+import crm.dopaflow_backend.Model.Priority;
+import crm.dopaflow_backend.Model.Stage;
+import crm.dopaflow_backend.Model.StatutOpportunity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A row of the opportunity list, read with one joined query (OpportunityRepository.findListItems)
+ * instead of loading the EAGER contact and owner graphs.
+ */
+public record OpportunityListItem(
+        Long id,
+        String title,
+        BigDecimal value,
+        Priority priority,
+        Integer progress,
+        Stage stage,
+        StatutOpportunity status,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        ContactRef contact,
+        UserSummary owner) {
+
+    public record ContactRef(Long id, String name, String email, String phone, String photoUrl) {
+    }
+
+    // JPQL constructor expression, flat columns of the opportunity and its LEFT JOINed contact and owner
+    public OpportunityListItem(Long id, String title, BigDecimal value, Priority priority, Integer progress,
+                               Stage stage, StatutOpportunity status, LocalDateTime createdAt, LocalDateTime updatedAt,
+                               Long contactId, String contactName, String contactEmail, String contactPhone, String contactPhotoUrl,
+                               Long ownerId, String ownerUsername, String ownerEmail, String ownerPhotoUrl) {
+        this(id, title, value, priority, progress, stage, status, createdAt, updatedAt,
+                contactId != null ? new ContactRef(contactId, contactName, contactEmail, contactPhone, contactPhotoUrl) : null,
+                UserSummary.of(ownerId, ownerUsername, ownerEmail, ownerPhotoUrl));
+    }
+}
@@ -0,0 +1,16 @@
+package crm.dopaflow_backend.DTO;
+
+import crm.dopaflow_backend.Model.User;
+
+// The owner fields shown in list views; never the full User (password hash, 2FA secret)
+public record UserSummary(Long id, String username, String email, String profilePhotoUrl) {
+
+    // Null when the LEFT JOINed owner is missing
+    public static UserSummary of(Long id, String username, String email, String profilePhotoUrl) {
+        return id != null ? new UserSummary(id, username, email, profilePhotoUrl) : null;
+    }
+
+    public static UserSummary from(User user) {
+        return user != null ? new UserSummary(user.getId(), user.getUsername(), user.getEmail(), user.getProfilePhotoUrl()) : null;
+    }
+}
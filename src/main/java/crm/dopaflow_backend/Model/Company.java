@@ -6,7 +6,12 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "companies")
+@EntityListeners(SuggestionIndexListener.class)
+@Table(name = "companies", indexes = {
+        // Keyset pagination: sort column + id tie-breaker
+        @Index(name = "idx_companies_created_at_id", columnList = "createdAt, id"),
+        @Index(name = "idx_companies_name_id", columnList = "name, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
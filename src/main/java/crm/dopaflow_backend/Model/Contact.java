@@ -11,7 +11,17 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "contacts")
+@EntityListeners(SuggestionIndexListener.class)
+@Table(name = "contacts", indexes = {
+        // Match the predicate order produced by ContactSpecifications: equality column first, then created_at
+        @Index(name = "idx_contacts_status_created_at", columnList = "status, created_at"),
+        @Index(name = "idx_contacts_owner_created_at", columnList = "owner_id, created_at"),
+        @Index(name = "idx_contacts_company_created_at", columnList = "company_id, created_at"),
+        @Index(name = "idx_contacts_last_activity", columnList = "lastActivity"),
+        // Keyset pagination: sort column + id tie-breaker
+        @Index(name = "idx_contacts_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_contacts_name_id", columnList = "name, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -19,8 +29,11 @@ import java.util.List;
 @Builder
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class Contact {
+    // Pooled sequence instead of IDENTITY so Hibernate can batch inserts (imports); aligned with existing ids
+    // at startup by ContactSequenceInitializer
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "contacts_seq")
+    @SequenceGenerator(name = "contacts_seq", sequenceName = "contacts_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
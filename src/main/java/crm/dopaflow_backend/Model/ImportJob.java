@@ -0,0 +1,86 @@
+package crm.dopaflow_backend.Model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A contact or company import running in the background (see ImportJobService). Progress and counts
+ * are saved periodically while the job runs, so the status survives the request that submitted it.
+ */
+@Entity
+@Table(name = "import_jobs", indexes = {
+        @Index(name = "idx_import_jobs_created_by_created_at", columnList = "createdBy, createdAt"),
+        @Index(name = "idx_import_jobs_session_id", columnList = "sessionId")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class ImportJob {
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ImportJobType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ImportJobStatus status;
+
+    private String fileName;
+
+    private String fileType;
+
+    private long fileSize;
+
+    private boolean updateExisting;
+
+    // Loaded with COPY into a staging table and merged in one transaction (bulkMode=copy)
+    private boolean bulkCopy;
+
+    // Email of the user who submitted the import
+    @Column(nullable = false)
+    private String createdBy;
+
+    // Client session listening on /topic/import-progress/{sessionId}, if any
+    private String sessionId;
+
+    // 0 to 100
+    private double progress;
+
+    private long processedRows;
+
+    private int created;
+
+    private int updated;
+
+    private int skipped;
+
+    // Rows imported as new although they look like an existing or earlier row (see DuplicateMatcher)
+    private int probableDuplicates;
+
+    @Column(columnDefinition = "TEXT")
+    private String unmappedFields;
+
+    @Column(length = 1000)
+    private String errorMessage;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime startedAt;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime finishedAt;
+
+    public boolean isFinished() {
+        return status == ImportJobStatus.COMPLETED || status == ImportJobStatus.FAILED || status == ImportJobStatus.CANCELLED;
+    }
+}
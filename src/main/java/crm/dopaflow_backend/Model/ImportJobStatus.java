@@ -0,0 +1,9 @@
+package crm.dopaflow_backend.Model;
+
+public enum ImportJobStatus {
+    QUEUED,    // Waiting for a free import thread
+    RUNNING,
+    COMPLETED,
+    FAILED,    // Chunks committed before the failure stay imported
+    CANCELLED  // Same, for chunks committed before the cancellation
+}
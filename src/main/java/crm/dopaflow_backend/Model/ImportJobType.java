@@ -0,0 +1,6 @@
+package crm.dopaflow_backend.Model;
+
+public enum ImportJobType {
+    CONTACTS,
+    COMPANIES
+}
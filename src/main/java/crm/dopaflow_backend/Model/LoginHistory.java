@@ -7,7 +7,10 @@ import lombok.*;
 import java.util.Date;
 
 @Entity
-@Table(name = "login_history")
+@Table(name = "login_history", indexes = {
+        @Index(name = "idx_login_history_user_id_id", columnList = "user_id, id"),
+        @Index(name = "idx_login_history_login_time", columnList = "loginTime")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -17,7 +20,7 @@ public class LoginHistory {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     @ToString.Exclude // Prevent circular reference in toString
     private User user;
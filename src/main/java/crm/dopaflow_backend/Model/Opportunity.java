@@ -10,7 +10,9 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "opportunities")
+@Table(name = "opportunities", indexes = {
+        @Index(name = "idx_opportunities_contact_id", columnList = "contact_id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
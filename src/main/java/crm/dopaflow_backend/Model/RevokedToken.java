@@ -0,0 +1,27 @@
+package crm.dopaflow_backend.Model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Date;
+
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "idx_revoked_tokens_expires_at", columnList = "expiresAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RevokedToken {
+    // JWT id (jti), or the SHA-256 of the token for tokens issued without one
+    @Id
+    @Column(length = 64)
+    private String tokenId;
+
+    @Column(nullable = false)
+    private Date expiresAt;
+
+    @Column(nullable = false)
+    private Date revokedAt;
+}
@@ -0,0 +1,34 @@
+package crm.dopaflow_backend.Model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// One stored file of the content-addressed attachment store, shared by every message attaching the same content
+@Entity
+@Table(name = "stored_attachments", indexes = {
+        @Index(name = "idx_stored_attachments_ref_count", columnList = "refCount")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StoredAttachment {
+    // Hex SHA-256 of the content, also its path in the store
+    @Id
+    @Column(length = 64)
+    private String sha256;
+
+    @Column(nullable = false)
+    private long size;
+
+    private String contentType;
+
+    // Number of TicketMessage.attachments entries pointing at this file; 0 = removed by the next sweep
+    @Column(nullable = false)
+    private int refCount;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
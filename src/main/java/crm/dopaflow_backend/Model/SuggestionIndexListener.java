@@ -0,0 +1,40 @@
+package crm.dopaflow_backend.Model;
+
+import crm.dopaflow_backend.Service.SuggestionIndexService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+// Keeps SuggestionIndexService in sync with Company/Contact saves and deletes (instantiated through Spring's bean container)
+public class SuggestionIndexListener {
+
+    private final ObjectProvider<SuggestionIndexService> suggestionIndex;
+
+    public SuggestionIndexListener(ObjectProvider<SuggestionIndexService> suggestionIndex) {
+        this.suggestionIndex = suggestionIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        SuggestionIndexService index = suggestionIndex.getIfAvailable();
+        if (index == null) return;
+        if (entity instanceof Company company) {
+            index.companySaved(company.getId(), company.getName());
+        } else if (entity instanceof Contact contact) {
+            index.contactSaved(contact.getId(), contact.getName());
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        SuggestionIndexService index = suggestionIndex.getIfAvailable();
+        if (index == null) return;
+        if (entity instanceof Company company) {
+            index.companyDeleted(company.getId());
+        } else if (entity instanceof Contact contact) {
+            index.contactDeleted(contact.getId());
+        }
+    }
+}
@@ -7,7 +7,10 @@ import lombok.*;
 import java.util.Date;
 
 @Entity
-@Table(name = "tasks")
+@Table(name = "tasks", indexes = {
+        // Keyset pagination: sort column + id tie-breaker
+        @Index(name = "idx_tasks_deadline_id", columnList = "deadline, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -7,6 +7,7 @@ import java.util.List;
 
 @Data
 @Entity
+@EntityListeners(TicketMessageAttachmentListener.class)
 @Table(name = "ticket_messages")
 public class TicketMessage {
     @Id
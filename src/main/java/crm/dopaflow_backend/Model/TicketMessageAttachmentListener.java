@@ -0,0 +1,24 @@
+package crm.dopaflow_backend.Model;
+
+import crm.dopaflow_backend.Service.AttachmentUploadService;
+import jakarta.persistence.PreRemove;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+
+// Releases the attachment store references of deleted messages, including messages removed with their ticket
+public class TicketMessageAttachmentListener {
+
+    private final ObjectProvider<AttachmentUploadService> attachmentUploadService;
+
+    public TicketMessageAttachmentListener(ObjectProvider<AttachmentUploadService> attachmentUploadService) {
+        this.attachmentUploadService = attachmentUploadService;
+    }
+
+    @PreRemove
+    public void onRemove(TicketMessage message) {
+        AttachmentUploadService service = attachmentUploadService.getIfAvailable();
+        if (service == null || message.getAttachments() == null || message.getAttachments().isEmpty()) return;
+        service.releaseAfterCommit(List.copyOf(message.getAttachments()));
+    }
+}
@@ -1,9 +1,12 @@
 package crm.dopaflow_backend.Repository;
 
 import crm.dopaflow_backend.Model.Company;
+import crm.dopaflow_backend.Model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -11,7 +14,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
-public interface CompanyRepository extends JpaRepository<Company, Long> {
+public interface CompanyRepository extends JpaRepository<Company, Long>, JpaSpecificationExecutor<Company> {
     List<Company> findTop50ByOrderByNameAsc();
 
     Page<Company> findAll(Pageable pageable);
@@ -54,4 +57,27 @@ public interface CompanyRepository extends JpaRepository<Company, Long> {
 
     @Query("SELECT COUNT(c) FROM Company c WHERE c.createdAt >= :startDate")
     long countNewCompaniesSince(@Param("startDate") LocalDateTime startDate);
+
+    long countByOwnerId(Long ownerId);
+
+    // Ownership reassignment in one statement, keeping the denormalized ownerUsername in step
+    @Modifying
+    @Query("UPDATE Company c SET c.owner = :to, c.ownerUsername = :toUsername WHERE c.owner.id = :fromId")
+    int reassignOwner(@Param("fromId") Long fromId, @Param("to") User to, @Param("toUsername") String toUsername);
+
+    // Fuzzy search served by the pg_trgm GIN indexes (see TrigramSearchInitializer): substring match on
+    // name/email/phone or a close word match on the name, best matches first
+    @Query(value = "SELECT c.* FROM companies c " +
+            "WHERE c.name ILIKE :pattern OR c.email ILIKE :pattern OR c.phone ILIKE :pattern OR :query <% c.name " +
+            "ORDER BY GREATEST(word_similarity(:query, c.name), word_similarity(:query, c.email)) DESC, c.id DESC",
+            countQuery = "SELECT COUNT(*) FROM companies c " +
+                    "WHERE c.name ILIKE :pattern OR c.email ILIKE :pattern OR c.phone ILIKE :pattern OR :query <% c.name",
+            nativeQuery = true)
+    Page<Company> searchByTrigram(@Param("query") String query, @Param("pattern") String pattern, Pageable pageable);
+
+    // Queries too short to produce a trigram: prefix match on the lower(name) text_pattern_ops index
+    @Query(value = "SELECT c.* FROM companies c WHERE lower(c.name) LIKE :prefix ORDER BY lower(c.name), c.id",
+            countQuery = "SELECT COUNT(*) FROM companies c WHERE lower(c.name) LIKE :prefix",
+            nativeQuery = true)
+    Page<Company> searchByNamePrefix(@Param("prefix") String prefix, Pageable pageable);
 }
\ No newline at end of file
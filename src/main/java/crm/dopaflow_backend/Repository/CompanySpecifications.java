@@ -0,0 +1,34 @@
+package crm.dopaflow_backend.Repository;
+
+import crm.dopaflow_backend.Model.Company;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Same semantics as CompanyService.filterCompanies, as a Specification for keyset pagination
+public final class CompanySpecifications {
+
+    private CompanySpecifications() {
+    }
+
+    public static Specification<Company> fromFilter(String status, Long ownerId, boolean unassignedOnly) {
+        return (root, query, cb) -> {
+            if (query.getResultType() != Long.class && query.getResultType() != long.class) {
+                root.fetch("owner", JoinType.LEFT);
+            }
+            List<Predicate> predicates = new ArrayList<>();
+            if (status != null && !status.isBlank() && !"ANY".equals(status)) {
+                predicates.add(cb.equal(root.get("status"), status));
+            }
+            if (unassignedOnly) {
+                predicates.add(cb.isNull(root.get("owner")));
+            } else if (ownerId != null) {
+                predicates.add(cb.equal(root.get("owner").get("id"), ownerId));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -1,78 +1,42 @@
 package crm.dopaflow_backend.Repository;
 
+import crm.dopaflow_backend.DTO.ContactListItem;
+import crm.dopaflow_backend.Model.Company;
 import crm.dopaflow_backend.Model.Contact;
+import crm.dopaflow_backend.Model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
-public interface ContactRepository extends JpaRepository<Contact, Long> {
+public interface ContactRepository extends JpaRepository<Contact, Long>, JpaSpecificationExecutor<Contact> {
 
         Page<Contact> findAll(Pageable pageable);
 
-        Page<Contact> findByNameContainingIgnoreCase(String name, Pageable pageable);
+        // List page in one statement (plus the count): displayed columns only, owner and company joined
+        @Query(value = "SELECT new crm.dopaflow_backend.DTO.ContactListItem(c.id, c.name, c.email, c.phone, c.status, " +
+                "c.createdAt, c.lastActivity, c.photoUrl, o.id, o.username, o.email, o.profilePhotoUrl, co.id, co.name) " +
+                "FROM Contact c LEFT JOIN c.owner o LEFT JOIN c.company co",
+                countQuery = "SELECT COUNT(c) FROM Contact c")
+        Page<ContactListItem> findListItems(Pageable pageable);
 
-        Page<Contact> findByStatusAndOwnerIdAndCreatedAtBetween(
-                String status,
-                Long ownerId,
-                LocalDateTime startDate,
-                LocalDateTime endDate,
-                Pageable pageable
-        );
-
-        Page<Contact> findByStatusAndCreatedAtBetween(
-                String status,
-                LocalDateTime startDate,
-                LocalDateTime endDate,
-                Pageable pageable
-        );
-
-        Page<Contact> findByStatusAndOwnerIsNullAndCreatedAtBetween(
-                String status,
-                LocalDateTime startDate,
-                LocalDateTime endDate,
-                Pageable pageable
-        );
+        Page<Contact> findByNameContainingIgnoreCase(String name, Pageable pageable);
 
         Page<Contact> findByOwnerIsNull(Pageable pageable);
 
-        // New methods without status filter
-        Page<Contact> findByOwnerIdAndCreatedAtBetween(
-                Long ownerId,
-                LocalDateTime startDate,
-                LocalDateTime endDate,
-                Pageable pageable
-        );
-
-        Page<Contact> findByOwnerIsNullAndCreatedAtBetween(
-                LocalDateTime startDate,
-                LocalDateTime endDate,
-                Pageable pageable
-        );
-
-        Page<Contact> findByCreatedAtBetween(
-                LocalDateTime startDate,
-                LocalDateTime endDate,
-                Pageable pageable
-        );
-
         List<Contact> findByOwnerId(Long ownerId);
         Contact findContactById(Long aLong);
 
-        Page<Contact> findByCompanyIdAndCreatedAtBetween(Long companyId, LocalDateTime start, LocalDateTime end, Pageable pageable);
-        Page<Contact> findByStatusAndCompanyIdAndCreatedAtBetween(String status, Long companyId, LocalDateTime start, LocalDateTime end, Pageable pageable);
-        Page<Contact> findByOwnerIdAndCompanyIdAndCreatedAtBetween(Long ownerId, Long companyId, LocalDateTime start, LocalDateTime end, Pageable pageable);
-
-        Page<Contact> findByOwnerIsNullAndCompanyIdAndCreatedAtBetween(Long companyId, LocalDateTime startDate, LocalDateTime endDate, Pageable pageable);
-
-        Page<Contact> findByStatusAndOwnerIsNullAndCompanyIdAndCreatedAtBetween(String filteredStatus, Long companyId, LocalDateTime startDate, LocalDateTime endDate, Pageable pageable);
-
-        Page<Contact> findByStatusAndOwnerIdAndCompanyIdAndCreatedAtBetween(String filteredStatus, Long ownerId, Long companyId, LocalDateTime startDate, LocalDateTime endDate, Pageable pageable);
-
+        // Used per import chunk: owner and company are EAGER, load them in the same statement instead of one select each
+        @EntityGraph(attributePaths = {"owner", "company", "company.owner"})
         List<Contact> findByEmailIn(List<String> emails);
         List<Contact> findByCompanyId(Long companyId);
 
@@ -81,6 +45,41 @@ public interface ContactRepository extends JpaRepository<Contact, Long> {
         @Query("UPDATE Contact c SET c.company = NULL WHERE c.company.id = :companyId")
         void unassignCompany(Long companyId);
 
+        @Modifying
+        @Query("UPDATE Contact c SET c.company = NULL WHERE c.company.id IN :companyIds")
+        int unassignCompanies(@Param("companyIds") Collection<Long> companyIds);
+
+        long countByOwnerId(Long ownerId);
+
+        // Bulk mutations (ContactBulkService), applied per chunk of ids
+        @Query("SELECT c.id FROM Contact c WHERE c.id IN :ids")
+        List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+        @Modifying
+        @Query("DELETE FROM Contact c WHERE c.id IN :ids")
+        int deleteByIds(@Param("ids") Collection<Long> ids);
+
+        // Ownership reassignment in one statement; to is null to leave the contacts unassigned
+        @Modifying
+        @Query("UPDATE Contact c SET c.owner = :to WHERE c.owner.id = :fromId")
+        int reassignOwner(@Param("fromId") Long fromId, @Param("to") User to);
+
         @Query("SELECT COUNT(c) FROM Contact c WHERE c.createdAt >= :startDate")
         long countNewContactsSince(LocalDateTime startDate);
+
+        // Fuzzy search served by the pg_trgm GIN indexes (see TrigramSearchInitializer): substring match on
+        // name/email/phone or a close word match on the name, best matches first
+        @Query(value = "SELECT c.* FROM contacts c " +
+                "WHERE c.name ILIKE :pattern OR c.email ILIKE :pattern OR c.phone ILIKE :pattern OR :query <% c.name " +
+                "ORDER BY GREATEST(word_similarity(:query, c.name), word_similarity(:query, c.email)) DESC, c.id DESC",
+                countQuery = "SELECT COUNT(*) FROM contacts c " +
+                        "WHERE c.name ILIKE :pattern OR c.email ILIKE :pattern OR c.phone ILIKE :pattern OR :query <% c.name",
+                nativeQuery = true)
+        Page<Contact> searchByTrigram(@Param("query") String query, @Param("pattern") String pattern, Pageable pageable);
+
+        // Queries too short to produce a trigram: prefix match on the lower(name) text_pattern_ops index
+        @Query(value = "SELECT c.* FROM contacts c WHERE lower(c.name) LIKE :prefix ORDER BY lower(c.name), c.id",
+                countQuery = "SELECT COUNT(*) FROM contacts c WHERE lower(c.name) LIKE :prefix",
+                nativeQuery = true)
+        Page<Contact> searchByNamePrefix(@Param("prefix") String prefix, Pageable pageable);
 }
\ No newline at end of file
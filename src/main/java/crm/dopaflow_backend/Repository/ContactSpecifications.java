@@ -0,0 +1,77 @@
+package crm.dopaflow_backend.Repository;
+
+import crm.dopaflow_backend.DTO.ContactFilter;
+import crm.dopaflow_backend.Model.Contact;
+import crm.dopaflow_backend.Model.Opportunity;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compiles a ContactFilter into a single WHERE clause. Predicates are always emitted in the same order
+ * (equality on status / owner / company first, then the created_at and last_activity ranges) so the
+ * generated SQL lines up with the composite indexes declared on Contact, whatever combination is set.
+ */
+public final class ContactSpecifications {
+
+    private ContactSpecifications() {
+    }
+
+    public static Specification<Contact> fromFilter(ContactFilter filter) {
+        return (root, query, cb) -> {
+            // Fetch the eager owner/company in the same statement instead of one select per row;
+            // count queries must not fetch
+            if (query.getResultType() != Long.class && query.getResultType() != long.class) {
+                root.fetch("owner", JoinType.LEFT);
+                root.fetch("company", JoinType.LEFT);
+            }
+
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter.getStatus() != null && !filter.getStatus().isBlank() && !"ANY".equals(filter.getStatus())) {
+                predicates.add(cb.equal(root.get("status"), filter.getStatus()));
+            }
+            if (filter.isUnassignedOnly()) {
+                predicates.add(cb.isNull(root.get("owner")));
+            } else if (filter.getOwnerId() != null) {
+                predicates.add(cb.equal(root.get("owner").get("id"), filter.getOwnerId()));
+            }
+            if (filter.getCompanyId() != null) {
+                predicates.add(cb.equal(root.get("company").get("id"), filter.getCompanyId()));
+            }
+            if (filter.getCreatedFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), filter.getCreatedFrom()));
+            }
+            if (filter.getCreatedTo() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("createdAt"), filter.getCreatedTo()));
+            }
+            if (filter.getLastActivityFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("lastActivity"), filter.getLastActivityFrom()));
+            }
+            if (filter.getLastActivityTo() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("lastActivity"), filter.getLastActivityTo()));
+            }
+            if (filter.getEmailDomain() != null && !filter.getEmailDomain().isBlank()) {
+                String domain = filter.getEmailDomain().trim().toLowerCase(Locale.ROOT);
+                if (domain.startsWith("@")) {
+                    domain = domain.substring(1);
+                }
+                predicates.add(cb.like(cb.lower(root.get("email")), "%@" + escapeLike(domain), '\\'));
+            }
+            if (filter.getHasOpportunities() != null) {
+                Subquery<Long> opportunities = query.subquery(Long.class);
+                Root<Opportunity> opportunity = opportunities.from(Opportunity.class);
+                opportunities.select(cb.literal(1L))
+                        .where(cb.equal(opportunity.get("contact"), root));
+                predicates.add(filter.getHasOpportunities() ? cb.exists(opportunities) : cb.not(cb.exists(opportunities)));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    public static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
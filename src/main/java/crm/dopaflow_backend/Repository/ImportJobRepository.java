@@ -0,0 +1,32 @@
+package crm.dopaflow_backend.Repository;
+
+import crm.dopaflow_backend.Model.ImportJob;
+import crm.dopaflow_backend.Model.ImportJobStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ImportJobRepository extends JpaRepository<ImportJob, String> {
+
+    List<ImportJob> findByCreatedByOrderByCreatedAtDesc(String createdBy, Pageable pageable);
+
+    Optional<ImportJob> findFirstBySessionIdOrderByCreatedAtDesc(String sessionId);
+
+    // Jobs still queued or running when the application stopped will never finish
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImportJob j SET j.status = :failed, j.errorMessage = :message, j.finishedAt = :now " +
+            "WHERE j.status IN :unfinished")
+    int failUnfinished(@Param("unfinished") Collection<ImportJobStatus> unfinished,
+                       @Param("failed") ImportJobStatus failed,
+                       @Param("message") String message,
+                       @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,22 @@
+package crm.dopaflow_backend.Repository;
+
+import crm.dopaflow_backend.Model.LoginHistory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface LoginHistoryRepository extends JpaRepository<LoginHistory, Long> {
+
+    // Keyset pages over the (user_id, id) index, newest first
+    List<LoginHistory> findByUserIdOrderByIdDesc(Long userId, Pageable pageable);
+
+    List<LoginHistory> findByUserIdAndIdLessThanOrderByIdDesc(Long userId, Long id, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM LoginHistory l WHERE l.user.id = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+}
@@ -1,19 +1,32 @@
 package crm.dopaflow_backend.Repository;
 
+import crm.dopaflow_backend.DTO.OpportunityListItem;
 import crm.dopaflow_backend.Model.Opportunity;
 import crm.dopaflow_backend.Model.StatutOpportunity;
 import crm.dopaflow_backend.Model.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OpportunityRepository extends JpaRepository<Opportunity, Long> {
 
+    // List page in one statement (plus the count): displayed columns only, contact and owner joined
+    @Query(value = "SELECT new crm.dopaflow_backend.DTO.OpportunityListItem(o.id, o.title, o.value, o.priority, o.progress, " +
+            "o.stage, o.status, o.createdAt, o.updatedAt, c.id, c.name, c.email, c.phone, c.photoUrl, " +
+            "u.id, u.username, u.email, u.profilePhotoUrl) " +
+            "FROM Opportunity o LEFT JOIN o.contact c LEFT JOIN o.owner u",
+            countQuery = "SELECT COUNT(o) FROM Opportunity o")
+    Page<OpportunityListItem> findListItems(Pageable pageable);
+
     @Query("SELECT COUNT(o) FROM Opportunity o WHERE o.status = :status")
     long countOpenOpportunities(@Param("status") StatutOpportunity status);
 
@@ -32,6 +45,18 @@ public interface OpportunityRepository extends JpaRepository<Opportunity, Long>
     @Query("SELECT COUNT(o) FROM Opportunity o")
     long countOpportunities();
 
+    long countByOwnerId(Long ownerId);
+
+    // Bulk contact deletion: the opportunities go with their contact, as with the Contact.opportunities cascade
+    @Modifying
+    @Query("DELETE FROM Opportunity o WHERE o.contact.id IN :contactIds")
+    int deleteByContactIds(@Param("contactIds") Collection<Long> contactIds);
+
+    // Bulk updates bypass @UpdateTimestamp, so updatedAt is set explicitly
+    @Modifying
+    @Query("UPDATE Opportunity o SET o.owner = :to, o.updatedAt = :now WHERE o.owner.id = :fromId")
+    int reassignOwner(@Param("fromId") Long fromId, @Param("to") User to, @Param("now") LocalDateTime now);
+
     List<Opportunity> findTop3ByOrderByValueDesc();
     @Query("SELECT COUNT(o) FROM Opportunity o WHERE o.createdAt >= :startDate AND o.status = :status")
     long countByCreatedAtAfterAndStatus(@Param("startDate") LocalDateTime startDate, @Param("status") StatutOpportunity status);
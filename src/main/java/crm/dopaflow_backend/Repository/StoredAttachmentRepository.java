@@ -0,0 +1,36 @@
+package crm.dopaflow_backend.Repository;
+
+import crm.dopaflow_backend.Model.StoredAttachment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface StoredAttachmentRepository extends JpaRepository<StoredAttachment, String> {
+
+    // Row-locking, so concurrent references to the same content and the unreferenced sweep serialize on the row
+    @Modifying
+    @Query("UPDATE StoredAttachment a SET a.refCount = a.refCount + 1 WHERE a.sha256 = :sha256")
+    int addReference(@Param("sha256") String sha256);
+
+    // Always an INSERT (save() would merge), so a concurrent first reference fails on the key instead of being overwritten
+    @Modifying
+    @Query(value = "INSERT INTO stored_attachments (sha256, size, content_type, ref_count, created_at) " +
+            "VALUES (:sha256, :size, :contentType, 1, CURRENT_TIMESTAMP)",
+            nativeQuery = true)
+    int insertWithReference(@Param("sha256") String sha256, @Param("size") long size, @Param("contentType") String contentType);
+
+    @Modifying
+    @Query("UPDATE StoredAttachment a SET a.refCount = a.refCount - 1 WHERE a.sha256 = :sha256 AND a.refCount > 0")
+    int removeReference(@Param("sha256") String sha256);
+
+    @Query("SELECT a.sha256 FROM StoredAttachment a WHERE a.refCount = 0")
+    List<String> findUnreferenced(Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM StoredAttachment a WHERE a.sha256 = :sha256 AND a.refCount = 0")
+    int deleteIfUnreferenced(@Param("sha256") String sha256);
+}
@@ -7,16 +7,29 @@ import crm.dopaflow_backend.Model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
-public interface TaskRepository extends JpaRepository<Task, Long> {
+public interface TaskRepository extends JpaRepository<Task, Long>, JpaSpecificationExecutor<Task> {
     Page<Task> findByAssignedUser(User assignedUser, Pageable pageable);
     List<Task> findByOpportunityId(Long opportunityId);
     List<Task> findByAssignedUserId(Long userId);
+    long countByAssignedUserId(Long userId);
+
+    @Modifying
+    @Query("UPDATE Task t SET t.assignedUser = :to WHERE t.assignedUser.id = :fromId")
+    int reassignAssignedUser(@Param("fromId") Long fromId, @Param("to") User to);
+
+    @Modifying
+    @Query("UPDATE Task t SET t.opportunity = NULL WHERE t.opportunity.id IN " +
+            "(SELECT o.id FROM Opportunity o WHERE o.contact.id IN :contactIds)")
+    int unassignOpportunitiesOfContacts(@Param("contactIds") Collection<Long> contactIds);
     Page<Task> findByAssignedUserId(Long userId, Pageable pageable);
 
     Page<Task> findByTitleContainingIgnoreCase(String query, Pageable pageable);
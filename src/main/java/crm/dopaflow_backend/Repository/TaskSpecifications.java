@@ -0,0 +1,78 @@
+package crm.dopaflow_backend.Repository;
+
+import crm.dopaflow_backend.Model.Opportunity;
+import crm.dopaflow_backend.Model.Priority;
+import crm.dopaflow_backend.Model.StatutTask;
+import crm.dopaflow_backend.Model.Task;
+import jakarta.persistence.criteria.Fetch;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Same semantics as the derived-method tree in TaskService.filterTasks, as a Specification for keyset
+ * pagination: archived listings filter on a single field (priority, then opportunity, then status),
+ * active listings combine deadline range, priority, opportunity, status and assignment.
+ */
+public final class TaskSpecifications {
+
+    private TaskSpecifications() {
+    }
+
+    /**
+     * @param restrictToUserId when no assignment filter is given, limit to this user's tasks (non-admin callers), may be null
+     */
+    public static Specification<Task> fromFilter(StatutTask status, Priority priority, Long opportunityId,
+                                                 Long assignedUserId, boolean unassignedOnly, boolean archived,
+                                                 Date deadlineFrom, Date deadlineTo, Long restrictToUserId) {
+        return (root, query, cb) -> {
+            // TaskDTO reads the assignee and opportunity -> contact -> company, load them in the same select
+            if (query.getResultType() != Long.class && query.getResultType() != long.class) {
+                root.fetch("assignedUser", JoinType.LEFT);
+                Fetch<Task, Opportunity> opportunity = root.fetch("opportunity", JoinType.LEFT);
+                opportunity.fetch("contact", JoinType.LEFT).fetch("company", JoinType.LEFT);
+            }
+
+            List<Predicate> predicates = new ArrayList<>();
+            if (archived) {
+                predicates.add(cb.isTrue(root.get("archived")));
+                if (priority != null) {
+                    predicates.add(cb.equal(root.get("priority"), priority));
+                } else if (opportunityId != null) {
+                    predicates.add(cb.equal(root.get("opportunity").get("id"), opportunityId));
+                } else if (status != null) {
+                    predicates.add(cb.equal(root.get("statutTask"), status));
+                }
+                return cb.and(predicates.toArray(new Predicate[0]));
+            }
+
+            if (priority != null) {
+                predicates.add(cb.equal(root.get("priority"), priority));
+            }
+            if (opportunityId != null) {
+                predicates.add(cb.equal(root.get("opportunity").get("id"), opportunityId));
+            }
+            if (status != null) {
+                predicates.add(cb.equal(root.get("statutTask"), status));
+            }
+            if (unassignedOnly) {
+                predicates.add(cb.isNull(root.get("assignedUser")));
+            } else if (assignedUserId != null) {
+                predicates.add(cb.equal(root.get("assignedUser").get("id"), assignedUserId));
+            } else if (restrictToUserId != null) {
+                predicates.add(cb.equal(root.get("assignedUser").get("id"), restrictToUserId));
+            }
+            if (deadlineFrom != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("deadline"), deadlineFrom));
+            }
+            if (deadlineTo != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("deadline"), deadlineTo));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -2,9 +2,11 @@ package crm.dopaflow_backend.Repository;
 
 import crm.dopaflow_backend.Model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,4 +26,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByVerificationToken(String verificationToken);
     List<User> findByUsernameIn(List<String> usernames);
 
+    @Modifying
+    @Query("UPDATE User u SET u.lastLogin = :lastLogin WHERE u.id = :id")
+    int updateLastLogin(@Param("id") Long id, @Param("lastLogin") Date lastLogin);
+
 }
\ No newline at end of file
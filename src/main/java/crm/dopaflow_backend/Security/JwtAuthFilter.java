@@ -2,27 +2,35 @@ package crm.dopaflow_backend.Security;
 
 import crm.dopaflow_backend.Model.User;
 import crm.dopaflow_backend.Service.UserService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collections;
 
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final ObjectProvider<UserService> userServiceProvider;
+    private final VerifiedPrincipalCache principalCache;
+    private final TokenRevocationService revocationService;
 
-    public JwtAuthFilter(JwtUtil jwtUtil, ObjectProvider<UserService> userServiceProvider) {
+    public JwtAuthFilter(JwtUtil jwtUtil, ObjectProvider<UserService> userServiceProvider,
+                         VerifiedPrincipalCache principalCache, TokenRevocationService revocationService) {
         this.jwtUtil = jwtUtil;
         this.userServiceProvider = userServiceProvider;
+        this.principalCache = principalCache;
+        this.revocationService = revocationService;
     }
 
     @Override
@@ -48,23 +56,37 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         String token = resolveToken(request);
         if (token != null) {
             try {
-                System.out.println("Validating token: " + token.substring(0, Math.min(token.length(), 10)) + "...");
-                if (jwtUtil.validateToken(token)) {
-                    String email = jwtUtil.extractEmail(token);
-                    UserService userService = userServiceProvider.getObject();
-                    User user = userService.findByEmail(email)
-                            .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
-                    System.out.println("Authentication set for user: " + email);
+                // Fast path: token already verified and its user loaded by a previous request
+                VerifiedPrincipalCache.CachedPrincipal principal = principalCache.get(token);
+                if (principal == null) {
+                    System.out.println("Validating token: " + token.substring(0, Math.min(token.length(), 10)) + "...");
+                    Claims claims = jwtUtil.parseValidClaims(token);
+                    if (claims != null) {
+                        String email = claims.getSubject();
+                        UserService userService = userServiceProvider.getObject();
+                        User user = userService.findByEmail(email)
+                                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
+                        principal = principalCache.put(token, TokenRevocationService.tokenId(claims, token), user, claims.getExpiration());
+                    } else {
+                        System.out.println("Token validation failed for token: " + token.substring(0, Math.min(token.length(), 10)) + "...");
+                    }
+                }
+
+                // Bloom filter check, only touches the database for revoked tokens (or a rare false positive)
+                if (principal != null && revocationService.isRevoked(principal.tokenId())) {
+                    principalCache.invalidate(token);
+                    response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Token has been revoked");
+                    return;
+                }
 
-                    // Set email as principal and User as details
-                    UsernamePasswordAuthenticationToken authentication =
-                            new UsernamePasswordAuthenticationToken(email, null, user.getAuthorities());
-                    authentication.setDetails(user); // Set User object in details
+                if (principal != null) {
+                    // Set email as principal and request details as details
+                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                            principal.email(), null,
+                            Collections.singletonList(new SimpleGrantedAuthority(principal.role().name())));
                     authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request)); // Add request details
 
                     SecurityContextHolder.getContext().setAuthentication(authentication);
-                } else {
-                    System.out.println("Token validation failed for token: " + token.substring(0, Math.min(token.length(), 10)) + "...");
                 }
             } catch (Exception e) {
                 System.out.println("Token validation error: " + e.getMessage());
@@ -1,15 +1,18 @@
 package crm.dopaflow_backend.Security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.UUID;
 
 @Component
 public class JwtUtil {
@@ -20,12 +23,24 @@ public class JwtUtil {
     @Value("${jwt.expiration:86400000}") // Default to 24 hours if not specified
     private long expirationTime;
 
-    private SecretKey getSigningKey() {
+    // Key and parser are immutable and thread-safe, so they are built once instead of per request
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    void init() {
         byte[] keyBytes = secretKey.getBytes(StandardCharsets.UTF_8);
         if (keyBytes.length < 32) {
             throw new IllegalArgumentException("JWT secret key must be at least 32 bytes (256 bits) for HS256");
         }
-        return Keys.hmacShaKeyFor(keyBytes);
+        signingKey = Keys.hmacShaKeyFor(keyBytes);
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+
+    private SecretKey getSigningKey() {
+        return signingKey;
     }
 
     /**
@@ -35,6 +50,7 @@ public class JwtUtil {
      */
     public String generateToken(String email) {
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString()) // jti, lets a single token be revoked on logout
                 .setSubject(email)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expirationTime))
@@ -49,6 +65,7 @@ public class JwtUtil {
      */
     public String generateTempToken(String email) {
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(email)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + 300_000)) // 5 minutes
@@ -72,15 +89,20 @@ public class JwtUtil {
      * @return True if the token is valid, false otherwise.
      */
     public boolean validateToken(String token) {
+        return parseValidClaims(token) != null;
+    }
+
+    /**
+     * Validates a JWT token and returns its claims in a single parse.
+     * @param token The JWT token string.
+     * @return The claims if the token is valid, null otherwise.
+     */
+    public Claims parseValidClaims(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
+            return parseClaims(token);
         } catch (Exception e) {
             System.out.println("Token validation failed: " + e.getMessage());
-            return false;
+            return null;
         }
     }
 
@@ -101,11 +123,7 @@ public class JwtUtil {
      * @return The claims contained in the token.
      */
     private Claims parseClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return jwtParser.parseClaimsJws(token).getBody();
     }
 
     /**
@@ -0,0 +1,174 @@
+package crm.dopaflow_backend.Security;
+
+import crm.dopaflow_backend.Utils.LatencyHistogram;
+import crm.dopaflow_backend.Utils.TokenBucketLimiter;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs BCrypt hashing and verification on a small dedicated pool instead of Tomcat request threads,
+ * so a login burst can only ever occupy the hashing threads and never every CPU. The pool queue is
+ * bounded and full queues are rejected immediately with a TooManyRequestsException (HTTP 429).
+ * Callers are also throttled per client IP and per email with token buckets before any hashing is queued.
+ */
+@Component
+public class PasswordHashingService {
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long waitTimeoutMillis;
+    private final TokenBucketLimiter ipLimiter;
+    private final TokenBucketLimiter emailLimiter;
+
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram hashTime = new LatencyHistogram();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder throttledByIp = new LongAdder();
+    private final LongAdder throttledByEmail = new LongAdder();
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  @Value("${security.hashing.threads:0}") int threads,
+                                  @Value("${security.hashing.queue-capacity:64}") int queueCapacity,
+                                  @Value("${security.hashing.wait-timeout-ms:5000}") long waitTimeoutMillis,
+                                  @Value("${security.throttle.ip.capacity:20}") int ipCapacity,
+                                  @Value("${security.throttle.ip.refill-seconds:60}") long ipRefillSeconds,
+                                  @Value("${security.throttle.email.capacity:5}") int emailCapacity,
+                                  @Value("${security.throttle.email.refill-seconds:60}") long emailRefillSeconds) {
+        this.passwordEncoder = passwordEncoder;
+        this.waitTimeoutMillis = waitTimeoutMillis;
+        // Default to half the cores so hashing can never take the whole machine away from regular requests
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.ipLimiter = new TokenBucketLimiter(ipCapacity, ipRefillSeconds, TimeUnit.SECONDS);
+        this.emailLimiter = new TokenBucketLimiter(emailCapacity, emailRefillSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Takes one attempt from the IP and email buckets. Either key may be null.
+     * @throws TooManyRequestsException if one of the buckets is empty
+     */
+    public void checkThrottle(String ipAddress, String email) {
+        if (ipAddress != null) {
+            long wait = ipLimiter.tryAcquire(ipAddress);
+            if (wait > 0) {
+                throttledByIp.increment();
+                throw new TooManyRequestsException("Too many attempts from this address, try again later", toSeconds(wait));
+            }
+        }
+        if (email != null) {
+            long wait = emailLimiter.tryAcquire(email.trim().toLowerCase(Locale.ROOT));
+            if (wait > 0) {
+                throttledByEmail.increment();
+                throw new TooManyRequestsException("Too many attempts for this account, try again later", toSeconds(wait));
+            }
+        }
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return submit(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    public String encode(String rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    private <T> T submit(Callable<T> hashing) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                queueWait.record(startedAt - submittedAt);
+                try {
+                    return hashing.call();
+                } finally {
+                    hashTime.record(System.nanoTime() - startedAt);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new TooManyRequestsException("Server is busy, try again shortly", 1);
+        }
+        try {
+            return future.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timedOut.increment();
+            throw new TooManyRequestsException("Server is busy, try again shortly", 1);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while hashing password");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("Password hashing failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    private static long toSeconds(long nanos) {
+        return (nanos + 999_999_999L) / 1_000_000_000L;
+    }
+
+    @Scheduled(fixedDelayString = "${security.throttle.cleanup-ms:60000}")
+    public void evictIdleBuckets() {
+        ipLimiter.evictIdle();
+        emailLimiter.evictIdle();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Password hashing pool stopped");
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("poolSize", executor.getMaximumPoolSize());
+        stats.put("activeThreads", executor.getActiveCount());
+        stats.put("queueDepth", executor.getQueue().size());
+        stats.put("queueRemainingCapacity", executor.getQueue().remainingCapacity());
+        stats.put("completed", executor.getCompletedTaskCount());
+        stats.put("rejected", rejected.sum());
+        stats.put("timedOut", timedOut.sum());
+        stats.put("throttledByIp", throttledByIp.sum());
+        stats.put("throttledByEmail", throttledByEmail.sum());
+        stats.put("ipBuckets", ipLimiter.size());
+        stats.put("emailBuckets", emailLimiter.size());
+        stats.put("queueWait", queueWait.snapshot());
+        stats.put("hashTime", hashTime.snapshot());
+        return stats;
+    }
+}
@@ -16,8 +16,6 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
-import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 @EnableWebSecurity
@@ -25,15 +23,20 @@ public class SecurityConfig {
 
     private final JwtUtil jwtUtil;
     private final ObjectProvider<UserService> userServiceProvider;
+    private final VerifiedPrincipalCache principalCache;
+    private final TokenRevocationService revocationService;
 
-    public SecurityConfig(JwtUtil jwtUtil, ObjectProvider<UserService> userServiceProvider) {
+    public SecurityConfig(JwtUtil jwtUtil, ObjectProvider<UserService> userServiceProvider, VerifiedPrincipalCache principalCache,
+                          TokenRevocationService revocationService) {
         this.jwtUtil = jwtUtil;
         this.userServiceProvider = userServiceProvider;
+        this.principalCache = principalCache;
+        this.revocationService = revocationService;
     }
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
-        JwtAuthFilter jwtAuthFilter = new JwtAuthFilter(jwtUtil, userServiceProvider);
+        JwtAuthFilter jwtAuthFilter = new JwtAuthFilter(jwtUtil, userServiceProvider, principalCache, revocationService);
 
         http
                 .csrf(AbstractHttpConfigurer::disable)
@@ -89,28 +92,4 @@ public class SecurityConfig {
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
     }
-
-    @Bean
-    public WebMvcConfigurer webMvcConfigurer() {
-        return new WebMvcConfigurer() {
-            @Override
-            public void addResourceHandlers(ResourceHandlerRegistry registry) {
-                registry.addResourceHandler("/photos/**")
-                        .addResourceLocations("file:uploads/photos/")
-                        .setCachePeriod(0);
-                registry.addResourceHandler("/contact-photos/**")
-                        .addResourceLocations("file:uploads/contact-photos/")
-                        .setCachePeriod(0);
-                registry.addResourceHandler("/company-photos/**")
-                        .addResourceLocations("file:uploads/company-photos/")
-                        .setCachePeriod(0);
-                registry.addResourceHandler("/attachments/**")
-                        .addResourceLocations("file:uploads/attachments/")
-                        .setCachePeriod(0);
-                registry.addResourceHandler("/avatars/**")
-                        .addResourceLocations("file:uploads/avatars/")
-                        .setCachePeriod(0);
-            }
-        };
-    }
 }
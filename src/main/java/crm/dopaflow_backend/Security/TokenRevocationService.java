@@ -0,0 +1,171 @@
+package crm.dopaflow_backend.Security;
+
+import crm.dopaflow_backend.Model.RevokedToken;
+import crm.dopaflow_backend.Repository.RevokedTokenRepository;
+import crm.dopaflow_backend.Utils.BloomFilter;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Revoked JWTs (logout) are stored in revoked_tokens until they expire, and mirrored into an in-memory
+ * Bloom filter. JwtAuthFilter checks every request against the filter: a miss means "not revoked"
+ * without any I/O, only a hit (a revoked token or a rare false positive) is confirmed in the database.
+ * Expired rows are compacted on a schedule and the filter is rebuilt from what remains.
+ */
+@Component
+public class TokenRevocationService {
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final JwtUtil jwtUtil;
+    private final int expectedRevocations;
+    private final double falsePositiveRate;
+
+    // Revocations and rebuilds are serialized so a token revoked during a rebuild is never missing from the new filter
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile BloomFilter filter;
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder filterHits = new LongAdder();
+    private final LongAdder confirmedRevoked = new LongAdder();
+    private final LongAdder revocations = new LongAdder();
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  JwtUtil jwtUtil,
+                                  @Value("${security.revocation.expected-entries:10000}") int expectedRevocations,
+                                  @Value("${security.revocation.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.jwtUtil = jwtUtil;
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    @PostConstruct
+    void init() {
+        rebuildFilter();
+    }
+
+    /**
+     * Id used to track a token: its jti claim, or the SHA-256 of the compact token for tokens issued without one.
+     */
+    public static String tokenId(Claims claims, String token) {
+        String jti = claims.getId();
+        if (jti != null && !jti.isEmpty()) {
+            return jti;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Revokes a compact JWT until its own expiry. Invalid or already expired tokens are ignored.
+     * @return true if the token was valid and is now revoked
+     */
+    public boolean revoke(String token) {
+        Claims claims = jwtUtil.parseValidClaims(token);
+        if (claims == null) {
+            return false;
+        }
+        revoke(tokenId(claims, token), claims.getExpiration());
+        return true;
+    }
+
+    public void revoke(String tokenId, Date expiresAt) {
+        lock.lock();
+        try {
+            revokedTokenRepository.save(new RevokedToken(tokenId, expiresAt, new Date()));
+            filter.put(tokenId);
+            revocations.increment();
+            // An overfull filter loses its false positive guarantee, resize it right away
+            if (filter.insertions() > filter.expectedInsertions()) {
+                rebuildFilter();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isRevoked(String tokenId) {
+        checks.increment();
+        if (!filter.mightContain(tokenId)) {
+            return false;
+        }
+        filterHits.increment();
+        boolean revoked = revokedTokenRepository.existsByTokenIdAndExpiresAtAfter(tokenId, new Date());
+        if (revoked) {
+            confirmedRevoked.increment();
+        }
+        return revoked;
+    }
+
+    /**
+     * Deletes revocations whose token has expired anyway and rebuilds the filter from the remaining ones,
+     * which also clears the false positives left behind by the deleted entries.
+     */
+    @Scheduled(fixedDelayString = "${security.revocation.compaction-ms:3600000}")
+    @Transactional
+    public void compact() {
+        lock.lock();
+        try {
+            int deleted = revokedTokenRepository.deleteExpired(new Date());
+            rebuildFilter();
+            if (deleted > 0) {
+                logger.info("Compacted {} expired token revocations", deleted);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void rebuildFilter() {
+        lock.lock();
+        try {
+            List<String> active = revokedTokenRepository.findActiveTokenIds(new Date());
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedRevocations, active.size() * 2L), falsePositiveRate);
+            active.forEach(rebuilt::put);
+            filter = rebuilt;
+            logger.debug("Token revocation filter rebuilt with {} entries", active.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        BloomFilter current = filter;
+        long checkCount = checks.sum();
+        long hitCount = filterHits.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("filterEntries", current.insertions());
+        stats.put("filterCapacity", current.expectedInsertions());
+        stats.put("filterBits", current.bitCount());
+        stats.put("filterHashes", current.hashCount());
+        stats.put("revocations", revocations.sum());
+        stats.put("checks", checkCount);
+        stats.put("filterHits", hitCount);
+        stats.put("confirmedRevoked", confirmedRevoked.sum());
+        stats.put("falsePositives", hitCount - confirmedRevoked.sum());
+        stats.put("ioFreeRatio", checkCount == 0 ? 1.0 : (double) (checkCount - hitCount) / checkCount);
+        return stats;
+    }
+}
@@ -0,0 +1,15 @@
+package crm.dopaflow_backend.Security;
+
+// Thrown when a caller is throttled or the password hashing pool is saturated, mapped to HTTP 429
+public class TooManyRequestsException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,149 @@
+package crm.dopaflow_backend.Security;
+
+import crm.dopaflow_backend.Model.Role;
+import crm.dopaflow_backend.Model.StatutUser;
+import crm.dopaflow_backend.Model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded cache of already verified JWTs and the principal they resolve to, so that
+ * JwtAuthFilter does not have to re-parse the token and reload the user on every request.
+ * Entries expire at the earlier of the token expiry and the configured TTL, and are
+ * invalidated whenever the underlying user is changed or deleted.
+ */
+@Component
+public class VerifiedPrincipalCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(VerifiedPrincipalCache.class);
+
+    public record CachedPrincipal(String tokenId, String email, Long userId, Role role, StatutUser status, long expiresAtMillis) {
+        boolean isExpired(long now) {
+            return now >= expiresAtMillis;
+        }
+    }
+
+    private final Map<String, CachedPrincipal> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public VerifiedPrincipalCache(@Value("${security.principal-cache.max-entries:10000}") int maxEntries,
+                                  @Value("${security.principal-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    public CachedPrincipal get(String token) {
+        CachedPrincipal principal = entries.get(token);
+        if (principal == null) {
+            misses.increment();
+            return null;
+        }
+        if (principal.isExpired(System.currentTimeMillis())) {
+            entries.remove(token, principal);
+            evictions.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return principal;
+    }
+
+    public CachedPrincipal put(String token, String tokenId, User user, Date tokenExpiration) {
+        long now = System.currentTimeMillis();
+        long expiresAt = now + ttlMillis;
+        if (tokenExpiration != null) {
+            expiresAt = Math.min(expiresAt, tokenExpiration.getTime());
+        }
+        CachedPrincipal principal = new CachedPrincipal(tokenId, user.getEmail(), user.getId(), user.getRole(), user.getStatus(), expiresAt);
+        entries.put(token, principal);
+        if (entries.size() > maxEntries) {
+            evict(now);
+        }
+        return principal;
+    }
+
+    public void invalidate(String token) {
+        if (token != null && entries.remove(token) != null) {
+            invalidations.increment();
+        }
+    }
+
+    public void invalidateUser(Long userId) {
+        if (userId == null) return;
+        entries.entrySet().removeIf(entry -> {
+            boolean match = userId.equals(entry.getValue().userId());
+            if (match) invalidations.increment();
+            return match;
+        });
+    }
+
+    public void invalidateEmail(String email) {
+        if (email == null) return;
+        entries.entrySet().removeIf(entry -> {
+            boolean match = email.equals(entry.getValue().email());
+            if (match) invalidations.increment();
+            return match;
+        });
+    }
+
+    // Drops expired entries first, then the ones closest to expiry until we are back under 90% of capacity
+    private void evict(long now) {
+        if (!evictionLock.tryLock()) {
+            return; // another thread is already evicting
+        }
+        try {
+            entries.entrySet().removeIf(entry -> {
+                boolean expired = entry.getValue().isExpired(now);
+                if (expired) evictions.increment();
+                return expired;
+            });
+            int target = (int) (maxEntries * 0.9);
+            int excess = entries.size() - target;
+            if (excess > 0) {
+                entries.entrySet().stream()
+                        .sorted(Comparator.comparingLong(entry -> entry.getValue().expiresAtMillis()))
+                        .limit(excess)
+                        .map(Map.Entry::getKey)
+                        .toList()
+                        .forEach(key -> {
+                            if (entries.remove(key) != null) evictions.increment();
+                        });
+                logger.debug("Principal cache over capacity, evicted {} entries", excess);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", total == 0 ? 0.0 : (double) hitCount / total);
+        stats.put("evictions", evictions.sum());
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+}
@@ -1,41 +1,245 @@
 package crm.dopaflow_backend.Service;
 
+import crm.dopaflow_backend.Model.StoredAttachment;
+import crm.dopaflow_backend.Repository.StoredAttachmentRepository;
+import crm.dopaflow_backend.Utils.StreamingUpload;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+/**
+ * Content-addressed attachment store: each distinct content is stored once, under its SHA-256 in a two-level
+ * sharded layout (uploads/attachments/ab/cd/abcd...), and served as /attachments/{sha256}/{file name}.
+ * StoredAttachment.refCount counts the TicketMessage.attachments entries pointing at it, so uploading a file
+ * that is already stored only adds a reference. Uploads are staged and only referenced once the message is
+ * committed, deleted messages release their references after commit (TicketMessageAttachmentListener), and
+ * files left without references are removed by a periodic sweep.
+ *
+ * Attachments uploaded before the store (flat /attachments/UUID_name files) keep being served as they are.
+ */
 @Service
 public class AttachmentUploadService {
+    private static final Logger logger = LoggerFactory.getLogger(AttachmentUploadService.class);
     private static final String UPLOAD_DIR = "uploads/attachments/";
+    private static final String STAGING_DIR = UPLOAD_DIR + ".staging/";
+    private static final Pattern STORED_URL = Pattern.compile("^/attachments/([0-9a-f]{64})/[^/]+$");
+    private static final long STALE_STAGING_MILLIS = 60 * 60 * 1000;
 
-    public AttachmentUploadService() {
+    private final StoredAttachmentRepository storedAttachmentRepository;
+    private final TransactionTemplate newTransaction;
+    private final int sweepBatchSize;
+
+    public AttachmentUploadService(StoredAttachmentRepository storedAttachmentRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${attachments.sweep-batch-size:500}") int sweepBatchSize) {
+        this.storedAttachmentRepository = storedAttachmentRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.sweepBatchSize = sweepBatchSize;
         try {
             Files.createDirectories(Paths.get(UPLOAD_DIR));
+            Files.createDirectories(Paths.get(STAGING_DIR));
         } catch (IOException e) {
             throw new RuntimeException("Could not initialize attachment upload directory", e);
         }
     }
+
+    private record StagedAttachment(Path path, String sha256, long size, String contentType) {
+    }
+
+    /**
+     * Returns the URLs right away but only stores the files when the caller's transaction commits (right away
+     * without one): a rolled back message leaves neither a reference nor a file behind.
+     */
     public List<String> uploadAttachments(List<MultipartFile> files) throws IOException {
         if (files == null || files.isEmpty()) return new ArrayList<>();
         List<String> filePaths = new ArrayList<>();
-        for (MultipartFile file : files) {
-            if (!file.isEmpty() && isValidFileType(file)) {
-                String filename = UUID.randomUUID() + "_" + file.getOriginalFilename();
-                Path filePath = Paths.get(UPLOAD_DIR, filename);
-                Files.write(filePath, file.getBytes());
-                filePaths.add("/attachments/" + filename);
+        List<StagedAttachment> staged = new ArrayList<>();
+        try {
+            for (MultipartFile file : files) {
+                if (!file.isEmpty() && isValidFileType(file)) {
+                    StreamingUpload.StoredFile stored = StreamingUpload.store(file, Paths.get(STAGING_DIR, UUID.randomUUID().toString()));
+                    staged.add(new StagedAttachment(stored.path(), stored.sha256(), stored.size(), file.getContentType()));
+                    filePaths.add("/attachments/" + stored.sha256() + "/" + StreamingUpload.safeFileName(file.getOriginalFilename()));
+                }
             }
+        } catch (IOException | RuntimeException e) {
+            discard(staged);
+            throw e;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        staged.forEach(AttachmentUploadService.this::store);
+                    } else {
+                        discard(staged);
+                    }
+                }
+            });
+        } else {
+            staged.forEach(this::store);
         }
         return filePaths;
     }
 
+    private void store(StagedAttachment attachment) {
+        try {
+            try {
+                newTransaction.executeWithoutResult(status -> addReference(attachment));
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent first upload of the same content inserted the row first: this one is a reference
+                newTransaction.executeWithoutResult(status -> addReference(attachment));
+            }
+        } catch (Exception e) {
+            logger.error("Failed to store attachment {}: {}", attachment.sha256(), e.getMessage());
+        } finally {
+            discard(List.of(attachment));
+        }
+    }
+
+    // Reference first: once it is counted (and while its row is locked) the sweep leaves the file alone,
+    // so only its presence is left to check
+    private void addReference(StagedAttachment attachment) {
+        if (storedAttachmentRepository.addReference(attachment.sha256()) == 0) {
+            storedAttachmentRepository.insertWithReference(attachment.sha256(), attachment.size(), attachment.contentType());
+        }
+        Path target = pathOf(attachment.sha256());
+        if (Files.exists(target)) {
+            logger.debug("Attachment {} already stored", attachment.sha256());
+            return;
+        }
+        try {
+            Files.createDirectories(target.getParent());
+            Files.move(attachment.path(), target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void discard(List<StagedAttachment> staged) {
+        for (StagedAttachment attachment : staged) {
+            try {
+                Files.deleteIfExists(attachment.path());
+            } catch (IOException e) {
+                logger.warn("Failed to delete staged attachment {}: {}", attachment.path(), e.getMessage());
+            }
+        }
+    }
+
+    public Optional<StoredAttachment> findStored(String sha256) {
+        return storedAttachmentRepository.findById(sha256);
+    }
+
+    public Path pathOf(String sha256) {
+        return Paths.get(UPLOAD_DIR, sha256.substring(0, 2), sha256.substring(2, 4), sha256);
+    }
+
+    /**
+     * Releases one reference per URL once the current transaction commits (right away without one), so a rolled
+     * back deletion keeps its references. Flat pre-store URLs are ignored.
+     */
+    public void releaseAfterCommit(List<String> attachmentUrls) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    release(attachmentUrls);
+                }
+            });
+        } else {
+            release(attachmentUrls);
+        }
+    }
+
+    private void release(List<String> attachmentUrls) {
+        try {
+            newTransaction.executeWithoutResult(status -> attachmentUrls.stream()
+                    .map(AttachmentUploadService::hashOf)
+                    .filter(hash -> hash != null)
+                    .forEach(storedAttachmentRepository::removeReference));
+        } catch (Exception e) {
+            // Counts stay too high: the files are kept, never lost
+            logger.error("Failed to release attachment references {}: {}", attachmentUrls, e.getMessage());
+        }
+    }
+
+    private static String hashOf(String attachmentUrl) {
+        if (attachmentUrl == null) return null;
+        Matcher matcher = STORED_URL.matcher(attachmentUrl);
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+
+    // Removes unreferenced files; the row delete and file delete share a transaction so a concurrent upload of
+    // the same content waits on the row and then finds the file missing and stores it again
+    @Scheduled(fixedDelayString = "${attachments.sweep-interval-ms:3600000}", initialDelayString = "${attachments.sweep-initial-delay-ms:60000}")
+    public void sweepUnreferenced() {
+        int removed = 0;
+        for (String sha256 : storedAttachmentRepository.findUnreferenced(PageRequest.of(0, sweepBatchSize))) {
+            try {
+                Boolean deleted = newTransaction.execute(status -> {
+                    if (storedAttachmentRepository.deleteIfUnreferenced(sha256) == 0) {
+                        return false;
+                    }
+                    try {
+                        Files.deleteIfExists(pathOf(sha256));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return true;
+                });
+                if (Boolean.TRUE.equals(deleted)) removed++;
+            } catch (Exception e) {
+                logger.warn("Failed to remove unreferenced attachment {}: {}", sha256, e.getMessage());
+            }
+        }
+        removed += sweepStaleStaging();
+        if (removed > 0) {
+            logger.info("Attachment sweep removed {} files", removed);
+        }
+    }
+
+    // Staging files left behind by a crash during an upload
+    private int sweepStaleStaging() {
+        int removed = 0;
+        long cutoff = System.currentTimeMillis() - STALE_STAGING_MILLIS;
+        try (DirectoryStream<Path> staging = Files.newDirectoryStream(Paths.get(STAGING_DIR))) {
+            for (Path file : staging) {
+                if (Files.getLastModifiedTime(file).toMillis() < cutoff && Files.deleteIfExists(file)) {
+                    removed++;
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to clean attachment staging directory: {}", e.getMessage());
+        }
+        return removed;
+    }
+
     private boolean isValidFileType(MultipartFile file) {
         String contentType = file.getContentType();
         return contentType != null && (
@@ -49,12 +253,7 @@ public class AttachmentUploadService {
     }
     public void deleteAttachment(String attachmentUrl) {
         if (attachmentUrl != null) {
-            try {
-                Path filePath = Paths.get(UPLOAD_DIR + attachmentUrl.replace("/attachments/", ""));
-                Files.deleteIfExists(filePath);
-            } catch (IOException e) {
-                System.err.println("Failed to delete attachment: " + e.getMessage());
-            }
+            releaseAfterCommit(List.of(attachmentUrl));
         }
     }
-}
\ No newline at end of file
+}
@@ -2,10 +2,12 @@
 package crm.dopaflow_backend.Service;
 
 import crm.dopaflow_backend.DTO.AuthDTO;
-import crm.dopaflow_backend.Model.LoginHistory;
 import crm.dopaflow_backend.Model.StatutUser;
 import crm.dopaflow_backend.Model.User;
 import crm.dopaflow_backend.Security.JwtUtil;
+import crm.dopaflow_backend.Security.PasswordHashingService;
+import crm.dopaflow_backend.Security.TokenRevocationService;
+import crm.dopaflow_backend.Security.VerifiedPrincipalCache;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import jakarta.servlet.http.HttpServletRequest;
@@ -14,12 +16,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -30,16 +27,21 @@ public class AuthService {
     private final UserService userService;
     private final JwtUtil jwtUtil;
     private final TwoFactorAuthService twoFactorService;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final LoginHistoryWriter loginHistoryWriter;
+    private final TokenRevocationService tokenRevocationService;
+    private final VerifiedPrincipalCache principalCache;
     @Autowired
     private JavaMailSender mailSender;
     @Value("${frontend.url}")
     private String frontendUrl;
     public Map<String, Object> authenticateUser(AuthDTO.LoginRequest request, HttpServletRequest httpRequest) {
+        String ipAddress = httpRequest.getRemoteAddr();
+        passwordHashingService.checkThrottle(ipAddress, request.getEmail());
         User user = userService.findByEmail(request.getEmail())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (!passwordHashingService.matches(request.getPassword(), user.getPassword())) {
             throw new RuntimeException("Invalid password");
         }
 
@@ -52,21 +54,11 @@ public class AuthService {
         if (user.getStatus().equals(StatutUser.Inactive)) {
             throw new RuntimeException("Your account cannot be accessed ! Unauthorized Access. Please contact your administration to request approval.");
         }
-        // Record login details
-        String ipAddress = httpRequest.getRemoteAddr();
+        // Record login details: the history row is written in the background, lastLogin is a single UPDATE
         String userAgent = httpRequest.getHeader("User-Agent");
-        String location = getLocationFromIp(ipAddress);
-
-        LoginHistory loginHistory = LoginHistory.builder()
-                .ipAddress(ipAddress)
-                .location(location)
-                .deviceInfo(userAgent)
-                .loginTime(new Date())
-                .build();
-
-        user.addLoginHistory(loginHistory);
-        user.setLastLogin(new Date());
-        userService.saveUser(user);
+        Date loginTime = new Date();
+        loginHistoryWriter.record(user.getId(), ipAddress, userAgent, loginTime);
+        userService.updateLastLogin(user.getId(), loginTime);
 
         Map<String, Object> response = new HashMap<>();
         if (user.isTwoFactorEnabled()) {
@@ -101,26 +93,6 @@ public class AuthService {
         return jwtUtil.generateToken(user.getEmail());
     }
 
-    private String getLocationFromIp(String ipAddress) {
-        try {
-            URL url = new URL("http://ip-api.com/json/" + ipAddress);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
-            BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-            String response = in.readLine();
-            in.close();
-            // Simple parsing - in production, use a JSON parser
-            if (response.contains("city")) {
-                return response.substring(response.indexOf("\"city\":\"") + 8,
-                        response.indexOf("\"", response.indexOf("\"city\":\"") + 8));
-            }
-            return "Unknown";
-        } catch (Exception e) {
-            return "Unknown";
-        }
-    }
-
-
     public void sendPasswordResetEmail(String toEmail, String resetToken) {
         try {
             // Create a MIME message
@@ -163,7 +135,16 @@ public class AuthService {
             throw new RuntimeException("Error sending password reset email: " + e.getMessage());
         }
     }
+    public void logout(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return;
+        }
+        String token = authHeader.substring(7);
+        tokenRevocationService.revoke(token);
+        principalCache.invalidate(token);
+    }
+
     public String encodePassword(String password) {
-        return passwordEncoder.encode(password);
+        return passwordHashingService.encode(password);
     }
 }
\ No newline at end of file
@@ -1,15 +1,18 @@
 package crm.dopaflow_backend.Service;
 
+import crm.dopaflow_backend.Config.TrigramSearchInitializer;
+import crm.dopaflow_backend.DTO.CursorPage;
 import crm.dopaflow_backend.Model.Company;
 import crm.dopaflow_backend.Model.User;
 import crm.dopaflow_backend.Model.Contact; // Add Contact model
 import crm.dopaflow_backend.Repository.CompanyRepository;
+import crm.dopaflow_backend.Repository.CompanySpecifications;
+import crm.dopaflow_backend.Repository.ContactSpecifications;
 import crm.dopaflow_backend.Repository.UserRepository;
 import crm.dopaflow_backend.Repository.ContactRepository; // Add ContactRepository
+import crm.dopaflow_backend.Utils.KeysetPaging;
 import crm.dopaflow_backend.Utils.ProgressTracker;
 import lombok.RequiredArgsConstructor;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -17,8 +20,6 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional; // For transaction management
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -28,6 +29,11 @@ public class CompanyService {
     private final CompanyRepository companyRepository;
     private final UserRepository userRepository;
     private final ContactRepository contactRepository;
+    private final TrigramSearchInitializer trigramSearch;
+    private final FacetService facetService;
+    // Non-nullable columns that can drive cursor pagination, each backed by a (column, id) index
+    private static final Set<String> KEYSET_SORT_KEYS = Set.of("id", "createdAt", "name");
+
     private Sort parseSort(String sort) {
         String[] parts = sort.split(",");
         return Sort.by(Sort.Direction.fromString(parts[1]), parts[0]);
@@ -38,9 +44,25 @@ public class CompanyService {
         return companyRepository.findAll(pageable);
     }
 
-    public Page<Company> searchCompanies(String query, int page, int size, String sort) {
-        Pageable pageable = PageRequest.of(page, size, parseSort(sort));
-        return companyRepository.findByNameContainingIgnoreCase(query, pageable);
+    public CursorPage<Company> getCompaniesAfter(String cursor, int size, String sort) {
+        return KeysetPaging.fetchPage(companyRepository, CompanySpecifications.fromFilter(null, null, false),
+                sort, cursor, size, KEYSET_SORT_KEYS);
+    }
+
+    // Same modes as ContactService.searchContacts: "fuzzy" (trigram, ranked by similarity) or "contains"
+    public Page<Company> searchCompanies(String query, String mode, int page, int size, String sort) {
+        String trimmed = query != null ? query.trim() : "";
+        if ("contains".equalsIgnoreCase(mode) || !trigramSearch.isTrigramAvailable()) {
+            return companyRepository.findByNameContainingIgnoreCase(trimmed, PageRequest.of(page, size, parseSort(sort)));
+        }
+        if (trimmed.isEmpty()) {
+            return getAllCompanies(page, size, sort);
+        }
+        String escaped = ContactSpecifications.escapeLike(trimmed);
+        if (trimmed.length() < 3) {
+            return companyRepository.searchByNamePrefix(escaped.toLowerCase(Locale.ROOT) + "%", PageRequest.of(page, size));
+        }
+        return companyRepository.searchByTrigram(trimmed, "%" + escaped + "%", PageRequest.of(page, size));
     }
 
     public Page<Company> filterCompanies(String status, Long ownerId, boolean unassignedOnly,
@@ -67,6 +89,17 @@ public class CompanyService {
         }
     }
 
+    // Filter panel counts for the same criteria as filterCompanies
+    public Map<String, Object> getFacets(String status, Long ownerId, boolean unassignedOnly) {
+        return facetService.companyFacets(status, ownerId, unassignedOnly);
+    }
+
+    public CursorPage<Company> filterCompaniesAfter(String status, Long ownerId, boolean unassignedOnly,
+                                                    String cursor, int size, String sort) {
+        return KeysetPaging.fetchPage(companyRepository, CompanySpecifications.fromFilter(status, ownerId, unassignedOnly),
+                sort, cursor, size, KEYSET_SORT_KEYS);
+    }
+
     public Company getCompany(Long id) {
         return companyRepository.findById(id).orElse(null);
     }
@@ -148,10 +181,8 @@ public class CompanyService {
             List<Company> companiesToDelete = companyRepository.findAllById(companyIds);
             if (companiesToDelete.isEmpty()) return false;
 
-            // Unassign each company from related contacts
-            for (Company company : companiesToDelete) {
-                unassignCompanyFromContacts(company.getId());
-            }
+            // Unassign the companies from related contacts in one statement
+            contactRepository.unassignCompanies(companiesToDelete.stream().map(Company::getId).toList());
 
             // Delete all companies
             companyRepository.deleteAll(companiesToDelete);
@@ -279,91 +310,10 @@ public class CompanyService {
         }
     }
 
-    public byte[] exportCompaniesToCsv(List<String> selectedColumns) {
-        List<Company> companies = companyRepository.findAll();
-        StringBuilder csv = new StringBuilder();
-
-        String header = selectedColumns.stream()
-                .map(col -> switch (col.toLowerCase()) {
-                    case "name" -> "Name";
-                    case "email" -> "Email";
-                    case "phone" -> "Phone Number";
-                    case "status" -> "Status";
-                    case "address" -> "Address";
-                    case "website" -> "Website";
-                    case "industry" -> "Industry";
-                    case "notes" -> "Notes";
-                    case "owner" -> "Company Owner";
-                    case "photourl" -> "Photo URL";
-                    default -> col;
-                })
-                .collect(Collectors.joining(","));
-        csv.append(header).append("\n");
-
-        for (Company company : companies) {
-            String row = selectedColumns.stream()
-                    .map(col -> switch (col.toLowerCase()) {
-                        case "name" -> escapeCsv(company.getName());
-                        case "email" -> escapeCsv(company.getEmail());
-                        case "phone" -> escapeCsv(company.getPhone());
-                        case "status" -> escapeCsv(company.getStatus());
-                        case "address" -> escapeCsv(company.getAddress());
-                        case "website" -> escapeCsv(company.getWebsite());
-                        case "industry" -> escapeCsv(company.getIndustry());
-                        case "notes" -> escapeCsv(company.getNotes());
-                        case "owner" -> company.getOwner() != null ? escapeCsv(company.getOwner().getUsername()) : "";
-                        case "photourl" -> escapeCsv(company.getPhotoUrl());
-                        default -> "";
-                    })
-                    .collect(Collectors.joining(","));
-            csv.append(row).append("\n");
-        }
-        return csv.toString().getBytes();
-    }
-
-    public byte[] exportCompaniesToExcel(List<String> columns) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet("Companies");
-            List<Company> companies = companyRepository.findAll();
-
-            Row headerRow = sheet.createRow(0);
-            for (int i = 0; i < columns.size(); i++) {
-                headerRow.createCell(i).setCellValue(columns.get(i));
-            }
-
-            int rowNum = 1;
-            for (Company company : companies) {
-                Row row = sheet.createRow(rowNum++);
-                for (int i = 0; i < columns.size(); i++) {
-                    String col = columns.get(i).toLowerCase();
-                    Cell cell = row.createCell(i);
-                    switch (col) {
-                        case "name": cell.setCellValue(company.getName()); break;
-                        case "email": cell.setCellValue(company.getEmail()); break;
-                        case "phone": cell.setCellValue(company.getPhone()); break;
-                        case "status": cell.setCellValue(company.getStatus()); break;
-                        case "address": cell.setCellValue(company.getAddress()); break;
-                        case "website": cell.setCellValue(company.getWebsite()); break;
-                        case "industry": cell.setCellValue(company.getIndustry()); break;
-                        case "notes": cell.setCellValue(company.getNotes()); break;
-                        case "owner": cell.setCellValue(company.getOwner() != null ? company.getOwner().getUsername() : ""); break;
-                        case "photourl": cell.setCellValue(company.getPhotoUrl()); break;
-                    }
-                }
-            }
-
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            workbook.write(baos);
-            return baos.toByteArray();
-        }
-    }
     // In CompanyService.java
     public List<Company> getTop50Companies() {
         return companyRepository.findTop50ByOrderByNameAsc();
     }
-    private String escapeCsv(String value) {
-        return value == null ? "" : "\"" + value.replace("\"", "\"\"") + "\"";
-    }
 
     public List<Company> getAllCompaniesNoPagination() {
         return companyRepository.findAll();
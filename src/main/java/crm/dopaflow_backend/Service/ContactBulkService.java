@@ -0,0 +1,183 @@
+package crm.dopaflow_backend.Service;
+
+import crm.dopaflow_backend.DTO.ContactBulkRequest;
+import crm.dopaflow_backend.DTO.ContactFilter;
+import crm.dopaflow_backend.Model.Company;
+import crm.dopaflow_backend.Model.Contact;
+import crm.dopaflow_backend.Model.User;
+import crm.dopaflow_backend.Repository.CompanyRepository;
+import crm.dopaflow_backend.Repository.ContactRepository;
+import crm.dopaflow_backend.Repository.ContactSpecifications;
+import crm.dopaflow_backend.Repository.OpportunityRepository;
+import crm.dopaflow_backend.Repository.TaskRepository;
+import crm.dopaflow_backend.Repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Status / owner / company changes and deletes on many contacts at once. The contacts are resolved to ids
+ * (one id-only query for a filter), then the changes are one UPDATE (or DELETE) per chunk of ids instead of
+ * a load and save per contact. Owner and company are looked up once.
+ */
+@Service
+public class ContactBulkService {
+
+    private final ContactRepository contactRepository;
+    private final UserRepository userRepository;
+    private final CompanyRepository companyRepository;
+    private final OpportunityRepository opportunityRepository;
+    private final TaskRepository taskRepository;
+    private final ContactService contactService;
+    private final SuggestionIndexService suggestionIndex;
+    private final int chunkSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ContactBulkService(ContactRepository contactRepository,
+                              UserRepository userRepository,
+                              CompanyRepository companyRepository,
+                              OpportunityRepository opportunityRepository,
+                              TaskRepository taskRepository,
+                              ContactService contactService,
+                              SuggestionIndexService suggestionIndex,
+                              @Value("${contacts.bulk.chunk-size:1000}") int chunkSize) {
+        this.contactRepository = contactRepository;
+        this.userRepository = userRepository;
+        this.companyRepository = companyRepository;
+        this.opportunityRepository = opportunityRepository;
+        this.taskRepository = taskRepository;
+        this.contactService = contactService;
+        this.suggestionIndex = suggestionIndex;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return matched (contacts selected) and updated (contacts changed, 0 when no change was requested)
+     */
+    @Transactional
+    public Map<String, Object> update(ContactBulkRequest request) {
+        if (request.getStatus() == null && request.getOwnerId() == null && !request.isClearOwner()
+                && request.getCompanyId() == null && !request.isClearCompany()) {
+            throw new IllegalArgumentException("No change requested (status, ownerId, clearOwner, companyId or clearCompany)");
+        }
+        if (request.getOwnerId() != null && request.isClearOwner()) {
+            throw new IllegalArgumentException("ownerId and clearOwner are mutually exclusive");
+        }
+        if (request.getCompanyId() != null && request.isClearCompany()) {
+            throw new IllegalArgumentException("companyId and clearCompany are mutually exclusive");
+        }
+        User owner = request.getOwnerId() != null
+                ? userRepository.findById(request.getOwnerId()).orElseThrow(() -> new IllegalArgumentException("Owner not found"))
+                : null;
+        Company company = request.getCompanyId() != null
+                ? companyRepository.findById(request.getCompanyId()).orElseThrow(() -> new IllegalArgumentException("Company not found"))
+                : null;
+
+        List<Long> ids = resolveIds(request);
+        LocalDateTime now = LocalDateTime.now();
+        int updated = 0;
+        for (List<Long> chunk : chunks(ids)) {
+            updated += updateChunk(chunk, request, owner, company, now);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("matched", ids.size());
+        result.put("updated", updated);
+        return result;
+    }
+
+    // Every requested change in one UPDATE, so each contact of the chunk is counted once
+    private int updateChunk(List<Long> chunk, ContactBulkRequest request, User owner, Company company, LocalDateTime now) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Contact> update = cb.createCriteriaUpdate(Contact.class);
+        Root<Contact> contact = update.from(Contact.class);
+        if (request.getStatus() != null) {
+            update.set(contact.<String>get("status"), request.getStatus());
+        }
+        if (owner != null || request.isClearOwner()) {
+            update.set(contact.<User>get("owner"), owner != null ? cb.literal(owner) : cb.nullLiteral(User.class));
+        }
+        if (company != null || request.isClearCompany()) {
+            update.set(contact.<Company>get("company"), company != null ? cb.literal(company) : cb.nullLiteral(Company.class));
+        }
+        update.set(contact.<LocalDateTime>get("lastActivity"), now);
+        update.where(contact.get("id").in(chunk));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    /**
+     * Deletes the contacts with their opportunities (tasks of those opportunities are kept, unlinked).
+     */
+    @Transactional
+    public Map<String, Object> delete(ContactBulkRequest request) {
+        List<Long> ids = resolveIds(request);
+        int deleted = 0;
+        int opportunitiesDeleted = 0;
+        for (List<Long> chunk : chunks(ids)) {
+            taskRepository.unassignOpportunitiesOfContacts(chunk);
+            opportunitiesDeleted += opportunityRepository.deleteByContactIds(chunk);
+            deleted += contactRepository.deleteByIds(chunk);
+        }
+        // Bulk deletes bypass the entity listener
+        ids.forEach(suggestionIndex::contactDeleted);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("matched", ids.size());
+        result.put("deleted", deleted);
+        result.put("opportunitiesDeleted", opportunitiesDeleted);
+        return result;
+    }
+
+    // Ids of the existing contacts selected by the request, ids taking precedence over the filter
+    private List<Long> resolveIds(ContactBulkRequest request) {
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            List<Long> existing = new ArrayList<>();
+            for (List<Long> chunk : chunks(new ArrayList<>(new LinkedHashSet<>(request.getIds())))) {
+                existing.addAll(contactRepository.findExistingIds(chunk));
+            }
+            return existing;
+        }
+        if (request.getFilter() == null) {
+            throw new IllegalArgumentException("Either ids or filter is required");
+        }
+        ContactBulkRequest.Filter filter = request.getFilter();
+        ContactFilter contactFilter = contactService.buildFilter(filter.getStatus(), filter.getStartDate(), filter.getEndDate(),
+                filter.getOwnerId(), filter.isUnassignedOnly(), filter.getCompanyId(), filter.getLastActivityStart(),
+                filter.getLastActivityEnd(), filter.getEmailDomain(), filter.getHasOpportunities());
+        // An empty filter would select every contact, which is never what a bulk action on a filtered list means
+        if (contactFilter.equals(ContactFilter.builder().build())) {
+            throw new IllegalArgumentException("The filter must set at least one criterion");
+        }
+
+        // Id-only select; the Long result type also keeps ContactSpecifications from fetching owner/company
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Contact> root = query.from(Contact.class);
+        query.select(root.get("id"))
+                .where(ContactSpecifications.fromFilter(contactFilter).toPredicate(root, query, cb));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    private List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            chunks.add(ids.subList(from, Math.min(from + chunkSize, ids.size())));
+        }
+        return chunks;
+    }
+}
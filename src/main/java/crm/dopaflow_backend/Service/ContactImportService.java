@@ -0,0 +1,255 @@
+package crm.dopaflow_backend.Service;
+
+import crm.dopaflow_backend.Model.Company;
+import crm.dopaflow_backend.Model.Contact;
+import crm.dopaflow_backend.Model.User;
+import crm.dopaflow_backend.Repository.CompanyRepository;
+import crm.dopaflow_backend.Repository.ContactRepository;
+import crm.dopaflow_backend.Repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Streaming contact import: parsed rows are pushed one at a time into a ChunkedImport, which works on
+ * fixed-size chunks. Each chunk resolves its companies, owners and existing emails with one bounded IN
+ * query each (far below PostgreSQL's 32767 bind parameter limit), is written with JDBC batch inserts
+ * (Contact ids come from the pooled contacts_seq sequence, IDENTITY ids would force one insert per row)
+ * and is committed on its own. Memory is bounded by the chunk size, not by the file size.
+ */
+@Service
+public class ContactImportService {
+    private static final Logger logger = LoggerFactory.getLogger(ContactImportService.class);
+
+    private final ContactRepository contactRepository;
+    private final CompanyRepository companyRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ContactImportService(ContactRepository contactRepository,
+                                CompanyRepository companyRepository,
+                                UserRepository userRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${import.chunk-size:1000}") int chunkSize) {
+        this.contactRepository = contactRepository;
+        this.companyRepository = companyRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    public ChunkedImport start(boolean updateExisting) {
+        return new ChunkedImport(updateExisting);
+    }
+
+    public ImportResult<Contact> importContacts(Iterable<Contact> contacts, boolean updateExisting) {
+        ChunkedImport chunkedImport = start(updateExisting);
+        contacts.forEach(chunkedImport::add);
+        return chunkedImport.finish();
+    }
+
+    /**
+     * One import run. Not thread-safe: rows are expected from a single reader. Chunks already committed
+     * stay imported if a later chunk fails; getResult() then tells how far the import went.
+     */
+    public class ChunkedImport {
+        private final boolean updateExisting;
+        private final List<Contact> chunk = new ArrayList<>(chunkSize);
+        private final ImportResult<Contact> result = new ImportResult<>();
+        private int rowCount;
+        private int chunkCount;
+
+        private ChunkedImport(boolean updateExisting) {
+            this.updateExisting = updateExisting;
+        }
+
+        public void add(Contact contact) {
+            rowCount++;
+            chunk.add(contact);
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        public ImportResult<Contact> finish() {
+            flush();
+            logger.info("Contact import finished: {} rows in {} chunks, {} created, {} updated, {} skipped",
+                    rowCount, chunkCount, result.getCreated(), result.getUpdated(), result.getSkipped());
+            return result;
+        }
+
+        public ImportResult<Contact> getResult() {
+            return result;
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> importChunk(chunk, updateExisting, result));
+            // With open-in-view the persistence context outlives the chunk transaction, drop the chunk's entities
+            entityManager.clear();
+            chunk.clear();
+            chunkCount++;
+        }
+    }
+
+    private void importChunk(List<Contact> importedContacts, boolean updateExisting, ImportResult<Contact> result) {
+        Map<String, User> userMap = findUsers(Stream.concat(
+                importedContacts.stream().map(Contact::getOwnerUsername),
+                importedContacts.stream().map(Contact::getCompany).filter(Objects::nonNull).map(Company::getOwnerUsername)));
+        Map<String, Company> companyMap = resolveCompanies(importedContacts, userMap);
+
+        List<String> emails = importedContacts.stream()
+                .map(Contact::getEmail)
+                .filter(email -> email != null && !email.trim().isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+        Map<String, Contact> existingContactMap = emails.isEmpty() ? new HashMap<>() : contactRepository.findByEmailIn(emails).stream()
+                .collect(Collectors.toMap(Contact::getEmail, c -> c, (c1, c2) -> c1));
+
+        List<Contact> contactsToInsert = new ArrayList<>();
+        int created = 0;
+        int updated = 0;
+        int skipped = 0;
+        LocalDateTime now = LocalDateTime.now();
+
+        for (Contact imported : importedContacts) {
+            String email = imported.getEmail();
+            if (email == null || email.trim().isEmpty()) {
+                skipped++; // Skip contacts without email
+                continue;
+            }
+
+            // Also holds the contacts created earlier in this chunk, so a repeated email updates or skips instead of
+            // failing the chunk on the unique constraint
+            Contact contact = existingContactMap.get(email);
+            if (contact != null) {
+                if (!updateExisting) {
+                    skipped++;
+                    continue;
+                }
+                // Update non-null fields only, managed entities are flushed as batched updates
+                if (imported.getName() != null) contact.setName(imported.getName());
+                if (imported.getPhone() != null) contact.setPhone(imported.getPhone());
+                if (imported.getStatus() != null) contact.setStatus(imported.getStatus());
+                if (imported.getNotes() != null) contact.setNotes(imported.getNotes());
+                if (imported.getPhotoUrl() != null) contact.setPhotoUrl(imported.getPhotoUrl());
+                if (hasText(imported.getCompany() != null ? imported.getCompany().getName() : null)) {
+                    contact.setCompany(companyMap.get(imported.getCompany().getName()));
+                }
+                if (hasText(imported.getOwnerUsername())) {
+                    contact.setOwner(userMap.get(imported.getOwnerUsername()));
+                }
+                contact.setLastActivity(now);
+                updated++;
+            } else {
+                contact = new Contact();
+                contact.setEmail(email);
+                contact.setName(imported.getName() != null ? imported.getName() : "Unknown");
+                contact.setPhone(imported.getPhone());
+                contact.setStatus(imported.getStatus() != null ? imported.getStatus() : "Open");
+                contact.setNotes(imported.getNotes());
+                contact.setPhotoUrl(imported.getPhotoUrl());
+                if (hasText(imported.getCompany() != null ? imported.getCompany().getName() : null)) {
+                    contact.setCompany(companyMap.get(imported.getCompany().getName()));
+                }
+                if (hasText(imported.getOwnerUsername())) {
+                    contact.setOwner(userMap.get(imported.getOwnerUsername()));
+                }
+                contact.setCreatedAt(now);
+                contact.setLastActivity(now);
+                existingContactMap.put(email, contact);
+                contactsToInsert.add(contact);
+                created++;
+            }
+        }
+
+        contactRepository.saveAll(contactsToInsert);
+        entityManager.flush();
+
+        result.setCreated(result.getCreated() + created);
+        result.setUpdated(result.getUpdated() + updated);
+        result.setSkipped(result.getSkipped() + skipped);
+    }
+
+    private Map<String, User> findUsers(Stream<String> usernames) {
+        List<String> distinct = usernames
+                .filter(ContactImportService::hasText)
+                .distinct()
+                .collect(Collectors.toList());
+        if (distinct.isEmpty()) {
+            return Map.of();
+        }
+        return userRepository.findByUsernameIn(distinct).stream()
+                .collect(Collectors.toMap(User::getUsername, u -> u, (u1, u2) -> u1));
+    }
+
+    // Existing companies by name, missing ones are created with the imported values or defaults
+    private Map<String, Company> resolveCompanies(List<Contact> importedContacts, Map<String, User> userMap) {
+        Map<String, Company> importedCompanies = new LinkedHashMap<>();
+        for (Contact contact : importedContacts) {
+            Company company = contact.getCompany();
+            if (company != null && hasText(company.getName())) {
+                importedCompanies.putIfAbsent(company.getName(), company);
+            }
+        }
+        if (importedCompanies.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, Company> companyMap = companyRepository.findByNameIn(new ArrayList<>(importedCompanies.keySet())).stream()
+                .collect(Collectors.toMap(Company::getName, c -> c, (c1, c2) -> c1)); // Keep first if duplicates
+
+        List<Company> newCompanies = importedCompanies.values().stream()
+                .filter(company -> !companyMap.containsKey(company.getName()))
+                .map(company -> newCompany(company, userMap))
+                .collect(Collectors.toList());
+        if (!newCompanies.isEmpty()) {
+            companyRepository.saveAll(newCompanies);
+            newCompanies.forEach(company -> companyMap.put(company.getName(), company));
+        }
+        return companyMap;
+    }
+
+    private Company newCompany(Company company, Map<String, User> userMap) {
+        Company newCompany = new Company();
+        newCompany.setName(company.getName());
+        newCompany.setEmail(hasText(company.getEmail()) ?
+                company.getEmail() : "company_" + UUID.randomUUID().toString().substring(0, 8) + "@dopaflow.com");
+        newCompany.setPhone(hasText(company.getPhone()) ? company.getPhone() : "N/A");
+        newCompany.setStatus(hasText(company.getStatus()) ? company.getStatus() : "Active");
+        newCompany.setAddress(hasText(company.getAddress()) ? company.getAddress() : "N/A");
+        newCompany.setWebsite(hasText(company.getWebsite()) ? company.getWebsite() : "N/A");
+        newCompany.setIndustry(hasText(company.getIndustry()) ? company.getIndustry() : "Unknown");
+        newCompany.setNotes(company.getNotes());
+        if (hasText(company.getOwnerUsername())) {
+            newCompany.setOwner(userMap.get(company.getOwnerUsername()));
+        }
+        newCompany.setOwnerUsername(company.getOwnerUsername());
+        newCompany.setPhotoUrl(company.getPhotoUrl());
+        return newCompany;
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+}
@@ -0,0 +1,306 @@
+package crm.dopaflow_backend.Service;
+
+import crm.dopaflow_backend.Model.Company;
+import crm.dopaflow_backend.Model.Contact;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Consumer;
+
+/**
+ * Bulk-load mode for very large imports (bulkMode=copy): validated rows are streamed with the PostgreSQL
+ * COPY protocol into a temporary staging table, then merged into contacts/companies with a few set-based
+ * statements. No entities, no persistence context, one round trip per 64 KB of rows instead of one
+ * statement per row. The whole load is a single transaction: it is imported entirely or not at all.
+ *
+ * Merge rules are those of the regular imports: duplicate rows in the file are collapsed (the last one
+ * wins), existing rows are updated with the non-empty imported values when updateExisting is set and
+ * skipped otherwise. Entity listeners do not see these rows, the suggestion index is reloaded afterwards.
+ */
+@Service
+public class CopyImportService {
+    private static final Logger logger = LoggerFactory.getLogger(CopyImportService.class);
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private static final String CREATE_CONTACTS_STAGING = "CREATE TEMP TABLE contacts_import (" +
+            "row_no BIGINT, name TEXT, email TEXT, phone TEXT, status TEXT, notes TEXT, " +
+            "company_name TEXT, owner_username TEXT, photo_url TEXT) ON COMMIT DROP";
+    private static final String COPY_CONTACTS = "COPY contacts_import " +
+            "(row_no, name, email, phone, status, notes, company_name, owner_username, photo_url) FROM STDIN WITH (FORMAT csv)";
+    // Last row per email wins, like repeated emails in a regular import
+    private static final String DEDUPE_CONTACTS = "CREATE TEMP TABLE contacts_import_merged ON COMMIT DROP AS " +
+            "SELECT DISTINCT ON (email) * FROM contacts_import WHERE email IS NOT NULL ORDER BY email, row_no DESC";
+    private static final String INSERT_CONTACT_COMPANIES = "INSERT INTO companies " +
+            "(name, email, phone, status, address, website, industry, created_at) " +
+            "SELECT s.company_name, 'company_' || substr(md5(random()::text || s.company_name), 1, 8) || '@dopaflow.com', " +
+            "'N/A', 'Active', 'N/A', 'N/A', 'Unknown', now() " +
+            "FROM (SELECT DISTINCT company_name FROM contacts_import_merged WHERE company_name IS NOT NULL) s " +
+            "WHERE NOT EXISTS (SELECT 1 FROM companies c WHERE c.name = s.company_name) " +
+            "ON CONFLICT (email) DO NOTHING";
+    private static final String UPDATE_CONTACTS = "UPDATE contacts c SET " +
+            "name = COALESCE(s.name, c.name), " +
+            "phone = COALESCE(s.phone, c.phone), " +
+            "status = COALESCE(s.status, c.status), " +
+            "notes = COALESCE(s.notes, c.notes), " +
+            "photo_url = COALESCE(s.photo_url, c.photo_url), " +
+            "company_id = CASE WHEN s.company_name IS NULL THEN c.company_id " +
+            "ELSE (SELECT MIN(co.id) FROM companies co WHERE co.name = s.company_name) END, " +
+            "owner_id = CASE WHEN s.owner_username IS NULL THEN c.owner_id " +
+            "ELSE (SELECT u.id FROM users u WHERE u.username = s.owner_username) END, " +
+            "last_activity = now() " +
+            "FROM contacts_import_merged s WHERE c.email = s.email";
+    // Must match the allocationSize of Contact's contacts_seq generator (the sequence's INCREMENT BY)
+    private static final int CONTACT_ID_BLOCK = 50;
+    // Ids are reserved like Hibernate's pooled optimizer does: one nextval per block of 50 new rows, each
+    // returning the top of a block (hi - 49 .. hi, ContactSequenceInitializer keeps hi above 49). Existing
+    // emails were updated above (or must be skipped) and get no id; ON CONFLICT only covers contacts inserted
+    // concurrently.
+    private static final String INSERT_CONTACTS = "WITH fresh AS (" +
+            "SELECT s.*, row_number() OVER (ORDER BY s.row_no) - 1 AS n FROM contacts_import_merged s " +
+            "WHERE NOT EXISTS (SELECT 1 FROM contacts c WHERE c.email = s.email)), " +
+            "blocks AS (SELECT b, nextval('contacts_seq') AS hi " +
+            "FROM generate_series(0, (SELECT (COUNT(*) + " + (CONTACT_ID_BLOCK - 1) + ") / " + CONTACT_ID_BLOCK + " - 1 FROM fresh)) b) " +
+            "INSERT INTO contacts " +
+            "(id, name, email, phone, status, notes, photo_url, company_id, owner_id, created_at, last_activity) " +
+            "SELECT k.hi - " + (CONTACT_ID_BLOCK - 1) + " + s.n % " + CONTACT_ID_BLOCK + ", " +
+            "COALESCE(s.name, 'Unknown'), s.email, s.phone, COALESCE(s.status, 'Open'), s.notes, s.photo_url, " +
+            "(SELECT MIN(co.id) FROM companies co WHERE co.name = s.company_name), " +
+            "(SELECT u.id FROM users u WHERE u.username = s.owner_username), now(), now() " +
+            "FROM fresh s JOIN blocks k ON k.b = s.n / " + CONTACT_ID_BLOCK + " ORDER BY s.row_no " +
+            "ON CONFLICT (email) DO NOTHING";
+
+    private static final String CREATE_COMPANIES_STAGING = "CREATE TEMP TABLE companies_import (" +
+            "row_no BIGINT, name TEXT, email TEXT, phone TEXT, status TEXT, address TEXT, website TEXT, " +
+            "industry TEXT, notes TEXT, owner_username TEXT, photo_url TEXT) ON COMMIT DROP";
+    private static final String COPY_COMPANIES = "COPY companies_import " +
+            "(row_no, name, email, phone, status, address, website, industry, notes, owner_username, photo_url) " +
+            "FROM STDIN WITH (FORMAT csv)";
+    // Companies are matched by name, like in CompanyService.bulkImportCompanies
+    private static final String DEDUPE_COMPANIES = "CREATE TEMP TABLE companies_import_merged ON COMMIT DROP AS " +
+            "SELECT DISTINCT ON (name) * FROM companies_import WHERE name IS NOT NULL ORDER BY name, row_no DESC";
+    private static final String UPDATE_COMPANIES = "UPDATE companies c SET " +
+            // The email is unique, keep the current one rather than fail the whole load on a collision, with
+            // another company or with another staged row taking the same new email (the last row wins)
+            "email = CASE WHEN s.email IS NOT NULL AND NOT EXISTS (SELECT 1 FROM companies o WHERE o.email = s.email) " +
+            "AND NOT EXISTS (SELECT 1 FROM companies_import_merged d WHERE d.email = s.email AND d.row_no > s.row_no) " +
+            "THEN s.email ELSE c.email END, " +
+            "phone = COALESCE(s.phone, c.phone), " +
+            "status = COALESCE(s.status, c.status), " +
+            "address = COALESCE(s.address, c.address), " +
+            "website = COALESCE(s.website, c.website), " +
+            "industry = COALESCE(s.industry, c.industry), " +
+            "notes = COALESCE(s.notes, c.notes), " +
+            "photo_url = COALESCE(s.photo_url, c.photo_url), " +
+            "owner_id = CASE WHEN s.owner_username IS NULL THEN c.owner_id " +
+            "ELSE (SELECT u.id FROM users u WHERE u.username = s.owner_username) END " +
+            "FROM companies_import_merged s " +
+            "WHERE c.id = (SELECT MIN(e.id) FROM companies e WHERE e.name = s.name)";
+    private static final String INSERT_COMPANIES = "INSERT INTO companies " +
+            "(name, email, phone, status, address, website, industry, notes, photo_url, owner_id, created_at) " +
+            "SELECT s.name, COALESCE(s.email, lower(regexp_replace(s.name, '[^a-zA-Z0-9]', '', 'g')) || '@dopaflow.com'), " +
+            "COALESCE(s.phone, 'N/A'), COALESCE(s.status, 'Active'), COALESCE(s.address, 'N/A'), " +
+            "COALESCE(s.website, 'N/A'), COALESCE(s.industry, 'N/A'), s.notes, s.photo_url, " +
+            "(SELECT u.id FROM users u WHERE u.username = s.owner_username), now() " +
+            "FROM companies_import_merged s " +
+            "WHERE NOT EXISTS (SELECT 1 FROM companies e WHERE e.name = s.name) " +
+            "ORDER BY s.row_no " +
+            "ON CONFLICT (email) DO NOTHING";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SuggestionIndexService suggestionIndexService;
+
+    public CopyImportService(DataSource dataSource,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             SuggestionIndexService suggestionIndexService) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.suggestionIndexService = suggestionIndexService;
+    }
+
+    /**
+     * Produces the rows to load, typically by reading the import file. Called once, inside the load transaction.
+     */
+    @FunctionalInterface
+    public interface RowSource<T> {
+        void read(Consumer<T> sink) throws IOException;
+    }
+
+    public ImportResult<Contact> copyContacts(RowSource<Contact> source, boolean updateExisting) {
+        long start = System.currentTimeMillis();
+        ImportResult<Contact> result = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute(CREATE_CONTACTS_STAGING);
+            long rows = copy(COPY_CONTACTS, source, (line, rowNo, contact) -> {
+                line.row(rowNo);
+                line.field(contact.getName());
+                line.field(contact.getEmail());
+                line.field(contact.getPhone());
+                line.field(contact.getStatus());
+                line.field(contact.getNotes());
+                line.field(contact.getCompany() != null ? contact.getCompany().getName() : null);
+                line.field(contact.getOwnerUsername());
+                line.field(contact.getPhotoUrl());
+            });
+            jdbcTemplate.execute(DEDUPE_CONTACTS);
+            jdbcTemplate.update(INSERT_CONTACT_COMPANIES);
+            int updated = updateExisting ? jdbcTemplate.update(UPDATE_CONTACTS) : 0;
+            int created = jdbcTemplate.update(INSERT_CONTACTS);
+            return result(rows, created, updated);
+        });
+        suggestionIndexService.reload();
+        logger.info("Contact COPY import: {} created, {} updated, {} skipped in {} ms",
+                result.getCreated(), result.getUpdated(), result.getSkipped(), System.currentTimeMillis() - start);
+        return result;
+    }
+
+    public ImportResult<Company> copyCompanies(RowSource<Company> source, boolean updateExisting) {
+        long start = System.currentTimeMillis();
+        ImportResult<Company> result = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute(CREATE_COMPANIES_STAGING);
+            long rows = copy(COPY_COMPANIES, source, (line, rowNo, company) -> {
+                line.row(rowNo);
+                line.field(company.getName());
+                line.field(company.getEmail());
+                line.field(company.getPhone());
+                line.field(company.getStatus());
+                line.field(company.getAddress());
+                line.field(company.getWebsite());
+                line.field(company.getIndustry());
+                line.field(company.getNotes());
+                line.field(company.getOwnerUsername());
+                line.field(company.getPhotoUrl());
+            });
+            jdbcTemplate.execute(DEDUPE_COMPANIES);
+            int updated = updateExisting ? jdbcTemplate.update(UPDATE_COMPANIES) : 0;
+            int created = jdbcTemplate.update(INSERT_COMPANIES);
+            return result(rows, created, updated);
+        });
+        suggestionIndexService.reload();
+        logger.info("Company COPY import: {} created, {} updated, {} skipped in {} ms",
+                result.getCreated(), result.getUpdated(), result.getSkipped(), System.currentTimeMillis() - start);
+        return result;
+    }
+
+    private static <T> ImportResult<T> result(long rows, int created, int updated) {
+        ImportResult<T> result = new ImportResult<>();
+        result.setCreated(created);
+        result.setUpdated(updated);
+        // Rows without the key, duplicates within the file and existing rows not updated
+        result.setSkipped((int) Math.max(0, rows - created - updated));
+        return result;
+    }
+
+    @FunctionalInterface
+    private interface RowWriter<T> {
+        void write(CsvLine line, long rowNo, T row);
+    }
+
+    // Runs on the transaction's connection, so the staging table and the merge see the same session
+    private <T> long copy(String copySql, RowSource<T> source, RowWriter<T> writer) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        CopyIn copyIn = null;
+        try {
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            CopyIn copy = copyManager.copyIn(copySql);
+            copyIn = copy;
+            CsvLine line = new CsvLine();
+            long[] rowNo = {0};
+            source.read(row -> {
+                writer.write(line, ++rowNo[0], row);
+                line.end();
+                if (line.length() >= COPY_BUFFER_SIZE) {
+                    try {
+                        line.flushTo(copy);
+                    } catch (SQLException e) {
+                        throw new IllegalStateException("COPY into the staging table failed: " + e.getMessage(), e);
+                    }
+                }
+            });
+            line.flushTo(copy);
+            copy.endCopy();
+            return rowNo[0];
+        } catch (SQLException e) {
+            throw new IllegalStateException("COPY into the staging table failed: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            // Aborted by the row source (bad file, cancellation): the connection must leave COPY mode before rollback
+            if (copyIn != null && copyIn.isActive()) {
+                try {
+                    copyIn.cancelCopy();
+                } catch (SQLException e) {
+                    logger.warn("Failed to cancel COPY: {}", e.getMessage());
+                }
+            }
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /**
+     * Builds COPY rows in CSV format: fields quoted with doubled quotes, null written as an unquoted empty
+     * field (COPY's NULL in CSV mode), so empty strings and nulls stay distinct.
+     */
+    private static final class CsvLine {
+        private final StringBuilder buffer = new StringBuilder(COPY_BUFFER_SIZE + 1024);
+        private boolean firstField = true;
+
+        void row(long rowNo) {
+            buffer.append(rowNo);
+            firstField = false;
+        }
+
+        void field(String value) {
+            if (!firstField) {
+                buffer.append(',');
+            }
+            firstField = false;
+            if (value == null || value.trim().isEmpty()) {
+                return;
+            }
+            buffer.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char ch = value.charAt(i);
+                if (ch == '"') {
+                    buffer.append('"');
+                }
+                buffer.append(ch);
+            }
+            buffer.append('"');
+        }
+
+        void end() {
+            buffer.append('\n');
+            firstField = true;
+        }
+
+        int length() {
+            return buffer.length();
+        }
+
+        void flushTo(CopyIn copyIn) throws SQLException {
+            if (buffer.length() == 0) {
+                return;
+            }
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+    }
+}
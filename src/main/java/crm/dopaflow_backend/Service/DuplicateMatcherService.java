@@ -0,0 +1,79 @@
+package crm.dopaflow_backend.Service;
+
+import crm.dopaflow_backend.Utils.DuplicateMatcher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds DuplicateMatchers loaded with the existing contacts or companies. Only the id, name, email and
+ * phone columns are read, streamed with a fetch size (inside a read-only transaction, see ExportService).
+ */
+@Service
+public class DuplicateMatcherService {
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final String defaultCountryCode;
+
+    public DuplicateMatcherService(DataSource dataSource,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${export.fetch-size:1000}") int fetchSize,
+                                   @Value("${import.match.default-country-code:}") String defaultCountryCode) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.defaultCountryCode = defaultCountryCode;
+    }
+
+    public DuplicateMatcher contactMatcher() {
+        return load("SELECT id, name, email, phone FROM contacts");
+    }
+
+    public DuplicateMatcher companyMatcher() {
+        return load("SELECT id, name, email, phone FROM companies");
+    }
+
+    private DuplicateMatcher load(String sql) {
+        DuplicateMatcher matcher = new DuplicateMatcher(defaultCountryCode);
+        readOnlyTransaction.executeWithoutResult(status ->
+                streamingJdbcTemplate.query(sql, (RowCallbackHandler) rs ->
+                        matcher.addExisting(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4))));
+        return matcher;
+    }
+
+    /**
+     * Preview summary: the number of rows per match type and one entry per row matching an existing or earlier row.
+     * @param collisions row index to match, for the matching rows only
+     */
+    public static Map<String, Object> report(DuplicateMatcher matcher, Map<Integer, DuplicateMatcher.Match> collisions) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("new", matcher.getCounts().get(DuplicateMatcher.MatchType.NEW));
+        report.put("exactMatches", matcher.getCounts().get(DuplicateMatcher.MatchType.EXACT_MATCH));
+        report.put("probableMatches", matcher.getCounts().get(DuplicateMatcher.MatchType.PROBABLE_MATCH));
+        List<Map<String, Object>> rows = collisions.entrySet().stream()
+                .map(entry -> {
+                    DuplicateMatcher.Match match = entry.getValue();
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("row", entry.getKey());
+                    row.put("matchType", match.type());
+                    row.put("matchedOn", match.field());
+                    row.put("existingId", match.existingId());
+                    row.put("existingName", match.existingName());
+                    row.put("duplicateOfRow", match.duplicateOfRow());
+                    return row;
+                })
+                .toList();
+        report.put("collisions", rows);
+        return report;
+    }
+}
@@ -0,0 +1,211 @@
+package crm.dopaflow_backend.Service;
+
+import crm.dopaflow_backend.Utils.CsvRowEncoder;
+import crm.dopaflow_backend.Utils.StreamingExcelWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streams contact and company exports straight from a forward-only JDBC cursor to the response.
+ * Only the selected columns are queried (owner and company names are joined in the same statement),
+ * rows are fetched in fixed-size batches and encoded directly into the output, so memory stays flat
+ * whatever the table size. The PostgreSQL driver only honours the fetch size inside a transaction,
+ * hence the read-only TransactionTemplate around each export. Excel exports go through
+ * StreamingExcelWriter, which keeps only a small window of rows in memory.
+ */
+@Service
+public class ExportService {
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+
+    private record ExportColumn(String header, String sql, int width) {
+        ExportColumn(String header, String sql) {
+            this(header, sql, StreamingExcelWriter.DEFAULT_COLUMN_WIDTH);
+        }
+    }
+
+    private static final String CONTACTS_FROM = " FROM contacts c " +
+            "LEFT JOIN users u ON u.id = c.owner_id " +
+            "LEFT JOIN companies co ON co.id = c.company_id ORDER BY c.id";
+    private static final String COMPANIES_FROM = " FROM companies c " +
+            "LEFT JOIN users u ON u.id = c.owner_id ORDER BY c.id";
+
+    private static final Map<String, ExportColumn> CONTACT_COLUMNS = Map.of(
+            "name", new ExportColumn("Name", "c.name", 30),
+            "email", new ExportColumn("Email", "c.email", 30),
+            "phone", new ExportColumn("Phone Number", "c.phone", 18),
+            "status", new ExportColumn("Lead Status", "c.status"),
+            "createdat", new ExportColumn("Creation Date", "c.created_at"),
+            "owner", new ExportColumn("Contact Owner", "u.username"),
+            "company", new ExportColumn("Company", "co.name", 30),
+            "notes", new ExportColumn("Notes", "c.notes", 50),
+            "photourl", new ExportColumn("Photo URL", "c.photo_url", 40)
+    );
+
+    private static final Map<String, ExportColumn> COMPANY_COLUMNS = Map.of(
+            "name", new ExportColumn("Name", "c.name", 30),
+            "email", new ExportColumn("Email", "c.email", 30),
+            "phone", new ExportColumn("Phone Number", "c.phone", 18),
+            "status", new ExportColumn("Status", "c.status"),
+            "address", new ExportColumn("Address", "c.address", 40),
+            "website", new ExportColumn("Website", "c.website", 30),
+            "industry", new ExportColumn("Industry", "c.industry"),
+            "notes", new ExportColumn("Notes", "c.notes", 50),
+            "owner", new ExportColumn("Company Owner", "u.username"),
+            "photourl", new ExportColumn("Photo URL", "c.photo_url", 40)
+    );
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ExportService(DataSource dataSource,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${export.fetch-size:1000}") int fetchSize) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public void writeContactsCsv(List<String> columns, OutputStream out) throws IOException {
+        writeCsv(resolve(columns, CONTACT_COLUMNS, false), CONTACTS_FROM, out);
+    }
+
+    @FunctionalInterface
+    public interface Export {
+        void write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * The export as a response body. The response is committed with its first bytes, so a failure can no
+     * longer turn into an error status: it is logged and rethrown, which aborts the response and leaves the
+     * client with a failed download rather than a truncated file that looks complete.
+     */
+    public StreamingResponseBody streamed(String name, Export export) {
+        return out -> {
+            try {
+                export.write(out);
+            } catch (IOException e) {
+                // Usually the client going away
+                logger.warn("{} export aborted: {}", name, e.getMessage());
+                throw e;
+            } catch (RuntimeException e) {
+                logger.error("{} export failed", name, e);
+                throw e;
+            }
+        };
+    }
+
+    public void writeCompaniesCsv(List<String> columns, OutputStream out) throws IOException {
+        writeCsv(resolve(columns, COMPANY_COLUMNS, true), COMPANIES_FROM, out);
+    }
+
+    public void writeContactsExcel(List<String> columns, OutputStream out) throws IOException {
+        List<ExportColumn> resolved = resolve(columns, CONTACT_COLUMNS, false);
+        // The Excel export has always shown contacts without a status as "Open"
+        resolved.replaceAll(column -> column == CONTACT_COLUMNS.get("status")
+                ? new ExportColumn(column.header(), "COALESCE(c.status, 'Open')", column.width())
+                : column);
+        writeExcel("Contacts", columns, resolved, CONTACTS_FROM, out);
+    }
+
+    public void writeCompaniesExcel(List<String> columns, OutputStream out) throws IOException {
+        writeExcel("Companies", columns, resolve(columns, COMPANY_COLUMNS, true), COMPANIES_FROM, out);
+    }
+
+    // Unknown columns export empty values under an empty CSV header (contacts) or their own name (companies),
+    // as the CSV exports did before they were streamed; Excel headers are always the requested names
+    private List<ExportColumn> resolve(List<String> columns, Map<String, ExportColumn> known, boolean unknownKeepsName) {
+        List<ExportColumn> resolved = new ArrayList<>(columns.size());
+        for (String column : columns) {
+            String key = column.trim().toLowerCase(Locale.ROOT);
+            resolved.add(known.getOrDefault(key, new ExportColumn(unknownKeepsName ? column.trim() : "", "NULL")));
+        }
+        return resolved;
+    }
+
+    private String selectSql(List<ExportColumn> columns, String from) {
+        StringBuilder sql = new StringBuilder("SELECT ");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) sql.append(", ");
+            sql.append(columns.get(i).sql());
+        }
+        return sql.append(from).toString();
+    }
+
+    private void writeCsv(List<ExportColumn> columns, String from, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        CsvRowEncoder encoder = new CsvRowEncoder(writer);
+        for (ExportColumn column : columns) {
+            encoder.header(column.header());
+        }
+        encoder.endRow();
+        writer.flush(); // the client gets the header before the first row is even fetched
+
+        String sql = selectSql(columns, from);
+        int columnCount = columns.size();
+        try {
+            readOnlyTransaction.executeWithoutResult(status ->
+                    streamingJdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+                        try {
+                            for (int i = 1; i <= columnCount; i++) {
+                                encoder.value(readString(rs, i));
+                            }
+                            encoder.endRow();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    static String readString(ResultSet rs, int index) throws SQLException {
+        Object value = rs.getObject(index);
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime().toString();
+        }
+        return value.toString();
+    }
+
+    // Excel headers are the requested column names, as they were before the export was streamed
+    private void writeExcel(String sheetName, List<String> headers, List<ExportColumn> columns, String from,
+                            OutputStream out) throws IOException {
+        String sql = selectSql(columns, from);
+        int columnCount = columns.size();
+        try (StreamingExcelWriter writer = new StreamingExcelWriter(sheetName)) {
+            writer.columnWidths(columns.stream().mapToInt(ExportColumn::width).toArray());
+            writer.headerRow(headers);
+            readOnlyTransaction.executeWithoutResult(status ->
+                    streamingJdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+                        writer.startRow();
+                        for (int i = 1; i <= columnCount; i++) {
+                            writer.value(rs.getObject(i));
+                        }
+                    }));
+            writer.writeTo(out);
+        }
+    }
+}
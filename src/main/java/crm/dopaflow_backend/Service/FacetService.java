@@ -0,0 +1,214 @@
+package crm.dopaflow_backend.Service;
+
+import crm.dopaflow_backend.DTO.ContactFilter;
+import crm.dopaflow_backend.Repository.ContactSpecifications;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Facet counts for the contact and company filter panels: per status, owner and company (contacts) or
+ * per status, owner and industry (companies), plus the total, all in one UNION ALL statement.
+ *
+ * Each facet is counted under the current filter minus its own criterion, so the panel still shows the
+ * other choices of the facet being filtered on (choosing status "Lead" keeps the counts of the other
+ * statuses). Owner and company facets are limited to the largest values. Results are cached for a few
+ * seconds per filter, keyed by the filter itself, so a panel refresh does not hit the database again.
+ */
+@Service
+public class FacetService {
+
+    // Must mirror ContactSpecifications / CompanySpecifications (contacts checked by FacetServiceTest);
+    // null dimension = applied to every facet
+    private record Criterion(String dimension, String sql) {
+    }
+
+    private record CompanyFacetKey(String status, Long ownerId, boolean unassignedOnly) {
+    }
+
+    private record CachedFacets(Map<String, Object> facets, long expiresAtMillis) {
+    }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final int maxValues;
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final Map<Object, CachedFacets> cache = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public FacetService(NamedParameterJdbcTemplate jdbcTemplate,
+                        @Value("${facets.max-values:50}") int maxValues,
+                        @Value("${facets.cache.ttl-seconds:15}") long ttlSeconds,
+                        @Value("${facets.cache.max-entries:500}") int maxEntries) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxValues = maxValues;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxEntries = maxEntries;
+    }
+
+    public Map<String, Object> contactFacets(ContactFilter filter) {
+        return cached(filter, () -> {
+            MapSqlParameterSource params = new MapSqlParameterSource("maxValues", maxValues);
+            List<Criterion> criteria = new ArrayList<>();
+            if (filter.getStatus() != null && !filter.getStatus().isBlank() && !"ANY".equals(filter.getStatus())) {
+                criteria.add(new Criterion("status", "c.status = :status"));
+                params.addValue("status", filter.getStatus());
+            }
+            if (filter.isUnassignedOnly()) {
+                criteria.add(new Criterion("owner", "c.owner_id IS NULL"));
+            } else if (filter.getOwnerId() != null) {
+                criteria.add(new Criterion("owner", "c.owner_id = :ownerId"));
+                params.addValue("ownerId", filter.getOwnerId());
+            }
+            if (filter.getCompanyId() != null) {
+                criteria.add(new Criterion("company", "c.company_id = :companyId"));
+                params.addValue("companyId", filter.getCompanyId());
+            }
+            if (filter.getCreatedFrom() != null) {
+                criteria.add(new Criterion(null, "c.created_at >= :createdFrom"));
+                params.addValue("createdFrom", filter.getCreatedFrom());
+            }
+            if (filter.getCreatedTo() != null) {
+                criteria.add(new Criterion(null, "c.created_at <= :createdTo"));
+                params.addValue("createdTo", filter.getCreatedTo());
+            }
+            if (filter.getLastActivityFrom() != null) {
+                criteria.add(new Criterion(null, "c.last_activity >= :lastActivityFrom"));
+                params.addValue("lastActivityFrom", filter.getLastActivityFrom());
+            }
+            if (filter.getLastActivityTo() != null) {
+                criteria.add(new Criterion(null, "c.last_activity <= :lastActivityTo"));
+                params.addValue("lastActivityTo", filter.getLastActivityTo());
+            }
+            if (filter.getEmailDomain() != null && !filter.getEmailDomain().isBlank()) {
+                String domain = filter.getEmailDomain().trim().toLowerCase(Locale.ROOT);
+                if (domain.startsWith("@")) {
+                    domain = domain.substring(1);
+                }
+                criteria.add(new Criterion(null, "lower(c.email) LIKE :emailPattern ESCAPE '\\'"));
+                params.addValue("emailPattern", "%@" + ContactSpecifications.escapeLike(domain));
+            }
+            if (filter.getHasOpportunities() != null) {
+                criteria.add(new Criterion(null, (filter.getHasOpportunities() ? "" : "NOT ")
+                        + "EXISTS (SELECT 1 FROM opportunities o WHERE o.contact_id = c.id)"));
+            }
+
+            String sql = String.join(" UNION ALL ",
+                    "(SELECT 'total' AS facet, CAST(NULL AS VARCHAR) AS value, CAST(NULL AS VARCHAR) AS label, COUNT(*) AS count " +
+                            "FROM contacts c" + where(criteria, "total") + ")",
+                    "(SELECT 'status', c.status, c.status, COUNT(*) FROM contacts c" + where(criteria, "status") +
+                            " GROUP BY c.status ORDER BY COUNT(*) DESC)",
+                    "(SELECT 'owner', CAST(c.owner_id AS VARCHAR), MAX(u.username), COUNT(*) " +
+                            "FROM contacts c LEFT JOIN users u ON u.id = c.owner_id" + where(criteria, "owner") +
+                            " GROUP BY c.owner_id ORDER BY COUNT(*) DESC LIMIT :maxValues)",
+                    "(SELECT 'company', CAST(c.company_id AS VARCHAR), MAX(co.name), COUNT(*) " +
+                            "FROM contacts c LEFT JOIN companies co ON co.id = c.company_id" + where(criteria, "company") +
+                            " GROUP BY c.company_id ORDER BY COUNT(*) DESC LIMIT :maxValues)");
+            return query(sql, params, "status", "owner", "company");
+        });
+    }
+
+    public Map<String, Object> companyFacets(String status, Long ownerId, boolean unassignedOnly) {
+        return cached(new CompanyFacetKey(status, ownerId, unassignedOnly), () -> {
+            MapSqlParameterSource params = new MapSqlParameterSource("maxValues", maxValues);
+            List<Criterion> criteria = new ArrayList<>();
+            if (status != null && !status.isBlank() && !"ANY".equals(status)) {
+                criteria.add(new Criterion("status", "c.status = :status"));
+                params.addValue("status", status);
+            }
+            if (unassignedOnly) {
+                criteria.add(new Criterion("owner", "c.owner_id IS NULL"));
+            } else if (ownerId != null) {
+                criteria.add(new Criterion("owner", "c.owner_id = :ownerId"));
+                params.addValue("ownerId", ownerId);
+            }
+
+            String sql = String.join(" UNION ALL ",
+                    "(SELECT 'total' AS facet, CAST(NULL AS VARCHAR) AS value, CAST(NULL AS VARCHAR) AS label, COUNT(*) AS count " +
+                            "FROM companies c" + where(criteria, "total") + ")",
+                    "(SELECT 'status', c.status, c.status, COUNT(*) FROM companies c" + where(criteria, "status") +
+                            " GROUP BY c.status ORDER BY COUNT(*) DESC)",
+                    "(SELECT 'owner', CAST(c.owner_id AS VARCHAR), MAX(u.username), COUNT(*) " +
+                            "FROM companies c LEFT JOIN users u ON u.id = c.owner_id" + where(criteria, "owner") +
+                            " GROUP BY c.owner_id ORDER BY COUNT(*) DESC LIMIT :maxValues)",
+                    "(SELECT 'industry', c.industry, c.industry, COUNT(*) FROM companies c" + where(criteria, "industry") +
+                            " GROUP BY c.industry ORDER BY COUNT(*) DESC LIMIT :maxValues)");
+            return query(sql, params, "status", "owner", "industry");
+        });
+    }
+
+    // The facet's own criterion is left out; "total" gets every criterion
+    private static String where(List<Criterion> criteria, String facet) {
+        String clauses = criteria.stream()
+                .filter(criterion -> criterion.dimension() == null || !criterion.dimension().equals(facet))
+                .map(Criterion::sql)
+                .collect(Collectors.joining(" AND "));
+        return clauses.isEmpty() ? "" : " WHERE " + clauses;
+    }
+
+    // Rows (facet, value, label, count) to {"total": n, facet: [{value, label, count}, ...]}; a null value is "none"
+    private Map<String, Object> query(String sql, MapSqlParameterSource params, String... facets) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("total", 0L);
+        for (String facet : facets) {
+            result.put(facet, new ArrayList<Map<String, Object>>());
+        }
+        jdbcTemplate.query(sql, params, (RowCallbackHandler) rs -> {
+            String facet = rs.getString(1);
+            if ("total".equals(facet)) {
+                result.put("total", rs.getLong(4));
+                return;
+            }
+            Map<String, Object> value = new LinkedHashMap<>();
+            value.put("value", rs.getString(2));
+            value.put("label", rs.getString(3));
+            value.put("count", rs.getLong(4));
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> values = (List<Map<String, Object>>) result.get(facet);
+            values.add(value);
+        });
+        return result;
+    }
+
+    private Map<String, Object> cached(Object key, Supplier<Map<String, Object>> loader) {
+        long now = System.currentTimeMillis();
+        CachedFacets entry = cache.get(key);
+        if (entry != null && now < entry.expiresAtMillis()) {
+            hits.increment();
+            return entry.facets();
+        }
+        misses.increment();
+        Map<String, Object> facets = loader.get();
+        if (cache.size() >= maxEntries) {
+            cache.values().removeIf(cached -> now >= cached.expiresAtMillis());
+            if (cache.size() >= maxEntries) {
+                cache.clear();
+            }
+        }
+        cache.put(key, new CachedFacets(facets, now + ttlMillis));
+        return facets;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", cache.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,254 @@
+package crm.dopaflow_backend.Service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Writes uploaded files to HTTP responses with validators and caching headers: a strong ETag (the content hash
+ * when known, otherwise size and modification time), Last-Modified, and a Cache-Control chosen by the caller,
+ * "immutable" for files whose name never gets new content. Conditional GETs are answered with 304, a single
+ * byte range with 206 (several ranges get the whole file, as RFC 9110 allows).
+ *
+ * Large bodies are handed to Tomcat's sendfile when the connector supports it, so the kernel copies the file to
+ * the socket without passing it through the heap; otherwise they are copied with FileChannel.transferTo.
+ */
+@Service
+public class FileServingService {
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final Pattern SINGLE_RANGE = Pattern.compile("^bytes=(\\d*)-(\\d*)$", Pattern.CASE_INSENSITIVE);
+
+    private record ByteRange(long start, long end) {
+    }
+
+    private static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+    private final CacheControl immutableCacheControl;
+    private final CacheControl revalidatedCacheControl;
+    private final long sendfileMinSize;
+
+    private final LongAdder served = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder partial = new LongAdder();
+    private final LongAdder sendfile = new LongAdder();
+
+    public FileServingService(@Value("${files.immutable-max-age-seconds:31536000}") long immutableMaxAgeSeconds,
+                              @Value("${files.revalidated-max-age-seconds:3600}") long revalidatedMaxAgeSeconds,
+                              @Value("${files.sendfile-min-size:49152}") long sendfileMinSize) {
+        this.immutableCacheControl = CacheControl.maxAge(Duration.ofSeconds(immutableMaxAgeSeconds)).cachePublic().immutable();
+        this.revalidatedCacheControl = CacheControl.maxAge(Duration.ofSeconds(revalidatedMaxAgeSeconds)).cachePublic();
+        this.sendfileMinSize = sendfileMinSize;
+    }
+
+    // For file names that are never reused for other content (unique upload names, content hashes)
+    public CacheControl immutable() {
+        return immutableCacheControl;
+    }
+
+    // For files that may change under the same name: cached briefly, then revalidated with the ETag
+    public CacheControl revalidated() {
+        return revalidatedCacheControl;
+    }
+
+    /**
+     * The file called filename in directory, null for names that are not a plain file name (separators,
+     * "..", hidden files such as the attachment staging directory).
+     */
+    public static Path resolve(Path directory, String filename) {
+        if (filename == null || filename.isEmpty() || filename.startsWith(".")
+                || filename.indexOf('/') >= 0 || filename.indexOf('\\') >= 0) {
+            return null;
+        }
+        return directory.resolve(filename);
+    }
+
+    public static String contentTypeOf(String filename) {
+        return MediaTypeFactory.getMediaType(filename).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+    }
+
+    /**
+     * Serves file (404 when missing). A null etag is derived from the size and modification time; a null
+     * contentDisposition leaves the header out.
+     */
+    public void serve(HttpServletRequest request, HttpServletResponse response, Path file, String contentType,
+                      String etag, CacheControl cacheControl, String contentDisposition) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = file != null ? Files.readAttributes(file, BasicFileAttributes.class) : null;
+        } catch (NoSuchFileException e) {
+            attributes = null;
+        }
+        if (attributes == null || !attributes.isRegularFile()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        long length = attributes.size();
+        // HTTP dates have second precision
+        long lastModified = attributes.lastModifiedTime().toMillis() / 1000 * 1000;
+        String entityTag = etag != null ? "\"" + etag + "\""
+                : "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, entityTag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        if (isNotModified(request, entityTag, lastModified)) {
+            notModified.increment();
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setContentType(contentType);
+        if (contentDisposition != null) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && isRangeApplicable(request, entityTag, lastModified)) {
+            ByteRange range = parseRange(rangeHeader, length);
+            if (range == UNSATISFIABLE) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (range != null) {
+                start = range.start();
+                end = range.end();
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+                partial.increment();
+            }
+        }
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        served.increment();
+        if (HttpMethod.HEAD.matches(request.getMethod()) || count == 0) {
+            return;
+        }
+
+        // Tomcat writes the file itself once the request returns; the end offset is exclusive
+        if (count >= sendfileMinSize && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            sendfile.increment();
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, out);
+                if (transferred <= 0) {
+                    break; // file truncated while being served
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    // If-None-Match wins over If-Modified-Since; If-None-Match uses the weak comparison
+    private static boolean isNotModified(HttpServletRequest request, String entityTag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                String candidate = tag.trim();
+                if (candidate.startsWith("W/")) {
+                    candidate = candidate.substring(2);
+                }
+                if (candidate.equals("*") || candidate.equals(entityTag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && lastModified <= ifModifiedSince;
+    }
+
+    // If-Range must match exactly (strong comparison, or the exact date), otherwise the whole file is sent
+    private static boolean isRangeApplicable(HttpServletRequest request, String entityTag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.trim().equals(entityTag);
+        }
+        return dateHeader(request, HttpHeaders.IF_RANGE) == lastModified;
+    }
+
+    // One range ("a-b", "a-", "-suffix") clamped to the file, UNSATISFIABLE if it starts past the end,
+    // null when the header is to be ignored (malformed or several ranges)
+    private static ByteRange parseRange(String header, long length) {
+        Matcher matcher = SINGLE_RANGE.matcher(header.trim());
+        if (!matcher.matches() || (matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+            return null;
+        }
+        try {
+            if (matcher.group(1).isEmpty()) {
+                long suffix = Long.parseLong(matcher.group(2));
+                if (suffix == 0 || length == 0) {
+                    return UNSATISFIABLE;
+                }
+                return new ByteRange(Math.max(0, length - suffix), length - 1);
+            }
+            long start = Long.parseLong(matcher.group(1));
+            if (start >= length) {
+                return UNSATISFIABLE;
+            }
+            long end = matcher.group(2).isEmpty() ? length - 1 : Math.min(Long.parseLong(matcher.group(2)), length - 1);
+            return end < start ? null : new ByteRange(start, end);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("served", served.sum());
+        stats.put("notModified", notModified.sum());
+        stats.put("partial", partial.sum());
+        stats.put("sendfile", sendfile.sum());
+        stats.put("sendfileMinSize", sendfileMinSize);
+        return stats;
+    }
+}
@@ -0,0 +1,248 @@
+package crm.dopaflow_backend.Service;
+
+import jakarta.annotation.PostConstruct;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Offline IPv4 -> city resolver. The IP range database (CSV: start, end, ..., city) is loaded once
+ * into sorted primitive arrays and looked up by binary search, with a small LRU in front of it for
+ * recently seen addresses. Lookups never touch the network; until the database is loaded, or when
+ * no database is configured, every address resolves to "Unknown".
+ */
+@Service
+public class GeoIpService {
+    private static final Logger logger = LoggerFactory.getLogger(GeoIpService.class);
+    private static final String UNKNOWN = "Unknown";
+
+    @Value("${geoip.database.path:}")
+    private String databasePath;
+
+    @Value("${geoip.database.city-column:2}")
+    private int cityColumn;
+
+    @Value("${geoip.cache.max-entries:4096}")
+    private int cacheMaxEntries;
+
+    private volatile RangeTable table = RangeTable.EMPTY;
+    private Map<String, String> recentLookups;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        recentLookups = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > cacheMaxEntries;
+            }
+        });
+        if (databasePath == null || databasePath.isBlank()) {
+            logger.info("No GeoIP database configured (geoip.database.path), login locations will be 'Unknown'");
+            return;
+        }
+        // Loading a full city database takes a few seconds, don't hold up application startup for it
+        Thread loader = new Thread(this::loadDatabase, "geoip-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    public String resolveCity(String ipAddress) {
+        if (ipAddress == null || ipAddress.isEmpty()) {
+            return UNKNOWN;
+        }
+        lookups.increment();
+        String cached = recentLookups.get(ipAddress);
+        if (cached != null) {
+            cacheHits.increment();
+            return cached;
+        }
+        long ip = parseIpv4(ipAddress);
+        String location = ip < 0 ? UNKNOWN : table.lookup(ip);
+        recentLookups.put(ipAddress, location);
+        return location;
+    }
+
+    private void loadDatabase() {
+        Path path = Paths.get(databasePath);
+        long start = System.currentTimeMillis();
+        try (InputStream raw = Files.newInputStream(path);
+             InputStream in = databasePath.endsWith(".gz") ? new GZIPInputStream(raw, 64 * 1024) : raw;
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+             CSVParser parser = new CSVParser(reader, CSVFormat.DEFAULT)) {
+
+            RangeTable.Builder builder = new RangeTable.Builder();
+            for (CSVRecord record : parser) {
+                if (record.size() <= Math.max(1, cityColumn)) continue;
+                long from = parseIpv4OrNumber(record.get(0));
+                long to = parseIpv4OrNumber(record.get(1));
+                if (from < 0 || to < from) continue; // header row, IPv6 range or garbage
+                String city = record.get(cityColumn).trim();
+                builder.add(from, to, city.isEmpty() ? UNKNOWN : city);
+            }
+            table = builder.build();
+            recentLookups.clear();
+            logger.info("Loaded {} GeoIP ranges from {} in {} ms", table.size(), path, System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            logger.error("Failed to load GeoIP database from {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static long parseIpv4OrNumber(String value) {
+        value = value.trim();
+        if (value.indexOf('.') >= 0) {
+            return parseIpv4(value);
+        }
+        try {
+            long number = Long.parseLong(value);
+            return number >= 0 && number <= 0xFFFFFFFFL ? number : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Parses a dotted IPv4 address (optionally IPv4-mapped IPv6) without going through InetAddress
+    static long parseIpv4(String ip) {
+        if (ip.startsWith("::ffff:")) {
+            ip = ip.substring(7);
+        }
+        long result = 0;
+        int octet = -1;
+        int dots = 0;
+        for (int i = 0; i < ip.length(); i++) {
+            char c = ip.charAt(i);
+            if (c >= '0' && c <= '9') {
+                octet = (octet < 0 ? 0 : octet * 10) + (c - '0');
+                if (octet > 255) return -1;
+            } else if (c == '.' && octet >= 0 && dots < 3) {
+                result = (result << 8) | octet;
+                octet = -1;
+                dots++;
+            } else {
+                return -1;
+            }
+        }
+        if (dots != 3 || octet < 0) return -1;
+        return (result << 8) | octet;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ranges", table.size());
+        stats.put("lookups", lookups.sum());
+        stats.put("cacheHits", cacheHits.sum());
+        stats.put("cacheSize", recentLookups.size());
+        return stats;
+    }
+
+    /**
+     * Immutable range table: parallel int arrays of unsigned range bounds sorted by start,
+     * plus an index into a deduplicated location array.
+     */
+    private static final class RangeTable {
+        static final RangeTable EMPTY = new RangeTable(new int[0], new int[0], new int[0], new String[0]);
+
+        private final int[] starts;
+        private final int[] ends;
+        private final int[] locationIndexes;
+        private final String[] locations;
+
+        private RangeTable(int[] starts, int[] ends, int[] locationIndexes, String[] locations) {
+            this.starts = starts;
+            this.ends = ends;
+            this.locationIndexes = locationIndexes;
+            this.locations = locations;
+        }
+
+        int size() {
+            return starts.length;
+        }
+
+        String lookup(long ip) {
+            int low = 0;
+            int high = starts.length - 1;
+            int candidate = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (Integer.toUnsignedLong(starts[mid]) <= ip) {
+                    candidate = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            if (candidate >= 0 && ip <= Integer.toUnsignedLong(ends[candidate])) {
+                return locations[locationIndexes[candidate]];
+            }
+            return UNKNOWN;
+        }
+
+        static final class Builder {
+            private int[] starts = new int[1 << 16];
+            private int[] ends = new int[1 << 16];
+            private int[] locationIndexes = new int[1 << 16];
+            private final Map<String, Integer> locationIds = new HashMap<>();
+            private final List<String> locations = new ArrayList<>();
+            private int size;
+            private boolean sorted = true;
+
+            void add(long from, long to, String location) {
+                if (size == starts.length) {
+                    int capacity = size * 2;
+                    starts = Arrays.copyOf(starts, capacity);
+                    ends = Arrays.copyOf(ends, capacity);
+                    locationIndexes = Arrays.copyOf(locationIndexes, capacity);
+                }
+                if (size > 0 && Integer.toUnsignedLong(starts[size - 1]) > from) {
+                    sorted = false;
+                }
+                starts[size] = (int) from;
+                ends[size] = (int) to;
+                locationIndexes[size] = locationIds.computeIfAbsent(location, key -> {
+                    locations.add(key);
+                    return locations.size() - 1;
+                });
+                size++;
+            }
+
+            RangeTable build() {
+                int[] s = Arrays.copyOf(starts, size);
+                int[] e = Arrays.copyOf(ends, size);
+                int[] l = Arrays.copyOf(locationIndexes, size);
+                if (!sorted) {
+                    Integer[] order = new Integer[size];
+                    for (int i = 0; i < size; i++) order[i] = i;
+                    Arrays.sort(order, Comparator.comparingLong(i -> Integer.toUnsignedLong(s[i])));
+                    int[] sortedStarts = new int[size];
+                    int[] sortedEnds = new int[size];
+                    int[] sortedLocations = new int[size];
+                    for (int i = 0; i < size; i++) {
+                        sortedStarts[i] = s[order[i]];
+                        sortedEnds[i] = e[order[i]];
+                        sortedLocations[i] = l[order[i]];
+                    }
+                    return new RangeTable(sortedStarts, sortedEnds, sortedLocations, locations.toArray(new String[0]));
+                }
+                return new RangeTable(s, e, l, locations.toArray(new String[0]));
+            }
+        }
+    }
+}
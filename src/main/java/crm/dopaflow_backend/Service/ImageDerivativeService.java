@@ -0,0 +1,271 @@
+package crm.dopaflow_backend.Service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Builds fixed-size JPEG thumbnails of uploaded photos (by default 48, 128 and 512 px on the longer side,
+ * never upscaled) on a small background pool, stored next to the original as "<original>.<size>.jpg".
+ * A photo at /contact-photos/c1_photo.png is then served at 128 px by /contact-photos/c1_photo.png.128.jpg.
+ *
+ * Until a derivative exists (upload still being processed, or photos uploaded before derivatives existed)
+ * FileController serves the original instead and requests the derivatives.
+ * Large originals are decoded with source subsampling, so a 24 MP photo never has to be fully decoded.
+ */
+@Service
+public class ImageDerivativeService {
+    private static final Logger logger = LoggerFactory.getLogger(ImageDerivativeService.class);
+    private static final Pattern DERIVATIVE_NAME = Pattern.compile("^(.+)\\.(\\d+)\\.jpg$");
+
+    private final List<Integer> sizes;
+    private final float jpegQuality;
+    private final long maxSourcePixels;
+    private final ThreadPoolExecutor executor;
+    private final Set<Path> pending = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public ImageDerivativeService(@Value("${images.derivatives.sizes:48,128,512}") List<Integer> sizes,
+                                  @Value("${images.derivatives.jpeg-quality:0.8}") float jpegQuality,
+                                  @Value("${images.derivatives.max-source-pixels:100000000}") long maxSourcePixels,
+                                  @Value("${images.derivatives.threads:1}") int threads,
+                                  @Value("${images.derivatives.queue-capacity:200}") int queueCapacity) {
+        this.sizes = sizes.stream().sorted().distinct().toList();
+        this.jpegQuality = jpegQuality;
+        this.maxSourcePixels = maxSourcePixels;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-derivatives-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public List<Integer> getSizes() {
+        return sizes;
+    }
+
+    // "/contact-photos/c1_photo.png" -> {48: "/contact-photos/c1_photo.png.48.jpg", ...}
+    public Map<Integer, String> derivativeUrls(String originalUrl) {
+        Map<Integer, String> urls = new LinkedHashMap<>();
+        for (int size : sizes) {
+            urls.put(size, derivativeName(originalUrl, size));
+        }
+        return urls;
+    }
+
+    public static String derivativeName(String original, int size) {
+        return original + "." + size + ".jpg";
+    }
+
+    /**
+     * The original a derivative name refers to ("a/b.png.128.jpg" -> "a/b.png"), null if the name is not
+     * one of the configured derivative sizes.
+     */
+    public String originalOf(String derivativeName) {
+        Matcher matcher = DERIVATIVE_NAME.matcher(derivativeName);
+        if (!matcher.matches()) {
+            return null;
+        }
+        try {
+            return sizes.contains(Integer.parseInt(matcher.group(2))) ? matcher.group(1) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Queues the generation of the missing derivatives of an uploaded file. Never blocks: when the queue is full
+     * the request is dropped, the original keeps being served and the derivatives are requested again on access.
+     */
+    public void generateAsync(Path original) {
+        Path key = original.toAbsolutePath().normalize();
+        if (!pending.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(key);
+                } finally {
+                    pending.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(key);
+            rejected.increment();
+            logger.warn("Image derivative queue full, skipped {}", key.getFileName());
+        }
+    }
+
+    public void deleteDerivatives(Path original) {
+        for (int size : sizes) {
+            try {
+                Files.deleteIfExists(original.resolveSibling(derivativeName(original.getFileName().toString(), size)));
+            } catch (IOException e) {
+                logger.warn("Failed to delete derivative of {}: {}", original.getFileName(), e.getMessage());
+            }
+        }
+    }
+
+    private void generate(Path original) {
+        // Derivatives of derivatives are never built
+        if (!Files.isRegularFile(original) || originalOf(original.getFileName().toString()) != null) {
+            return;
+        }
+        List<Integer> missing = sizes.stream()
+                .filter(size -> !Files.exists(original.resolveSibling(derivativeName(original.getFileName().toString(), size))))
+                .toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            BufferedImage source = read(original, missing.get(missing.size() - 1));
+            if (source == null) {
+                return; // not an image ImageIO can decode, the original stays the only version
+            }
+            for (int size : missing) {
+                write(resize(source, size), original.resolveSibling(derivativeName(original.getFileName().toString(), size)));
+                generated.increment();
+            }
+            logger.debug("Generated {} derivatives of {} in {} ms", missing.size(), original.getFileName(),
+                    System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            failed.increment();
+            logger.warn("Failed to generate derivatives of {}: {}", original.getFileName(), e.getMessage());
+        }
+    }
+
+    // Decodes with the coarsest subsampling that still leaves at least twice the largest size on the longer side
+    private BufferedImage read(Path file, int largestSize) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxSourcePixels) {
+                    throw new IOException("image too large: " + width + "x" + height);
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, Math.max(width, height) / (largestSize * 2));
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Fits the longer side into size (never upscaling), flattening transparency onto white for JPEG.
+    // Halves with bilinear steps first: a single large bilinear step aliases badly.
+    private static BufferedImage resize(BufferedImage source, int size) {
+        double scale = Math.min(1.0, (double) size / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage step = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = step;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    // Written to a temporary file and moved into place, so a derivative is never served half-written
+    private void write(BufferedImage image, Path target) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), ".derivative", ".tmp");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            try (ImageOutputStream output = ImageIO.createImageOutputStream(temp.toFile())) {
+                writer.setOutput(output);
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+                param.setProgressiveMode(ImageWriteParam.MODE_DISABLED);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sizes", sizes);
+        stats.put("queued", executor.getQueue().size());
+        stats.put("active", executor.getActiveCount());
+        stats.put("generated", generated.sum());
+        stats.put("failed", failed.sum());
+        stats.put("rejected", rejected.sum());
+        return stats;
+    }
+}
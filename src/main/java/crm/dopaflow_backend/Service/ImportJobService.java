@@ -0,0 +1,632 @@
+package crm.dopaflow_backend.Service;
+
+import crm.dopaflow_backend.Model.Company;
+import crm.dopaflow_backend.Model.Contact;
+import crm.dopaflow_backend.Model.ImportJob;
+import crm.dopaflow_backend.Model.ImportJobStatus;
+import crm.dopaflow_backend.Model.ImportJobType;
+import crm.dopaflow_backend.Repository.ImportJobRepository;
+import crm.dopaflow_backend.Security.TooManyRequestsException;
+import crm.dopaflow_backend.Utils.CompanyRowMapper;
+import crm.dopaflow_backend.Utils.ContactRowMapper;
+import crm.dopaflow_backend.Utils.DuplicateMatcher;
+import crm.dopaflow_backend.Utils.ImportFileReader;
+import crm.dopaflow_backend.Utils.ProgressTracker;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Runs contact and company imports in the background on a small bounded pool, so an upload only holds
+ * its request thread while the file is copied to disk. Each import is an ImportJob row: status, progress
+ * and counts are saved while it runs, and progress events are pushed (at most every
+ * import.jobs.progress-interval-ms) to /topic/import-progress/{sessionId} and to the job's SSE subscribers.
+ *
+ * A full queue is rejected with a TooManyRequestsException (HTTP 429). Cancellation is checked on every
+ * row: a queued job never starts, a running contact import keeps the chunks it already committed.
+ */
+@Service
+public class ImportJobService {
+    private static final Logger logger = LoggerFactory.getLogger(ImportJobService.class);
+    private static final List<ImportJobStatus> UNFINISHED = List.of(ImportJobStatus.QUEUED, ImportJobStatus.RUNNING);
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final ImportJobRepository importJobRepository;
+    private final ContactImportService contactImportService;
+    private final CompanyService companyService;
+    private final CopyImportService copyImportService;
+    private final DuplicateMatcherService duplicateMatcherService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ThreadPoolExecutor executor;
+    private final long progressIntervalMillis;
+    private final long sseTimeoutMillis;
+    private final Path workDir;
+
+    // Jobs queued or running on this instance, by id
+    private final Map<String, RunningJob> runningJobs = new ConcurrentHashMap<>();
+    // SSE subscribers that connected with a session id before the job was submitted
+    private final Map<String, List<SessionSubscriber>> pendingSessionEmitters = new ConcurrentHashMap<>();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+
+    public ImportJobService(ImportJobRepository importJobRepository,
+                            ContactImportService contactImportService,
+                            CompanyService companyService,
+                            CopyImportService copyImportService,
+                            DuplicateMatcherService duplicateMatcherService,
+                            SimpMessagingTemplate messagingTemplate,
+                            @Value("${import.jobs.threads:2}") int threads,
+                            @Value("${import.jobs.queue-capacity:10}") int queueCapacity,
+                            @Value("${import.jobs.progress-interval-ms:500}") long progressIntervalMillis,
+                            @Value("${import.jobs.sse-timeout-ms:1800000}") long sseTimeoutMillis,
+                            @Value("${import.jobs.work-dir:uploads/import-jobs/}") String workDir) {
+        this.importJobRepository = importJobRepository;
+        this.contactImportService = contactImportService;
+        this.companyService = companyService;
+        this.copyImportService = copyImportService;
+        this.duplicateMatcherService = duplicateMatcherService;
+        this.messagingTemplate = messagingTemplate;
+        this.progressIntervalMillis = progressIntervalMillis;
+        this.sseTimeoutMillis = sseTimeoutMillis;
+        this.workDir = Paths.get(workDir).toAbsolutePath();
+        int poolSize = Math.max(1, threads);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "import-job-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        Files.createDirectories(workDir);
+        // Jobs left queued or running by a previous run will never finish, and their uploads are orphaned
+        int orphaned = importJobRepository.failUnfinished(UNFINISHED, ImportJobStatus.FAILED,
+                "Interrupted by a server restart", LocalDateTime.now());
+        try (DirectoryStream<Path> uploads = Files.newDirectoryStream(workDir, "*.upload")) {
+            for (Path upload : uploads) {
+                Files.deleteIfExists(upload);
+            }
+        }
+        if (orphaned > 0) {
+            logger.warn("Marked {} unfinished import jobs as failed", orphaned);
+        }
+    }
+
+    /**
+     * @param selectedColumns contact fields to import, null or empty for all of them
+     * @param bulkCopy load through COPY and a set-based merge (see CopyImportService) instead of JPA batches
+     * @throws TooManyRequestsException if the import queue is full
+     */
+    public ImportJob submitContactImport(MultipartFile file, String fileType, boolean updateExisting, boolean bulkCopy,
+                                         List<String> selectedColumns, String sessionId, String createdBy) throws IOException {
+        return submit(ImportJobType.CONTACTS, file, fileType, updateExisting, bulkCopy, sessionId, createdBy,
+                running -> {
+                    if (bulkCopy) {
+                        copyContacts(running, fileType, updateExisting, selectedColumns);
+                    } else {
+                        importContacts(running, fileType, updateExisting, selectedColumns);
+                    }
+                });
+    }
+
+    /**
+     * @param columnsToInclude lowercase headers selected for import, null to import every column
+     * @param bulkCopy load through COPY and a set-based merge (see CopyImportService) instead of JPA
+     * @throws TooManyRequestsException if the import queue is full
+     */
+    public ImportJob submitCompanyImport(MultipartFile file, String fileType, boolean updateExisting, boolean bulkCopy,
+                                         List<String> columnsToInclude, String sessionId, String createdBy) throws IOException {
+        return submit(ImportJobType.COMPANIES, file, fileType, updateExisting, bulkCopy, sessionId, createdBy,
+                running -> {
+                    if (bulkCopy) {
+                        copyCompanies(running, fileType, updateExisting, columnsToInclude);
+                    } else {
+                        importCompanies(running, fileType, updateExisting, columnsToInclude);
+                    }
+                });
+    }
+
+    private ImportJob submit(ImportJobType type, MultipartFile file, String fileType, boolean updateExisting,
+                             boolean bulkCopy, String sessionId, String createdBy, JobBody body) throws IOException {
+        if (!"csv".equalsIgnoreCase(fileType) && !"excel".equalsIgnoreCase(fileType)) {
+            throw new IllegalArgumentException("Invalid file type. Use 'csv' or 'excel'.");
+        }
+        ImportJob job = ImportJob.builder()
+                .id(UUID.randomUUID().toString())
+                .type(type)
+                .status(ImportJobStatus.QUEUED)
+                .fileName(file.getOriginalFilename())
+                .fileType(fileType.toLowerCase(Locale.ROOT))
+                .fileSize(file.getSize())
+                .updateExisting(updateExisting)
+                .bulkCopy(bulkCopy)
+                .createdBy(createdBy)
+                .sessionId(sessionId != null && !sessionId.isBlank() ? sessionId : null)
+                .createdAt(LocalDateTime.now())
+                .build();
+
+        // The multipart temp file is deleted when the request ends, the job reads its own copy
+        Path upload = workDir.resolve(job.getId() + ".upload");
+        try (InputStream in = file.getInputStream()) {
+            Files.copy(in, upload);
+        }
+        importJobRepository.save(job);
+
+        RunningJob running = new RunningJob(job, upload, body);
+        if (job.getSessionId() != null) {
+            List<SessionSubscriber> waiting = pendingSessionEmitters.remove(job.getSessionId());
+            if (waiting != null) {
+                for (SessionSubscriber subscriber : waiting) {
+                    if (subscriber.canAccess(job)) {
+                        register(subscriber.emitter(), running.emitters);
+                    } else {
+                        subscriber.emitter().complete();
+                    }
+                }
+            }
+        }
+        runningJobs.put(job.getId(), running);
+        try {
+            running.future = executor.submit(() -> run(running));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            runningJobs.remove(job.getId());
+            deleteUpload(running);
+            importJobRepository.delete(job);
+            running.emitters.forEach(SseEmitter::complete);
+            throw new TooManyRequestsException("Too many imports in progress, try again later", 30);
+        }
+        submitted.increment();
+        logger.info("Queued {} import job {} ({}, {} bytes) for {}", type, job.getId(), job.getFileName(), job.getFileSize(), createdBy);
+        return job.toBuilder().build();
+    }
+
+    private void run(RunningJob running) {
+        try {
+            synchronized (running) {
+                if (running.cancelRequested.get()) {
+                    finish(running, ImportJobStatus.CANCELLED, "Cancelled before it started");
+                    return;
+                }
+                running.job.setStatus(ImportJobStatus.RUNNING);
+                running.job.setStartedAt(LocalDateTime.now());
+            }
+            publish(running);
+            running.body.run(running);
+            finish(running, ImportJobStatus.COMPLETED, null);
+        } catch (Exception e) {
+            if (isCancellation(e)) {
+                finish(running, ImportJobStatus.CANCELLED, "Cancelled by user");
+            } else {
+                logger.error("Import job {} failed", running.job.getId(), e);
+                finish(running, ImportJobStatus.FAILED, e.getMessage() != null ? e.getMessage() : e.toString());
+            }
+        } finally {
+            deleteUpload(running);
+        }
+    }
+
+    // Rows are imported while the file is read, in chunks committed one by one (see ContactImportService)
+    private void importContacts(RunningJob running, String fileType, boolean updateExisting,
+                                List<String> selectedColumns) throws IOException {
+        ContactImportService.ChunkedImport chunkedImport = contactImportService.start(updateExisting);
+        DuplicateMatcher matcher = duplicateMatcherService.contactMatcher();
+        try (InputStream in = Files.newInputStream(running.upload)) {
+            ContactRowMapper mapper = ImportFileReader.readContacts(in, Files.size(running.upload), fileType, row -> {
+                // Keep only the selected columns if provided
+                Contact contact = selectedColumns != null && !selectedColumns.isEmpty()
+                        ? ContactRowMapper.selectColumns(row.contact(), selectedColumns)
+                        : row.contact();
+                if (contact != null) {
+                    match(running, matcher, chunkedImport.getRowCount(), contact);
+                    chunkedImport.add(contact);
+                }
+            }, fraction -> running.progress(fraction * 100, chunkedImport.getRowCount(), chunkedImport.getResult()));
+            running.unmappedFields(mapper.getUnmappedFields());
+            chunkedImport.finish();
+        } finally {
+            // Also on failure or cancellation, the chunks committed so far stay imported
+            running.progress(running.currentProgress(), chunkedImport.getRowCount(), chunkedImport.getResult(), false);
+        }
+    }
+
+    // Reading the file counts for the first half of the progress, saving the companies for the second
+    private void importCompanies(RunningJob running, String fileType, boolean updateExisting,
+                                 List<String> columnsToInclude) throws IOException {
+        List<Company> companies = new ArrayList<>();
+        DuplicateMatcher matcher = duplicateMatcherService.companyMatcher();
+        CompanyRowMapper mapper;
+        try (InputStream in = Files.newInputStream(running.upload)) {
+            mapper = ImportFileReader.readCompanies(in, Files.size(running.upload), fileType, columnsToInclude, company -> {
+                match(running, matcher, companies.size(), company);
+                companies.add(company);
+            }, fraction -> running.progress(fraction * 50, companies.size(), null));
+        }
+        running.unmappedFields(mapper.getUnmappedFields());
+
+        ProgressTracker progressTracker = new ProgressTracker(
+                percentage -> running.progress(50 + percentage / 2, companies.size(), null));
+        ImportResult<Company> importResult = companyService.bulkImportCompanies(companies, updateExisting, progressTracker);
+        running.progress(100, companies.size(), importResult, false);
+    }
+
+    // Reading and COPYing the rows counts for 90% of the progress, the merge for the rest. All or nothing:
+    // a failure or cancellation rolls the whole load back.
+    private void copyContacts(RunningJob running, String fileType, boolean updateExisting,
+                              List<String> selectedColumns) {
+        long[] rows = {0};
+        DuplicateMatcher matcher = duplicateMatcherService.contactMatcher();
+        ImportResult<Contact> importResult = copyImportService.copyContacts(sink -> {
+            try (InputStream in = Files.newInputStream(running.upload)) {
+                ContactRowMapper mapper = ImportFileReader.readContacts(in, Files.size(running.upload), fileType, row -> {
+                    Contact contact = selectedColumns != null && !selectedColumns.isEmpty()
+                            ? ContactRowMapper.selectColumns(row.contact(), selectedColumns)
+                            : row.contact();
+                    if (contact != null) {
+                        match(running, matcher, (int) rows[0]++, contact);
+                        sink.accept(contact);
+                    }
+                }, fraction -> running.progress(fraction * 90, rows[0], null));
+                running.unmappedFields(mapper.getUnmappedFields());
+            }
+        }, updateExisting);
+        running.progress(100, rows[0], importResult, false);
+    }
+
+    private void copyCompanies(RunningJob running, String fileType, boolean updateExisting,
+                               List<String> columnsToInclude) {
+        long[] rows = {0};
+        DuplicateMatcher matcher = duplicateMatcherService.companyMatcher();
+        ImportResult<Company> importResult = copyImportService.copyCompanies(sink -> {
+            try (InputStream in = Files.newInputStream(running.upload)) {
+                CompanyRowMapper mapper = ImportFileReader.readCompanies(in, Files.size(running.upload), fileType, columnsToInclude,
+                        company -> {
+                            match(running, matcher, (int) rows[0]++, company);
+                            sink.accept(company);
+                        }, fraction -> running.progress(fraction * 90, rows[0], null));
+                running.unmappedFields(mapper.getUnmappedFields());
+            }
+        }, updateExisting);
+        running.progress(100, rows[0], importResult, false);
+    }
+
+    // Case and spacing variants of an existing (or earlier) email become that email, so the import updates
+    // the contact instead of creating a duplicate. Probable duplicates are imported and counted on the job.
+    private static void match(RunningJob running, DuplicateMatcher matcher, int row, Contact contact) {
+        DuplicateMatcher.Match match = matcher.matchContact(row, contact.getName(), contact.getEmail(), contact.getPhone());
+        contact.setEmail(matcher.resolveEmail(contact.getEmail()));
+        running.matched(match);
+    }
+
+    // Same for companies, which the import matches by name
+    private static void match(RunningJob running, DuplicateMatcher matcher, int row, Company company) {
+        DuplicateMatcher.Match match = matcher.matchCompany(row, company.getName(), company.getEmail(), company.getPhone());
+        company.setName(matcher.resolveCompanyName(company.getName()));
+        running.matched(match);
+    }
+
+    private void finish(RunningJob running, ImportJobStatus status, String errorMessage) {
+        synchronized (running) {
+            running.job.setStatus(status);
+            running.job.setFinishedAt(LocalDateTime.now());
+            if (status == ImportJobStatus.COMPLETED) {
+                running.job.setProgress(100);
+            }
+            if (errorMessage != null) {
+                running.job.setErrorMessage(errorMessage.length() > MAX_ERROR_LENGTH
+                        ? errorMessage.substring(0, MAX_ERROR_LENGTH) : errorMessage);
+            }
+        }
+        switch (status) {
+            case COMPLETED -> completed.increment();
+            case FAILED -> failed.increment();
+            default -> cancelled.increment();
+        }
+        try {
+            publish(running);
+        } finally {
+            runningJobs.remove(running.job.getId());
+            running.emitters.forEach(SseEmitter::complete);
+        }
+        logger.info("Import job {} {}: {} rows, {} created, {} updated, {} skipped", running.job.getId(), status,
+                running.job.getProcessedRows(), running.job.getCreated(), running.job.getUpdated(), running.job.getSkipped());
+    }
+
+    // Saves the job and pushes its state to the STOMP topic and the SSE subscribers
+    private void publish(RunningJob running) {
+        ImportJob snapshot = running.snapshot();
+        importJobRepository.save(snapshot);
+        Map<String, Object> event = progressEvent(snapshot);
+        if (snapshot.getSessionId() != null) {
+            messagingTemplate.convertAndSend("/topic/import-progress/" + snapshot.getSessionId(), event);
+        }
+        for (SseEmitter emitter : running.emitters) {
+            send(emitter, event, running.emitters);
+        }
+    }
+
+    private static Map<String, Object> progressEvent(ImportJob job) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("jobId", job.getId());
+        event.put("type", job.getType());
+        event.put("status", job.getStatus());
+        event.put("progress", job.getProgress());
+        event.put("processedRows", job.getProcessedRows());
+        event.put("created", job.getCreated());
+        event.put("updated", job.getUpdated());
+        event.put("skipped", job.getSkipped());
+        event.put("probableDuplicates", job.getProbableDuplicates());
+        if (job.getErrorMessage() != null) {
+            event.put("error", job.getErrorMessage());
+        }
+        return event;
+    }
+
+    private static void send(SseEmitter emitter, Map<String, Object> event, List<SseEmitter> emitters) {
+        try {
+            emitter.send(SseEmitter.event().name("progress").data(event));
+        } catch (IOException | IllegalStateException e) {
+            // Client went away
+            emitters.remove(emitter);
+        }
+    }
+
+    /**
+     * Streams the job's progress events, starting with its current state. Completes once the job has finished.
+     */
+    public SseEmitter subscribe(String jobId) {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMillis);
+        RunningJob running = runningJobs.get(jobId);
+        ImportJob job;
+        if (running != null) {
+            synchronized (running) {
+                job = running.snapshot();
+                if (!job.isFinished()) {
+                    register(emitter, running.emitters);
+                }
+            }
+        } else {
+            job = importJobRepository.findById(jobId).orElse(null);
+        }
+        if (job != null) {
+            send(emitter, progressEvent(job), new ArrayList<>());
+        }
+        if (job == null || job.isFinished()) {
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    /**
+     * Same as subscribe for the latest job submitted with this session id, empty if that job belongs to another
+     * user (admins see every job). A client may connect before submitting the upload, the emitter is then
+     * attached to the job once it is queued, if the job is the subscriber's.
+     */
+    public Optional<SseEmitter> subscribeBySession(String sessionId, String username, boolean admin) {
+        Optional<ImportJob> job = runningJobs.values().stream()
+                .filter(running -> sessionId.equals(running.job.getSessionId()))
+                .map(RunningJob::snapshot)
+                .findFirst()
+                .or(() -> importJobRepository.findFirstBySessionIdOrderByCreatedAtDesc(sessionId));
+        if (job.isPresent()) {
+            // Finished jobs are answered with their final state right away
+            return job.filter(found -> admin || found.getCreatedBy().equals(username)).map(found -> subscribe(found.getId()));
+        }
+        SessionSubscriber subscriber = new SessionSubscriber(new SseEmitter(sseTimeoutMillis), username, admin);
+        pendingSessionEmitters.compute(sessionId, (id, subscribers) -> {
+            List<SessionSubscriber> list = subscribers != null ? subscribers : new CopyOnWriteArrayList<>();
+            list.add(subscriber);
+            return list;
+        });
+        // Session ids that never get a job must not keep their entry
+        Runnable unregister = () -> pendingSessionEmitters.computeIfPresent(sessionId, (id, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+        subscriber.emitter().onCompletion(unregister);
+        subscriber.emitter().onTimeout(unregister);
+        subscriber.emitter().onError(e -> unregister.run());
+        return Optional.of(subscriber.emitter());
+    }
+
+    private record SessionSubscriber(SseEmitter emitter, String username, boolean admin) {
+        boolean canAccess(ImportJob job) {
+            return admin || job.getCreatedBy().equals(username);
+        }
+    }
+
+    private static void register(SseEmitter emitter, List<SseEmitter> emitters) {
+        emitters.add(emitter);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+    }
+
+    /**
+     * Requests cancellation. A queued job is cancelled right away, a running one stops at the next row.
+     * @return the job's current state, empty if it does not exist
+     */
+    public Optional<ImportJob> cancel(String jobId) {
+        RunningJob running = runningJobs.get(jobId);
+        if (running == null) {
+            return importJobRepository.findById(jobId);
+        }
+        boolean queued;
+        synchronized (running) {
+            running.cancelRequested.set(true);
+            queued = running.job.getStatus() == ImportJobStatus.QUEUED;
+        }
+        // Still in the executor queue: it will never run, so finish it here. Otherwise run() sees the flag.
+        if (queued && running.future instanceof Runnable task && executor.remove(task)) {
+            try {
+                finish(running, ImportJobStatus.CANCELLED, "Cancelled before it started");
+            } finally {
+                deleteUpload(running);
+            }
+        }
+        return Optional.of(running.snapshot());
+    }
+
+    // The in-memory state is fresher than the last saved progress while the job runs
+    public Optional<ImportJob> getJob(String jobId) {
+        RunningJob running = runningJobs.get(jobId);
+        return running != null ? Optional.of(running.snapshot()) : importJobRepository.findById(jobId);
+    }
+
+    public List<ImportJob> listJobs(String createdBy, int limit) {
+        return importJobRepository.findByCreatedByOrderByCreatedAtDesc(createdBy, PageRequest.of(0, Math.max(1, Math.min(limit, 100))))
+                .stream()
+                .map(job -> {
+                    RunningJob running = runningJobs.get(job.getId());
+                    return running != null ? running.snapshot() : job;
+                })
+                .collect(Collectors.toList());
+    }
+
+    private void deleteUpload(RunningJob running) {
+        try {
+            Files.deleteIfExists(running.upload);
+        } catch (IOException e) {
+            logger.warn("Could not delete import upload {}: {}", running.upload, e.getMessage());
+        }
+    }
+
+    private static boolean isCancellation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CancellationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        runningJobs.values().forEach(running -> running.cancelRequested.set(true));
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Import job pool stopped");
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("poolSize", executor.getMaximumPoolSize());
+        stats.put("activeThreads", executor.getActiveCount());
+        stats.put("queueDepth", executor.getQueue().size());
+        stats.put("queueRemainingCapacity", executor.getQueue().remainingCapacity());
+        stats.put("submitted", submitted.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("completed", completed.sum());
+        stats.put("failed", failed.sum());
+        stats.put("cancelled", cancelled.sum());
+        stats.put("sseSubscribers", runningJobs.values().stream().mapToInt(running -> running.emitters.size()).sum());
+        return stats;
+    }
+
+    @FunctionalInterface
+    private interface JobBody {
+        void run(RunningJob running) throws IOException;
+    }
+
+    /**
+     * A queued or running job. The job entity is only modified under the RunningJob lock, readers get copies.
+     */
+    private final class RunningJob {
+        final ImportJob job;
+        final Path upload;
+        final JobBody body;
+        final AtomicBoolean cancelRequested = new AtomicBoolean();
+        final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        volatile Future<?> future;
+        private long lastPublishedAt;
+
+        RunningJob(ImportJob job, Path upload, JobBody body) {
+            this.job = job;
+            this.upload = upload;
+            this.body = body;
+        }
+
+        synchronized ImportJob snapshot() {
+            return job.toBuilder().build();
+        }
+
+        synchronized double currentProgress() {
+            return job.getProgress();
+        }
+
+        synchronized void matched(DuplicateMatcher.Match match) {
+            if (match.type() == DuplicateMatcher.MatchType.PROBABLE_MATCH) {
+                job.setProbableDuplicates(job.getProbableDuplicates() + 1);
+            }
+        }
+
+        synchronized void unmappedFields(Set<String> fields) {
+            job.setUnmappedFields(fields.isEmpty() ? null : String.join(", ", fields));
+        }
+
+        // Called from the import loop: stops the import if cancelled, publishes at most every progressIntervalMillis
+        void progress(double percentage, long processedRows, ImportResult<?> counts) {
+            if (cancelRequested.get() || Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Import cancelled");
+            }
+            progress(percentage, processedRows, counts, true);
+        }
+
+        void progress(double percentage, long processedRows, ImportResult<?> counts, boolean throttled) {
+            synchronized (this) {
+                job.setProgress(Math.min(100.0, Math.max(0.0, percentage)));
+                job.setProcessedRows(processedRows);
+                if (counts != null) {
+                    job.setCreated(counts.getCreated());
+                    job.setUpdated(counts.getUpdated());
+                    job.setSkipped(counts.getSkipped());
+                }
+                long now = System.currentTimeMillis();
+                if (throttled && now - lastPublishedAt < progressIntervalMillis) {
+                    return;
+                }
+                lastPublishedAt = now;
+            }
+            if (throttled) {
+                publish(this);
+            }
+        }
+    }
+}
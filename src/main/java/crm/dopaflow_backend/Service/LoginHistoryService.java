@@ -0,0 +1,167 @@
+package crm.dopaflow_backend.Service;
+
+import crm.dopaflow_backend.Model.LoginHistory;
+import crm.dopaflow_backend.Repository.LoginHistoryRepository;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cursor-paged access to a user's login history, plus the retention job that moves rows older than
+ * the retention window out of login_history into monthly gzip CSV archives.
+ */
+@Service
+public class LoginHistoryService {
+    private static final Logger logger = LoggerFactory.getLogger(LoginHistoryService.class);
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private final LoginHistoryRepository loginHistoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${login-history.retention.months:6}")
+    private int retentionMonths;
+
+    @Value("${login-history.retention.batch-size:5000}")
+    private int archiveBatchSize;
+
+    @Value("${login-history.archive.dir:uploads/archive/login-history/}")
+    private String archiveDir;
+
+    public LoginHistoryService(LoginHistoryRepository loginHistoryRepository, JdbcTemplate jdbcTemplate) {
+        this.loginHistoryRepository = loginHistoryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Returns one page of login history, newest first. The cursor is the opaque "nextCursor"
+     * of the previous page; null or empty starts from the most recent login.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getLoginHistoryPage(Long userId, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        PageRequest limit = PageRequest.ofSize(pageSize + 1); // one extra row tells us if there is a next page
+        Long lastId = decodeCursor(cursor);
+        List<LoginHistory> rows = lastId == null
+                ? loginHistoryRepository.findByUserIdOrderByIdDesc(userId, limit)
+                : loginHistoryRepository.findByUserIdAndIdLessThanOrderByIdDesc(userId, lastId, limit);
+
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+        List<Map<String, Object>> items = new ArrayList<>(rows.size());
+        for (LoginHistory history : rows) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("ipAddress", history.getIpAddress());
+            item.put("location", history.getLocation() != null ? history.getLocation() : "Unknown");
+            item.put("deviceInfo", history.getDeviceInfo() != null ? history.getDeviceInfo() : "Unknown");
+            item.put("loginTime", history.getLoginTime());
+            items.add(item);
+        }
+
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("items", items);
+        page.put("size", items.size());
+        page.put("hasMore", hasMore);
+        page.put("nextCursor", hasMore ? encodeCursor(rows.get(rows.size() - 1).getId()) : null);
+        return page;
+    }
+
+    @Transactional
+    public void deleteLoginHistoryForUser(Long userId) {
+        loginHistoryRepository.deleteByUserId(userId);
+    }
+
+    /**
+     * Moves login history older than the retention window into uploads/archive/login-history/
+     * (one gzip CSV per month, appended to as new gzip members) and deletes the archived rows.
+     * Rows are only deleted after their archive file has been written and closed.
+     */
+    @Scheduled(cron = "${login-history.retention.cron:0 30 3 * * *}")
+    public void archiveExpiredLoginHistory() {
+        if (retentionMonths <= 0) return;
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusMonths(retentionMonths));
+        int archived = 0;
+        try {
+            Files.createDirectories(Paths.get(archiveDir));
+            while (true) {
+                List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                        "SELECT id, user_id, ip_address, location, device_info, login_time FROM login_history " +
+                                "WHERE login_time < ? ORDER BY id LIMIT ?", cutoff, archiveBatchSize);
+                if (rows.isEmpty()) break;
+
+                Map<String, List<Map<String, Object>>> byMonth = new TreeMap<>();
+                for (Map<String, Object> row : rows) {
+                    Timestamp loginTime = (Timestamp) row.get("login_time");
+                    byMonth.computeIfAbsent(loginTime.toLocalDateTime().format(MONTH_FORMAT), key -> new ArrayList<>()).add(row);
+                }
+                for (Map.Entry<String, List<Map<String, Object>>> month : byMonth.entrySet()) {
+                    appendToArchive(month.getKey(), month.getValue());
+                }
+
+                List<Object[]> ids = rows.stream().map(row -> new Object[]{row.get("id")}).toList();
+                jdbcTemplate.batchUpdate("DELETE FROM login_history WHERE id = ?", ids);
+                archived += rows.size();
+                if (rows.size() < archiveBatchSize) break;
+            }
+            if (archived > 0) {
+                logger.info("Archived {} login history rows older than {}", archived, cutoff);
+            }
+        } catch (IOException e) {
+            logger.error("Login history archiving stopped after {} rows: {}", archived, e.getMessage());
+        }
+    }
+
+    private void appendToArchive(String month, List<Map<String, Object>> rows) throws IOException {
+        Path file = Paths.get(archiveDir, "login-history-" + month + ".csv.gz");
+        boolean newFile = !Files.exists(file);
+        // Concatenated gzip members are a valid gzip stream, so appending never rewrites older data
+        try (OutputStream out = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+             GZIPOutputStream gzip = new GZIPOutputStream(out, 64 * 1024);
+             CSVPrinter printer = new CSVPrinter(new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8)), CSVFormat.DEFAULT)) {
+            if (newFile) {
+                printer.printRecord("id", "user_id", "ip_address", "location", "device_info", "login_time");
+            }
+            for (Map<String, Object> row : rows) {
+                printer.printRecord(row.get("id"), row.get("user_id"), row.get("ip_address"),
+                        row.get("location"), row.get("device_info"), row.get("login_time"));
+            }
+        }
+    }
+
+    private String encodeCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(String.valueOf(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package crm.dopaflow_backend.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Takes login events off the login request path: events are put on a bounded queue and a single
+ * background thread persists them to login_history in JDBC batches. The location is resolved by the
+ * writer too, so the login thread only pays for a queue offer. The queue is drained on shutdown.
+ */
+@Service
+public class LoginHistoryWriter {
+    private static final Logger logger = LoggerFactory.getLogger(LoginHistoryWriter.class);
+    private static final String INSERT_SQL =
+            "INSERT INTO login_history (user_id, ip_address, location, device_info, login_time) VALUES (?, ?, ?, ?, ?)";
+
+    public record LoginEvent(Long userId, String ipAddress, String deviceInfo, Date loginTime) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final GeoIpService geoIpService;
+    private final BlockingQueue<LoginEvent> queue;
+    private final int batchSize;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private volatile boolean running = true;
+    private Thread worker;
+
+    public LoginHistoryWriter(JdbcTemplate jdbcTemplate,
+                              GeoIpService geoIpService,
+                              @Value("${login-history.queue-capacity:10000}") int queueCapacity,
+                              @Value("${login-history.batch-size:200}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.geoIpService = geoIpService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    void start() {
+        worker = new Thread(this::run, "login-history-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Queues a login event without blocking. Returns false (and counts a drop) if the queue is full.
+     */
+    public boolean record(Long userId, String ipAddress, String deviceInfo, Date loginTime) {
+        if (queue.offer(new LoginEvent(userId, ipAddress != null ? ipAddress : "Unknown", deviceInfo, loginTime))) {
+            enqueued.increment();
+            return true;
+        }
+        dropped.increment();
+        logger.warn("Login history queue full, dropping login event for user {}", userId);
+        return false;
+    }
+
+    private void run() {
+        List<LoginEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                LoginEvent first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<LoginEvent> batch) {
+        try {
+            List<String> locations = new ArrayList<>(batch.size());
+            for (LoginEvent event : batch) {
+                locations.add(geoIpService.resolveCity(event.ipAddress()));
+            }
+            jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    LoginEvent event = batch.get(i);
+                    ps.setLong(1, event.userId());
+                    ps.setString(2, event.ipAddress());
+                    ps.setString(3, locations.get(i));
+                    ps.setString(4, event.deviceInfo());
+                    ps.setTimestamp(5, new Timestamp(event.loginTime().getTime()));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return batch.size();
+                }
+            });
+            written.add(batch.size());
+        } catch (Exception e) {
+            failed.add(batch.size());
+            logger.error("Failed to write {} login history events: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        running = false;
+        try {
+            worker.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Flush whatever is still queued so no login events are lost on a clean shutdown
+        List<LoginEvent> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (int i = 0; i < remaining.size(); i += batchSize) {
+            writeBatch(remaining.subList(i, Math.min(i + batchSize, remaining.size())));
+        }
+        if (!remaining.isEmpty()) {
+            logger.info("Flushed {} queued login history events on shutdown", remaining.size());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queueDepth", queue.size());
+        stats.put("queueRemainingCapacity", queue.remainingCapacity());
+        stats.put("enqueued", enqueued.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("written", written.sum());
+        stats.put("failed", failed.sum());
+        return stats;
+    }
+}
@@ -1,5 +1,6 @@
 package crm.dopaflow_backend.Service;
 
+import crm.dopaflow_backend.DTO.OpportunityListItem;
 import crm.dopaflow_backend.Model.Opportunity;
 import crm.dopaflow_backend.Model.Stage;
 import crm.dopaflow_backend.Model.StatutOpportunity;
@@ -25,6 +26,12 @@ public class OpportunityService {
         return opportunityRepository.findAll(pageable);
     }
 
+    // List endpoint: projections instead of entities, so a page costs a fixed number of statements
+    public Page<OpportunityListItem> getOpportunityListItems(int page, int size, String sort) {
+        Sort sortObj = Sort.by(Sort.Direction.fromString(sort.split(",")[1]), sort.split(",")[0]);
+        return opportunityRepository.findListItems(PageRequest.of(page, size, sortObj));
+    }
+
     public Opportunity getOpportunity(Long id) {
         return opportunityRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Opportunity not found with id: " + id));
@@ -0,0 +1,73 @@
+package crm.dopaflow_backend.Service;
+
+import crm.dopaflow_backend.Model.User;
+import crm.dopaflow_backend.Repository.CompanyRepository;
+import crm.dopaflow_backend.Repository.ContactRepository;
+import crm.dopaflow_backend.Repository.OpportunityRepository;
+import crm.dopaflow_backend.Repository.TaskRepository;
+import crm.dopaflow_backend.Repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Moves everything a user owns (contacts, companies, opportunities) or is assigned (tasks) to another user,
+ * or to nobody, with one UPDATE per table instead of loading and saving each row. The dry run returns the
+ * same counts without changing anything.
+ */
+@Service
+@RequiredArgsConstructor
+public class OwnershipReassignmentService {
+    private static final Logger logger = LoggerFactory.getLogger(OwnershipReassignmentService.class);
+
+    private final UserRepository userRepository;
+    private final ContactRepository contactRepository;
+    private final CompanyRepository companyRepository;
+    private final OpportunityRepository opportunityRepository;
+    private final TaskRepository taskRepository;
+
+    /**
+     * @param toUserId null to leave the rows unassigned
+     * @return the number of contacts, companies, opportunities and tasks moved (or that would be moved)
+     */
+    @Transactional
+    public Map<String, Object> reassign(Long fromUserId, Long toUserId, boolean dryRun) {
+        if (fromUserId == null) {
+            throw new IllegalArgumentException("fromUserId is required");
+        }
+        if (fromUserId.equals(toUserId)) {
+            throw new IllegalArgumentException("Source and target user must be different");
+        }
+        if (!userRepository.existsById(fromUserId)) {
+            throw new IllegalArgumentException("User not found: " + fromUserId);
+        }
+        User to = toUserId != null
+                ? userRepository.findById(toUserId).orElseThrow(() -> new IllegalArgumentException("User not found: " + toUserId))
+                : null;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("fromUserId", fromUserId);
+        result.put("toUserId", toUserId);
+        result.put("dryRun", dryRun);
+        if (dryRun) {
+            result.put("contacts", contactRepository.countByOwnerId(fromUserId));
+            result.put("companies", companyRepository.countByOwnerId(fromUserId));
+            result.put("opportunities", opportunityRepository.countByOwnerId(fromUserId));
+            result.put("tasks", taskRepository.countByAssignedUserId(fromUserId));
+            return result;
+        }
+
+        result.put("contacts", contactRepository.reassignOwner(fromUserId, to));
+        result.put("companies", companyRepository.reassignOwner(fromUserId, to, to != null ? to.getUsername() : null));
+        result.put("opportunities", opportunityRepository.reassignOwner(fromUserId, to, LocalDateTime.now()));
+        result.put("tasks", taskRepository.reassignAssignedUser(fromUserId, to));
+        logger.info("Reassigned records of user {} to {}: {}", fromUserId, toUserId != null ? toUserId : "nobody", result);
+        return result;
+    }
+}
@@ -1,5 +1,6 @@
 package crm.dopaflow_backend.Service;
 
+import crm.dopaflow_backend.Utils.StreamingUpload;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -14,7 +15,10 @@ public class PhotoUploadService {
     private static final String UPLOAD_DIR = "uploads/photos/";
     private static final String AVATAR_DIR = "uploads/avatars/";
 
-    public PhotoUploadService() {
+    private final ImageDerivativeService imageDerivativeService;
+
+    public PhotoUploadService(ImageDerivativeService imageDerivativeService) {
+        this.imageDerivativeService = imageDerivativeService;
         try {
             Files.createDirectories(Paths.get(UPLOAD_DIR));
             Files.createDirectories(Paths.get(AVATAR_DIR));
@@ -28,9 +32,9 @@ public class PhotoUploadService {
             throw new IllegalArgumentException("No file provided");
         }
 
-        String filename = UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
-        Path filePath = Paths.get(UPLOAD_DIR, filename);
-        Files.write(filePath, file.getBytes());
+        String filename = UUID.randomUUID().toString() + "_" + StreamingUpload.safeFileName(file.getOriginalFilename());
+        Path filePath = StreamingUpload.store(file, Paths.get(UPLOAD_DIR, filename)).path();
+        imageDerivativeService.generateAsync(filePath);
         return "/photos/" + filename;
     }
 
@@ -43,6 +47,7 @@ public class PhotoUploadService {
             try {
                 Path filePath = Paths.get(UPLOAD_DIR + photoUrl.replace("/photos/", ""));
                 Files.deleteIfExists(filePath);
+                imageDerivativeService.deleteDerivatives(filePath);
             } catch (IOException e) {
                 System.err.println("Failed to delete photo: " + e.getMessage());
             }
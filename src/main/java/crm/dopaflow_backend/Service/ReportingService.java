@@ -6,13 +6,12 @@ import crm.dopaflow_backend.DTO.SalesEvolutionDTO;
 import crm.dopaflow_backend.DTO.SalesPerformanceDTO;
 import crm.dopaflow_backend.Model.*;
 import crm.dopaflow_backend.Repository.*;
+import crm.dopaflow_backend.Utils.StreamingExcelWriter;
 import lombok.RequiredArgsConstructor;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.font.PDType1Font;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -180,75 +179,43 @@ public class ReportingService {
     }
 
     public byte[] generateExcelReport(ReportDTO report) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            Sheet sheet = workbook.createSheet("CRM Report");
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerStyle.setFont(headerFont);
-            headerStyle.setFillForegroundColor(IndexedColors.LIGHT_BLUE.getIndex());
-            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-
-            int rowNum = 0;
-            Row headerRow = sheet.createRow(rowNum++);
-            Cell headerCell = headerRow.createCell(0);
-            headerCell.setCellValue("Key Indicators");
-            headerCell.setCellStyle(headerStyle);
+        try (StreamingExcelWriter writer = new StreamingExcelWriter("CRM Report");
+             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            // Fixed widths instead of autoSizeColumn, which measures every cell of the column
+            writer.columnWidths(32, 18, 24, 14, 12);
 
+            writer.startRow().header("Key Indicators");
             KeyIndicatorsDTO indicators = report.getKeyIndicators();
-            createRow(sheet, rowNum++, "Total Opportunity Value (TND)", indicators.getTotalOpportunityValue().toString());
-            createRow(sheet, rowNum++, "New Opportunities", String.valueOf(indicators.getNewOpportunities()));
-            createRow(sheet, rowNum++, "Completed Tasks", String.valueOf(indicators.getCompletedTasks()));
-            createRow(sheet, rowNum++, "Total Opportunities", String.valueOf(indicators.getTotalOpportunities()));
-            createRow(sheet, rowNum++, "New Companies", String.valueOf(indicators.getNewCompanies()));
-            createRow(sheet, rowNum++, "New Contacts", String.valueOf(indicators.getNewContacts()));
-
-            rowNum++;
-            headerRow = sheet.createRow(rowNum++);
-            headerCell = headerRow.createCell(0);
-            headerCell.setCellValue("Sales Evolution");
-            headerCell.setCellStyle(headerStyle);
-
-            Row evolutionHeader = sheet.createRow(rowNum++);
-            String[] evolutionColumns = {"Month", "Completed Tasks", "Opportunity Value (TND)"};
-            for (int i = 0; i < evolutionColumns.length; i++) {
-                Cell cell = evolutionHeader.createCell(i);
-                cell.setCellValue(evolutionColumns[i]);
-                cell.setCellStyle(headerStyle);
-            }
-
+            createRow(writer, "Total Opportunity Value (TND)", indicators.getTotalOpportunityValue().toString());
+            createRow(writer, "New Opportunities", String.valueOf(indicators.getNewOpportunities()));
+            createRow(writer, "Completed Tasks", String.valueOf(indicators.getCompletedTasks()));
+            createRow(writer, "Total Opportunities", String.valueOf(indicators.getTotalOpportunities()));
+            createRow(writer, "New Companies", String.valueOf(indicators.getNewCompanies()));
+            createRow(writer, "New Contacts", String.valueOf(indicators.getNewContacts()));
+
+            writer.skipRow();
+            writer.startRow().header("Sales Evolution");
+            writer.headerRow(List.of("Month", "Completed Tasks", "Opportunity Value (TND)"));
             for (SalesEvolutionDTO evolution : report.getSalesEvolution()) {
-                Row row = sheet.createRow(rowNum++);
-                row.createCell(0).setCellValue(evolution.getMonth());
-                row.createCell(1).setCellValue(evolution.getCompletedTasks());
-                row.createCell(2).setCellValue(evolution.getOpportunityValue().doubleValue());
-            }
-
-            rowNum++;
-            headerRow = sheet.createRow(rowNum++);
-            headerCell = headerRow.createCell(0);
-            headerCell.setCellValue("Sales Performance");
-            headerCell.setCellStyle(headerStyle);
-
-            Row performanceHeader = sheet.createRow(rowNum++);
-            String[] performanceColumns = {"User", "Target (TND)", "Achieved (TND)", "Progress (%)", "Month"};
-            for (int i = 0; i < performanceColumns.length; i++) {
-                Cell cell = performanceHeader.createCell(i);
-                cell.setCellValue(performanceColumns[i]);
-                cell.setCellStyle(headerStyle);
+                writer.startRow()
+                        .text(evolution.getMonth())
+                        .number(evolution.getCompletedTasks())
+                        .number(evolution.getOpportunityValue().doubleValue());
             }
 
+            writer.skipRow();
+            writer.startRow().header("Sales Performance");
+            writer.headerRow(List.of("User", "Target (TND)", "Achieved (TND)", "Progress (%)", "Month"));
             for (SalesPerformanceDTO performance : report.getSalesPerformance()) {
-                Row row = sheet.createRow(rowNum++);
-                row.createCell(0).setCellValue(performance.getName());
-                row.createCell(1).setCellValue(performance.getTarget().doubleValue());
-                row.createCell(2).setCellValue(performance.getAchieved().doubleValue());
-                row.createCell(3).setCellValue(performance.getProgress());
-                row.createCell(4).setCellValue(performance.getMonthYear());
+                writer.startRow()
+                        .text(performance.getName())
+                        .number(performance.getTarget().doubleValue())
+                        .number(performance.getAchieved().doubleValue())
+                        .number(performance.getProgress())
+                        .text(performance.getMonthYear());
             }
 
-            for (int i = 0; i < 5; i++) sheet.autoSizeColumn(i);
-            workbook.write(out);
+            writer.writeTo(out);
             return out.toByteArray();
         }
     }
@@ -402,10 +369,8 @@ public class ReportingService {
         }
     }
 
-    private void createRow(Sheet sheet, int rowNum, String label, String value) {
-        Row row = sheet.createRow(rowNum);
-        row.createCell(0).setCellValue(label);
-        row.createCell(1).setCellValue(value);
+    private void createRow(StreamingExcelWriter writer, String label, String value) {
+        writer.startRow().text(label).text(value);
     }
 
     @Transactional
@@ -0,0 +1,112 @@
+package crm.dopaflow_backend.Service;
+
+import crm.dopaflow_backend.Utils.PrefixIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+/**
+ * In-memory name autocomplete for the company and contact pickers. Both indexes are loaded once at
+ * startup, kept current by SuggestionIndexListener on every entity save/delete (applied after commit),
+ * and fully reloaded periodically to pick up changes made by bulk SQL updates.
+ */
+@Service
+public class SuggestionIndexService {
+    private static final Logger logger = LoggerFactory.getLogger(SuggestionIndexService.class);
+    private static final int MAX_SUGGESTIONS = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PrefixIndex companies = new PrefixIndex();
+    private final PrefixIndex contacts = new PrefixIndex();
+
+    public SuggestionIndexService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${suggest.reload-ms:1800000}", fixedDelayString = "${suggest.reload-ms:1800000}")
+    public void reload() {
+        long start = System.currentTimeMillis();
+        load(companies, "SELECT id, name FROM companies");
+        load(contacts, "SELECT id, name FROM contacts");
+        logger.info("Suggestion indexes loaded: {} companies, {} contacts in {} ms",
+                companies.size(), contacts.size(), System.currentTimeMillis() - start);
+    }
+
+    private void load(PrefixIndex index, String sql) {
+        Set<Long> present = new HashSet<>();
+        long[] maxId = {0};
+        jdbcTemplate.query(sql, rs -> {
+            long id = rs.getLong(1);
+            index.put(id, rs.getString(2));
+            present.add(id);
+            maxId[0] = Math.max(maxId[0], id);
+        });
+        // Drop ids deleted behind the listener's back (bulk deletes)
+        index.retainOnly(present, maxId[0]);
+    }
+
+    public List<Map<String, Object>> suggestCompanies(String prefix, int limit) {
+        return toResponse(companies.search(prefix, Math.min(limit, MAX_SUGGESTIONS)));
+    }
+
+    public List<Map<String, Object>> suggestContacts(String prefix, int limit) {
+        return toResponse(contacts.search(prefix, Math.min(limit, MAX_SUGGESTIONS)));
+    }
+
+    public void companySaved(Long id, String name) {
+        afterCommit(() -> companies.put(id, name));
+    }
+
+    public void companyDeleted(Long id) {
+        afterCommit(() -> companies.remove(id));
+    }
+
+    public void contactSaved(Long id, String name) {
+        afterCommit(() -> contacts.put(id, name));
+    }
+
+    public void contactDeleted(Long id) {
+        afterCommit(() -> contacts.remove(id));
+    }
+
+    // Rolled back changes must not leak into the index
+    private void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    private List<Map<String, Object>> toResponse(List<PrefixIndex.Entry> entries) {
+        List<Map<String, Object>> result = new ArrayList<>(entries.size());
+        for (PrefixIndex.Entry entry : entries) {
+            Map<String, Object> map = new HashMap<>();
+            map.put("id", entry.id());
+            map.put("name", entry.name());
+            result.add(map);
+        }
+        return result;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("companies", companies.size());
+        stats.put("contacts", contacts.size());
+        return stats;
+    }
+}
@@ -1,11 +1,14 @@
 package crm.dopaflow_backend.Service;
 
+import crm.dopaflow_backend.DTO.CursorPage;
 import crm.dopaflow_backend.DTO.TaskDTO;
 import crm.dopaflow_backend.Model.*;
 import crm.dopaflow_backend.Repository.NotificationRepository;
 import crm.dopaflow_backend.Repository.OpportunityRepository;
 import crm.dopaflow_backend.Repository.TaskRepository;
+import crm.dopaflow_backend.Repository.TaskSpecifications;
 import crm.dopaflow_backend.Repository.UserRepository;
+import crm.dopaflow_backend.Utils.KeysetPaging;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -22,12 +25,15 @@ import java.time.ZoneId;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class TaskService {
 
     private static final String TIME_ZONE = "Africa/Tunis"; // Updated to Tunisia's time zone
+    // Non-nullable columns that can drive cursor pagination
+    private static final Set<String> KEYSET_SORT_KEYS = Set.of("id", "deadline", "title", "priority", "statutTask");
 
     private final TaskRepository taskRepository;
     private final OpportunityRepository opportunityRepository;
@@ -281,6 +287,42 @@ public class TaskService {
         }
     }
 
+    /**
+     * Cursor-paged variant of filterTasks with the same filter semantics, see TaskSpecifications.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<TaskDTO> filterTasksAfter(
+            String status,
+            String startDateStr,
+            String endDateStr,
+            Long assignedUserId,
+            boolean unassignedOnly,
+            Long opportunityId,
+            String priorityStr,
+            boolean archived,
+            String cursor,
+            int size,
+            String sort) {
+        User currentUser = getCurrentUser();
+        StatutTask statutTask = (status != null && !status.trim().isEmpty() && !"ANY".equals(status))
+                ? StatutTask.valueOf(status)
+                : null;
+        Priority priority = (priorityStr != null && !priorityStr.trim().isEmpty() && !"ANY".equalsIgnoreCase(priorityStr))
+                ? Priority.valueOf(priorityStr.toUpperCase())
+                : null;
+
+        if (!hasAdminPrivileges(currentUser) && assignedUserId != null &&
+                !currentUser.getId().equals(assignedUserId)) {
+            throw new SecurityException("Regular users can only filter their own tasks");
+        }
+
+        Long restrictToUserId = hasAdminPrivileges(currentUser) ? null : currentUser.getId();
+        return KeysetPaging.fetchPage(taskRepository,
+                TaskSpecifications.fromFilter(statutTask, priority, opportunityId, assignedUserId, unassignedOnly, archived,
+                        parseDate(startDateStr, true), parseDate(endDateStr, false), restrictToUserId),
+                keysetSort(sort), cursor, size, KEYSET_SORT_KEYS).map(TaskDTO::new);
+    }
+
     private User getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated() || "anonymousUser".equals(authentication.getPrincipal())) {
@@ -431,6 +473,15 @@ public class TaskService {
         return tasks.map(TaskDTO::new);
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<TaskDTO> getTasksAfter(String cursor, int size, String sort) {
+        User currentUser = getCurrentUser();
+        Long restrictToUserId = hasAdminPrivileges(currentUser) ? null : currentUser.getId();
+        return KeysetPaging.fetchPage(taskRepository,
+                TaskSpecifications.fromFilter(null, null, null, null, false, false, null, null, restrictToUserId),
+                keysetSort(sort), cursor, size, KEYSET_SORT_KEYS).map(TaskDTO::new);
+    }
+
     @Scheduled(fixedRate = 60000) // Check every minute
     @Transactional
     public void checkOverdueTasks() {
@@ -523,15 +574,8 @@ public class TaskService {
         return Sort.by(Sort.Direction.fromString(parts[1]), parts[0]);
     }
 
-    @Transactional
-    public void unassignTasksFromUser(Long userId) {
-        List<Task> tasks = taskRepository.findByAssignedUserId(userId);
-        if (!tasks.isEmpty()) {
-            for (Task task : tasks) {
-                task.setAssignedUser(null);
-            }
-            taskRepository.saveAll(tasks);
-        }
+    private String keysetSort(String sort) {
+        return sort == null || sort.isEmpty() ? "deadline,desc" : sort;
     }
 
     @Transactional
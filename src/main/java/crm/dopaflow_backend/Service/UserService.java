@@ -6,10 +6,11 @@ import crm.dopaflow_backend.Repository.SupportTicketRepository;
 import crm.dopaflow_backend.Repository.TicketMessageRepository;
 import crm.dopaflow_backend.Repository.UserRepository;
 import crm.dopaflow_backend.Security.JwtUtil;
+import crm.dopaflow_backend.Security.PasswordHashingService;
+import crm.dopaflow_backend.Security.VerifiedPrincipalCache;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -24,13 +25,14 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class UserService {
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final EmailService emailService;
-    private final ContactService contactService;
-    private final TaskService taskService;
     private final NotificationService notificationService;
     private final JwtUtil jwtUtil;
     private final PhotoUploadService photoUploadService;
+    private final VerifiedPrincipalCache principalCache;
+    private final LoginHistoryService loginHistoryService;
+    private final OwnershipReassignmentService ownershipReassignmentService;
 
     private final SupportTicketRepository ticketRepository;
     private final TicketMessageRepository messageRepository;
@@ -50,7 +52,7 @@ public class UserService {
         User user = User.builder()
                 .username(username)
                 .email(email)
-                .password(passwordEncoder.encode(password))
+                .password(passwordHashingService.encode(password))
                 .role(role)
                 .birthdate(birthdate)
                 .status(StatutUser.Inactive)
@@ -79,6 +81,8 @@ public class UserService {
 
     public void saveUser(User user) {
         userRepository.save(user);
+        // Status/role may have changed (block, suspend, activate), drop any cached principal
+        principalCache.invalidateUser(user.getId());
     }
 
     public User getUserFromToken(String token) {
@@ -106,14 +110,14 @@ public class UserService {
         }
 
         if (newPassword != null && !newPassword.isEmpty()) {
-            if (currentPassword == null || !passwordEncoder.matches(currentPassword, user.getPassword())) {
+            if (currentPassword == null || !passwordHashingService.matches(currentPassword, user.getPassword())) {
                 throw new IllegalArgumentException("Current password is incorrect");
             }
-            if (passwordEncoder.matches(newPassword, user.getPassword())) {
+            if (passwordHashingService.matches(newPassword, user.getPassword())) {
                 throw new IllegalArgumentException("New password cannot be the same as the current password");
             }
             validatePassword(newPassword);
-            user.setPassword(passwordEncoder.encode(newPassword));
+            user.setPassword(passwordHashingService.encode(newPassword));
         }
         user.setBirthdate(birthdate);
         if (twoFactorEnabled != null) {
@@ -139,7 +143,7 @@ public class UserService {
         User user = User.builder()
                 .username(username)
                 .email(email)
-                .password(passwordEncoder.encode(password))
+                .password(passwordHashingService.encode(password))
                 .role(role)
                 .birthdate(birthdate)
                 .status(StatutUser.Active)
@@ -175,14 +179,16 @@ public class UserService {
         user.setUsername(updatedUser.getUsername());
         user.setEmail(updatedUser.getEmail());
         if (updatedUser.getPassword() != null && !updatedUser.getPassword().isEmpty()) {
-            user.setPassword(passwordEncoder.encode(updatedUser.getPassword()));
+            user.setPassword(passwordHashingService.encode(updatedUser.getPassword()));
         }
         user.setRole(updatedUser.getRole());
         user.setBirthdate(updatedUser.getBirthdate()); // Preserve birthdate as Date
         user.setStatus(updatedUser.getStatus());
         user.setVerified(updatedUser.getVerified());
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        principalCache.invalidateUser(id);
+        return savedUser;
     }
 
     public void deleteUser(Long id) {
@@ -192,11 +198,10 @@ public class UserService {
         if(user.getRole().equals(Role.SuperAdmin)){
             throw new RuntimeException("you can't delete SuperAdmins");
         }
-        // 1. Set owner to null for all contacts associated with this user
-        contactService.unassignContactsFromUser(id);
-        taskService.unassignTasksFromUser(id);
+        // 1. Unassign the contacts, companies, opportunities and tasks of this user (set-based updates)
+        ownershipReassignmentService.reassign(id, null, false);
         notificationService.deleteNotificationsForUser(id);
-        user.deleteLoginHistory();
+        loginHistoryService.deleteLoginHistoryForUser(id);
         List<SupportTicket> tickets = ticketRepository.findByCreatorIdOrAssigneeId(id, id);
         ticketRepository.deleteAll(tickets);
         List<TicketMessage> messages = messageRepository.findBySenderId(id);
@@ -208,6 +213,7 @@ public class UserService {
         }
 
         userRepository.delete(user);
+        principalCache.invalidateUser(id);
     }
 
 
@@ -225,17 +231,18 @@ public class UserService {
         if (newPassword == null || newPassword.trim().isEmpty()) {
             throw new IllegalArgumentException("New password is required");
         }
+        passwordHashingService.checkThrottle(null, email);
 
-        if (!passwordEncoder.matches(currentPassword, user.getPassword())) {
+        if (!passwordHashingService.matches(currentPassword, user.getPassword())) {
             throw new IllegalArgumentException("Current password is incorrect");
         }
 
-        if (passwordEncoder.matches(newPassword, user.getPassword())) {
+        if (passwordHashingService.matches(newPassword, user.getPassword())) {
             throw new IllegalArgumentException("New password cannot be the same as the current password");
         }
 
         validatePassword(newPassword);
-        user.setPassword(passwordEncoder.encode(newPassword));
+        user.setPassword(passwordHashingService.encode(newPassword));
         userRepository.save(user);
     }
 
@@ -300,6 +307,11 @@ public class UserService {
             return null;
         }
     }
+    @Transactional
+    public void updateLastLogin(Long userId, Date lastLogin) {
+        userRepository.updateLastLogin(userId, lastLogin);
+    }
+
     public void updateLastActive(Long userId, Instant time) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -0,0 +1,133 @@
+package crm.dopaflow_backend.Utils;
+
+import crm.dopaflow_backend.Model.Company;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Maps the rows of an imported company file (CSV or Excel) to companies, the counterpart of ContactRowMapper.
+ * Columns left out of the import selection and unmapped columns are kept in the notes.
+ */
+public class CompanyRowMapper {
+
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[\\w-\\.]+@([\\w-]+\\.)+[\\w-]{2,4}$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern PHONE_PATTERN = Pattern.compile("^\\+?[1-9]\\d{1,14}$");
+    private static final Set<String> NAME_HINTS = Set.of("name", "company", "business", "org", "organization");
+
+    private final List<String> headers;
+    private final String[] mappedFields;
+    private final Set<String> unmappedFields = new LinkedHashSet<>();
+
+    /**
+     * @param columnsToInclude lowercase headers selected for import, null to import every column
+     */
+    public CompanyRowMapper(List<String> headers, List<String> columnsToInclude) {
+        this.headers = List.copyOf(headers);
+        this.mappedFields = new String[headers.size()];
+        for (int i = 0; i < headers.size(); i++) {
+            String header = headers.get(i);
+            String lowerHeader = header.toLowerCase();
+            if (columnsToInclude != null && !columnsToInclude.contains(lowerHeader)) {
+                unmappedFields.add(header);
+                continue;
+            }
+            mappedFields[i] = mapHeader(lowerHeader);
+            if (mappedFields[i] == null) {
+                unmappedFields.add(header);
+            }
+        }
+    }
+
+    private static String mapHeader(String lowerHeader) {
+        if (NAME_HINTS.stream().anyMatch(lowerHeader::contains)) {
+            return "name";
+        } else if (lowerHeader.contains("email")) {
+            return "email";
+        } else if (lowerHeader.contains("phone") || lowerHeader.contains("mobile")) {
+            return "phone";
+        } else if (lowerHeader.contains("status")) {
+            return "status";
+        } else if (lowerHeader.contains("address")) {
+            return "address";
+        } else if (lowerHeader.contains("website") || lowerHeader.contains("url")) {
+            return "website";
+        } else if (lowerHeader.contains("industry")) {
+            return "industry";
+        } else if (lowerHeader.contains("notes")) {
+            return "notes";
+        } else if (lowerHeader.contains("owner")) {
+            return "ownerUsername";
+        }
+        return null;
+    }
+
+    public List<String> getHeaders() {
+        return headers;
+    }
+
+    public Set<String> getUnmappedFields() {
+        return unmappedFields;
+    }
+
+    /**
+     * Maps one row, values being in header order (missing trailing values count as empty).
+     * @return the company, or null when the row has no name and must be skipped
+     */
+    public Company map(List<String> values) {
+        Company company = new Company();
+        boolean hasName = false;
+        StringBuilder notes = new StringBuilder();
+
+        for (int i = 0; i < headers.size(); i++) {
+            String raw = i < values.size() ? values.get(i) : null;
+            String value = raw != null ? raw.trim() : "";
+            if (value.isEmpty()) continue;
+
+            String mappedField = mappedFields[i];
+            if (mappedField == null) {
+                notes.append(headers.get(i)).append(": ").append(value).append("; ");
+                continue;
+            }
+            switch (mappedField) {
+                case "name":
+                    company.setName(value);
+                    hasName = true;
+                    break;
+                case "email":
+                    if (EMAIL_PATTERN.matcher(value).matches()) company.setEmail(value);
+                    break;
+                case "phone":
+                    String normalizedPhone = value.replaceAll("[^0-9+]", "");
+                    if (PHONE_PATTERN.matcher(normalizedPhone).matches()) company.setPhone(normalizedPhone);
+                    break;
+                case "status":
+                    company.setStatus(value);
+                    break;
+                case "address":
+                    company.setAddress(value);
+                    break;
+                case "website":
+                    company.setWebsite(value);
+                    break;
+                case "industry":
+                    company.setIndustry(value);
+                    break;
+                case "notes":
+                    company.setNotes(value);
+                    break;
+                case "ownerUsername":
+                    company.setOwnerUsername(value);
+                    break;
+            }
+        }
+
+        if (!hasName) {
+            return null;
+        }
+        if (notes.length() > 0) {
+            company.setNotes(notes.substring(0, notes.length() - 2)); // Remove trailing "; "
+        }
+        return company;
+    }
+}
@@ -0,0 +1,183 @@
+package crm.dopaflow_backend.Utils;
+
+import crm.dopaflow_backend.Model.Company;
+import crm.dopaflow_backend.Model.Contact;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Maps the rows of an imported contact file (CSV or Excel) to contacts. Headers are matched to contact
+ * fields once, then each row is mapped on its own so files can be read and imported one row at a time.
+ * Invalid emails and phones, and values of unmapped columns, are kept in the notes.
+ */
+public class ContactRowMapper {
+
+    public record MappedRow(Contact contact, Map<String, Object> preview) {
+    }
+
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[\\w-\\.]+@([\\w-]+\\.)+[\\w-]{2,4}$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern PHONE_PATTERN = Pattern.compile("^\\+?[1-9]\\d{1,14}$");
+    private static final Set<String> NAME_HINTS = Set.of("name", "first", "last", "full", "surname", "given", "username", "thename");
+
+    private final List<String> headers;
+    private final String[] mappedFields;
+    private final Set<String> unmappedFields = new LinkedHashSet<>();
+
+    public ContactRowMapper(List<String> headers) {
+        this.headers = List.copyOf(headers);
+        this.mappedFields = new String[headers.size()];
+        for (int i = 0; i < headers.size(); i++) {
+            String header = headers.get(i);
+            mappedFields[i] = mapHeader(header.toLowerCase());
+            if (mappedFields[i] == null) {
+                unmappedFields.add(header);
+            }
+        }
+    }
+
+    private static String mapHeader(String lowerHeader) {
+        if (NAME_HINTS.stream().anyMatch(lowerHeader::contains)) {
+            return "name";
+        } else if (lowerHeader.contains("email") && !lowerHeader.contains("company")) {
+            return "email";
+        } else if ((lowerHeader.contains("phone") || lowerHeader.contains("mobile")) && !lowerHeader.contains("company")) {
+            return "phone";
+        } else if (lowerHeader.contains("status") && !lowerHeader.contains("company")) {
+            return "status";
+        } else if (lowerHeader.contains("company") && !lowerHeader.contains("email") && !lowerHeader.contains("phone") &&
+                !lowerHeader.contains("status") && !lowerHeader.contains("address") && !lowerHeader.contains("website") &&
+                !lowerHeader.contains("industry") && !lowerHeader.contains("notes") && !lowerHeader.contains("owner") &&
+                !lowerHeader.contains("photo")) {
+            return "company";
+        } else if (lowerHeader.contains("notes") && !lowerHeader.contains("company")) {
+            return "notes";
+        } else if (lowerHeader.contains("owner") && !lowerHeader.contains("company")) {
+            return "ownerUsername";
+        }
+        return null;
+    }
+
+    public List<String> getHeaders() {
+        return headers;
+    }
+
+    public Set<String> getUnmappedFields() {
+        return unmappedFields;
+    }
+
+    /**
+     * Maps one row, values being in header order (missing trailing values count as empty).
+     * @return the mapped row, or null when the row has no name and must be skipped
+     */
+    public MappedRow map(List<String> values) {
+        Contact contact = new Contact();
+        Map<String, Object> contactMap = new HashMap<>();
+        boolean hasName = false;
+
+        for (int i = 0; i < headers.size(); i++) {
+            String raw = i < values.size() ? values.get(i) : null;
+            String value = raw != null ? raw.trim() : "";
+            String mappedField = mappedFields[i];
+
+            if (mappedField != null) {
+                switch (mappedField) {
+                    case "name":
+                        if (!value.isEmpty()) {
+                            contact.setName(value);
+                            contactMap.put("name", value);
+                            hasName = true;
+                        }
+                        break;
+                    case "email":
+                        if (!value.isEmpty() && EMAIL_PATTERN.matcher(value).matches()) {
+                            contact.setEmail(value);
+                            contactMap.put("email", value);
+                        } else if (!value.isEmpty()) {
+                            appendNote(contact, contactMap, "Invalid email: " + value);
+                            contactMap.put("email", null);
+                        }
+                        break;
+                    case "phone":
+                        String normalizedPhone = value.replaceAll("[^0-9+]", "");
+                        if (!normalizedPhone.isEmpty() && PHONE_PATTERN.matcher(normalizedPhone).matches()) {
+                            contact.setPhone(normalizedPhone);
+                            contactMap.put("phone", normalizedPhone);
+                        } else if (!normalizedPhone.isEmpty()) {
+                            appendNote(contact, contactMap, "Invalid phone: " + value);
+                            contactMap.put("phone", null);
+                        }
+                        break;
+                    case "status":
+                        if (!value.isEmpty()) {
+                            String status = value.equalsIgnoreCase("open") || value.equalsIgnoreCase("closed") ? value : "Open";
+                            contact.setStatus(status);
+                            contactMap.put("status", status);
+                        }
+                        break;
+                    case "company":
+                        if (!value.isEmpty()) {
+                            Company company = new Company();
+                            company.setName(value);
+                            contact.setCompany(company);
+                            contactMap.put("company", value);
+                        }
+                        break;
+                    case "notes":
+                        if (!value.isEmpty()) {
+                            contact.setNotes(value);
+                            contactMap.put("notes", value);
+                        }
+                        break;
+                    case "ownerUsername":
+                        if (!value.isEmpty()) {
+                            contact.setOwnerUsername(value);
+                            contactMap.put("ownerUsername", value);
+                        }
+                        break;
+                }
+            } else if (!value.isEmpty()) {
+                appendNote(contact, contactMap, headers.get(i) + ": " + value);
+            }
+        }
+
+        if (!hasName) {
+            return null;
+        }
+        if (contact.getEmail() == null) {
+            String dummyEmail = "unknown_" + UUID.randomUUID().toString().substring(0, 8) + "@example.com";
+            contact.setEmail(dummyEmail);
+            contactMap.put("email", dummyEmail);
+        }
+        return new MappedRow(contact, contactMap);
+    }
+
+    private static void appendNote(Contact contact, Map<String, Object> contactMap, String note) {
+        String notes = contact.getNotes() != null ? contact.getNotes() + "; " : "";
+        contact.setNotes(notes + note);
+        contactMap.put("notes", contact.getNotes());
+    }
+
+    /**
+     * Keeps only the columns picked in the import dialog.
+     * @return the reduced contact, or null when the name column was not picked
+     */
+    public static Contact selectColumns(Contact contact, List<String> selectedColumns) {
+        if (!selectedColumns.contains("name") || contact.getName() == null) {
+            return null;
+        }
+        Contact filteredContact = new Contact();
+        filteredContact.setName(contact.getName());
+        filteredContact.setEmail(selectedColumns.contains("email") ? contact.getEmail() : null);
+        filteredContact.setPhone(selectedColumns.contains("phone") ? contact.getPhone() : null);
+        filteredContact.setStatus(selectedColumns.contains("status") ? contact.getStatus() : null);
+        filteredContact.setNotes(selectedColumns.contains("notes") ? contact.getNotes() : null);
+        filteredContact.setOwnerUsername(selectedColumns.contains("owner") || selectedColumns.contains("ownerUsername") ? contact.getOwnerUsername() : null);
+        if (selectedColumns.contains("company") && contact.getCompany() != null) {
+            Company company = new Company();
+            company.setName(contact.getCompany().getName());
+            filteredContact.setCompany(company);
+        }
+        return filteredContact;
+    }
+}
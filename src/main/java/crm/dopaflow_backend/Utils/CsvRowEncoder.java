@@ -0,0 +1,52 @@
+package crm.dopaflow_backend.Utils;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes CSV rows field by field straight into a (buffered) Writer, so a row never exists as a String.
+ * Values are always double-quoted with embedded quotes doubled, null values are written as empty fields.
+ * One encoder is reused for every row of an export.
+ */
+public class CsvRowEncoder {
+    private final Writer writer;
+    private boolean firstField = true;
+
+    public CsvRowEncoder(Writer writer) {
+        this.writer = writer;
+    }
+
+    // Header fields are fixed names and written as-is
+    public void header(String name) throws IOException {
+        separator();
+        writer.write(name);
+    }
+
+    public void value(String value) throws IOException {
+        separator();
+        if (value == null) {
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    public void endRow() throws IOException {
+        writer.write('\n');
+        firstField = true;
+    }
+
+    private void separator() throws IOException {
+        if (!firstField) {
+            writer.write(',');
+        }
+        firstField = false;
+    }
+}
@@ -0,0 +1,207 @@
+package crm.dopaflow_backend.Utils;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Import-time duplicate detection with hash indexes on normalized keys: lower-cased email, E.164 phone,
+ * and company names both as typed (trimmed, case and spacing ignored) and in canonical form (accents,
+ * punctuation and legal suffixes such as "Inc" or "SARL" removed). Existing rows are added first, then
+ * every imported row is classified in O(1) and added to the indexes, so repeats within the file are
+ * caught too.
+ *
+ * EXACT_MATCH means the import treats the row as the same record (contacts: same email, companies: same
+ * name), PROBABLE_MATCH a likely duplicate the import will still create (same phone, canonical name or
+ * company email). Not thread-safe.
+ */
+public class DuplicateMatcher {
+
+    public enum MatchType {
+        NEW,
+        EXACT_MATCH,
+        PROBABLE_MATCH
+    }
+
+    /**
+     * @param field the key that matched: "email", "phone" or "name"
+     * @param existingId id of the matching existing row, null if the match is an earlier row of the file
+     * @param duplicateOfRow index of the matching earlier row of the file, null if the match is an existing row
+     */
+    public record Match(MatchType type, String field, Long existingId, String existingName, Integer duplicateOfRow) {
+        public static final Match NEW = new Match(MatchType.NEW, null, null, null, null);
+    }
+
+    // A row holding a key: an existing one (id set) or an earlier imported one (row set)
+    private record Entry(Long id, Integer row, String name, String value) {
+    }
+
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern FROM_FIRST_DIGIT = Pattern.compile("\\d.*", Pattern.DOTALL);
+    private static final Set<String> LEGAL_SUFFIXES = Set.of(
+            "inc", "incorporated", "llc", "llp", "ltd", "limited", "corp", "corporation", "co", "company",
+            "plc", "gmbh", "ag", "bv", "nv", "sa", "sas", "sarl", "suarl", "srl", "spa", "oy", "ab");
+
+    private final String defaultCountryCode;
+    private final Map<String, Entry> byEmail = new HashMap<>();
+    private final Map<String, Entry> byPhone = new HashMap<>();
+    private final Map<String, Entry> byName = new HashMap<>();
+    private final Map<String, Entry> byCanonicalName = new HashMap<>();
+    private final EnumMap<MatchType, Integer> counts = new EnumMap<>(MatchType.class);
+
+    /**
+     * @param defaultCountryCode digits of the country code for national phone numbers (leading 0), empty if unknown
+     */
+    public DuplicateMatcher(String defaultCountryCode) {
+        this.defaultCountryCode = defaultCountryCode != null ? defaultCountryCode.replaceAll("\\D", "") : "";
+        for (MatchType type : MatchType.values()) {
+            counts.put(type, 0);
+        }
+    }
+
+    public void addExisting(long id, String name, String email, String phone) {
+        index(new Entry(id, null, name, email), new Entry(id, null, name, name), name, email, phone);
+    }
+
+    /**
+     * Classifies an imported contact (the import matches contacts by email) and adds it to the indexes.
+     */
+    public Match matchContact(int row, String name, String email, String phone) {
+        Match match = find(byEmail, normalizeEmail(email), MatchType.EXACT_MATCH, "email");
+        if (match == null) {
+            match = find(byPhone, toE164(phone), MatchType.PROBABLE_MATCH, "phone");
+        }
+        Entry entry = new Entry(null, row, name, email);
+        return record(match, entry, entry, name, email, phone);
+    }
+
+    /**
+     * Classifies an imported company (the import matches companies by name) and adds it to the indexes.
+     */
+    public Match matchCompany(int row, String name, String email, String phone) {
+        Match match = find(byName, normalizeName(name), MatchType.EXACT_MATCH, "name");
+        if (match == null) {
+            match = find(byCanonicalName, canonicalName(name), MatchType.PROBABLE_MATCH, "name");
+        }
+        if (match == null) {
+            match = find(byEmail, normalizeEmail(email), MatchType.PROBABLE_MATCH, "email");
+        }
+        if (match == null) {
+            match = find(byPhone, toE164(phone), MatchType.PROBABLE_MATCH, "phone");
+        }
+        return record(match, new Entry(null, row, name, email), new Entry(null, row, name, name), name, email, phone);
+    }
+
+    /**
+     * The email as first seen for the same normalized email (existing contact, else earlier imported row),
+     * so an import updates that contact instead of creating a case variant. Unchanged if never seen.
+     */
+    public String resolveEmail(String email) {
+        Entry entry = lookup(byEmail, normalizeEmail(email));
+        return entry != null && entry.value() != null ? entry.value() : email;
+    }
+
+    // Same as resolveEmail for company names
+    public String resolveCompanyName(String name) {
+        Entry entry = lookup(byName, normalizeName(name));
+        return entry != null && entry.value() != null ? entry.value() : name;
+    }
+
+    public Map<MatchType, Integer> getCounts() {
+        return Collections.unmodifiableMap(counts);
+    }
+
+    private Match record(Match match, Entry byEmailEntry, Entry byNameEntry, String name, String email, String phone) {
+        Match result = match != null ? match : Match.NEW;
+        counts.merge(result.type(), 1, Integer::sum);
+        index(byEmailEntry, byNameEntry, name, email, phone);
+        return result;
+    }
+
+    // First holder of a key wins: existing rows are indexed before the file. Entries carry the stored
+    // value of the key they are indexed by (email or name), for resolveEmail / resolveCompanyName.
+    private void index(Entry byEmailEntry, Entry byNameEntry, String name, String email, String phone) {
+        putIfPresent(byEmail, normalizeEmail(email), byEmailEntry);
+        putIfPresent(byPhone, toE164(phone), byEmailEntry);
+        putIfPresent(byName, normalizeName(name), byNameEntry);
+        putIfPresent(byCanonicalName, canonicalName(name), byNameEntry);
+    }
+
+    private static void putIfPresent(Map<String, Entry> index, String key, Entry entry) {
+        if (key != null) {
+            index.putIfAbsent(key, entry);
+        }
+    }
+
+    private static Entry lookup(Map<String, Entry> index, String key) {
+        return key != null ? index.get(key) : null;
+    }
+
+    private static Match find(Map<String, Entry> index, String key, MatchType type, String field) {
+        Entry entry = lookup(index, key);
+        if (entry == null) {
+            return null;
+        }
+        return new Match(type, field, entry.id(), entry.name(), entry.row());
+    }
+
+    public static String normalizeEmail(String email) {
+        if (email == null || email.isBlank()) {
+            return null;
+        }
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * "+33 6 12-34-56-78", "(+33) 6.12.34.56.78", "0033612345678" and (with country code 33) "06 12 34 56 78"
+     * all give "+33612345678".
+     * National numbers without a default country code are keyed by their digits. Null if not a plausible number.
+     */
+    public String toE164(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        // "+" before the first digit, also inside brackets: "(+33) 6 ..."
+        String prefix = FROM_FIRST_DIGIT.matcher(phone).replaceFirst("");
+        String digits = phone.replaceAll("\\D", "");
+        String e164;
+        if (prefix.contains("+")) {
+            e164 = "+" + digits;
+        } else if (digits.startsWith("00")) {
+            e164 = "+" + digits.substring(2);
+        } else if (digits.startsWith("0") && !defaultCountryCode.isEmpty()) {
+            e164 = "+" + defaultCountryCode + digits.substring(1);
+        } else {
+            e164 = digits;
+        }
+        int length = e164.startsWith("+") ? e164.length() - 1 : e164.length();
+        return length >= 6 && length <= 15 ? e164 : null;
+    }
+
+    // "  ACME   corp " -> "acme corp"
+    public static String normalizeName(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        return WHITESPACE.matcher(name.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    // "Société Générale S.A." -> "societe generale", "ACME, Inc." -> "acme", "A & B Ltd" -> "a and b"
+    public static String canonicalName(String name) {
+        String normalized = normalizeName(name);
+        if (normalized == null) {
+            return null;
+        }
+        String ascii = DIACRITICS.matcher(Normalizer.normalize(normalized, Normalizer.Form.NFD)).replaceAll("");
+        // Dotted abbreviations ("s.a.", "s.a.r.l.") become single tokens before punctuation is dropped
+        ascii = ascii.replaceAll("\\b(\\w)\\.(?=\\w\\b)", "$1").replace("&", " and ");
+        List<String> tokens = new ArrayList<>(Arrays.asList(NON_ALPHANUMERIC.matcher(ascii).replaceAll(" ").trim().split(" ")));
+        while (tokens.size() > 1 && LEGAL_SUFFIXES.contains(tokens.get(tokens.size() - 1))) {
+            tokens.remove(tokens.size() - 1);
+        }
+        String canonical = String.join(" ", tokens).trim();
+        return canonical.isEmpty() ? null : canonical;
+    }
+}
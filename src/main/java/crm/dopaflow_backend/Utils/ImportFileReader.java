@@ -0,0 +1,90 @@
+package crm.dopaflow_backend.Utils;
+
+import crm.dopaflow_backend.Model.Company;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Reads contact and company import files ("csv" or "excel") row by row: the first row holds the headers,
+ * every following row goes through the row mapper and is handed to the consumer as soon as it is read.
+ * Used by the preview endpoints and by the background import jobs. The optional progress callback gets
+ * the fraction (0..1) of the file read after each row.
+ */
+public final class ImportFileReader {
+
+    private ImportFileReader() {
+    }
+
+    public static ContactRowMapper readContacts(InputStream in, long size, String fileType,
+                                                Consumer<ContactRowMapper.MappedRow> rowConsumer,
+                                                DoubleConsumer progress) throws IOException {
+        ContactRowMapper[] mapper = {new ContactRowMapper(List.of())};
+        readRows(in, size, fileType, (rowIndex, values) -> {
+            if (rowIndex == 0) {
+                mapper[0] = new ContactRowMapper(values);
+                return;
+            }
+            ContactRowMapper.MappedRow row = mapper[0].map(values);
+            if (row != null) {
+                rowConsumer.accept(row);
+            }
+        }, progress);
+        return mapper[0];
+    }
+
+    /**
+     * @param columnsToInclude lowercase headers selected for import, null to import every column
+     */
+    public static CompanyRowMapper readCompanies(InputStream in, long size, String fileType, List<String> columnsToInclude,
+                                                 Consumer<Company> companyConsumer,
+                                                 DoubleConsumer progress) throws IOException {
+        CompanyRowMapper[] mapper = {new CompanyRowMapper(List.of(), columnsToInclude)};
+        readRows(in, size, fileType, (rowIndex, values) -> {
+            if (rowIndex == 0) {
+                mapper[0] = new CompanyRowMapper(values, columnsToInclude);
+                return;
+            }
+            Company company = mapper[0].map(values);
+            if (company != null) {
+                companyConsumer.accept(company);
+            }
+        }, progress);
+        return mapper[0];
+    }
+
+    public static void readRows(InputStream in, long size, String fileType, XlsxRowReader.RowHandler handler,
+                                DoubleConsumer progress) throws IOException {
+        if ("csv".equalsIgnoreCase(fileType)) {
+            readCsvRows(in, size, handler, progress);
+        } else if ("excel".equalsIgnoreCase(fileType)) {
+            // Event-based reading, the workbook is never loaded as a whole
+            XlsxRowReader.read(in, handler, progress);
+        } else {
+            throw new IllegalArgumentException("Invalid file type. Use 'csv' or 'excel'.");
+        }
+    }
+
+    private static void readCsvRows(InputStream in, long size, XlsxRowReader.RowHandler handler,
+                                    DoubleConsumer progress) throws IOException {
+        CountingInputStream counting = new CountingInputStream(in);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(counting, StandardCharsets.UTF_8));
+             CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT
+                     .withTrim()
+                     .withIgnoreEmptyLines())) {
+            int rowIndex = 0;
+            for (CSVRecord record : csvParser) {
+                handler.row(rowIndex++, record.toList());
+                if (progress != null && size > 0) {
+                    progress.accept(Math.min(1.0, (double) counting.getCount() / size));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package crm.dopaflow_backend.Utils;
+
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Opaque continuation token for keyset pagination: the sort it was issued for, plus the sort value and id
+ * of the last row of the previous page. Values are stored as strings and converted back using the Java
+ * type of the sorted attribute, so the token carries no type information of its own.
+ */
+public record KeysetCursor(String property, Sort.Direction direction, String value, long id) {
+
+    private static final char SEPARATOR = '\u001f';
+
+    public String encode() {
+        String raw = property + SEPARATOR + direction.name() + SEPARATOR + (value != null ? value : "") + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(String.valueOf(SEPARATOR), -1);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new KeysetCursor(parts[0], Sort.Direction.valueOf(parts[1]), parts[2], Long.parseLong(parts[3]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public static String toCursorValue(Object value) {
+        if (value instanceof Date date) {
+            return String.valueOf(date.getTime());
+        }
+        if (value instanceof Enum<?> constant) {
+            return constant.name();
+        }
+        return String.valueOf(value);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Comparable<Object> typedValue(Class<?> type) {
+        Object typed;
+        if (type == String.class) {
+            typed = value;
+        } else if (type == Long.class || type == long.class) {
+            typed = Long.valueOf(value);
+        } else if (type == Integer.class || type == int.class) {
+            typed = Integer.valueOf(value);
+        } else if (type == Double.class || type == double.class) {
+            typed = Double.valueOf(value);
+        } else if (type == LocalDateTime.class) {
+            typed = LocalDateTime.parse(value);
+        } else if (type == LocalDate.class) {
+            typed = LocalDate.parse(value);
+        } else if (Date.class.isAssignableFrom(type)) {
+            typed = new Date(Long.parseLong(value));
+        } else if (type.isEnum()) {
+            typed = Enum.valueOf((Class<? extends Enum>) type, value);
+        } else {
+            throw new IllegalArgumentException("Unsupported cursor type: " + type.getSimpleName());
+        }
+        return (Comparable<Object>) typed;
+    }
+}
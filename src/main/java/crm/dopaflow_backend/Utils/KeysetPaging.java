@@ -0,0 +1,97 @@
+package crm.dopaflow_backend.Utils;
+
+import crm.dopaflow_backend.DTO.CursorPage;
+import jakarta.persistence.criteria.Path;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keyset (seek) pagination on top of a Specification: instead of OFFSET + COUNT(*), each page continues
+ * after the (sort value, id) of the previous page's last row, so every page costs O(page size) on a
+ * (sort column, id) index no matter how deep the caller has scrolled. Only single, non-nullable sort
+ * columns are supported, the id is always added as tie-breaker.
+ */
+public final class KeysetPaging {
+    private static final int MAX_PAGE_SIZE = 200;
+
+    private KeysetPaging() {
+    }
+
+    /**
+     * @param sort         "property,direction" as used by the offset endpoints
+     * @param cursor       nextCursor of the previous page, null or empty for the first page
+     * @param sortableKeys properties that may be used as keyset sort keys
+     */
+    public static <T> CursorPage<T> fetchPage(JpaSpecificationExecutor<T> repository, Specification<T> filter,
+                                             String sort, String cursor, int size, Set<String> sortableKeys) {
+        return fetchPage(repository, filter, sort, cursor, size, sortableKeys, List.of());
+    }
+
+    /**
+     * @param fetch associations loaded with the page (as a fetch graph, in the same statement); associations
+     *              left out are not loaded at all, even EAGER ones
+     */
+    public static <T> CursorPage<T> fetchPage(JpaSpecificationExecutor<T> repository, Specification<T> filter,
+                                             String sort, String cursor, int size, Set<String> sortableKeys,
+                                             Collection<String> fetch) {
+        String[] parts = sort.split(",");
+        String property = parts[0].trim();
+        Sort.Direction direction = parts.length > 1 ? Sort.Direction.fromString(parts[1].trim()) : Sort.Direction.ASC;
+        if (!sortableKeys.contains(property)) {
+            throw new IllegalArgumentException("Cursor pagination is not supported when sorting by " + property);
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        Specification<T> spec = filter != null ? filter : Specification.where(null);
+        if (cursor != null && !cursor.isBlank()) {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            if (!after.property().equals(property) || after.direction() != direction) {
+                throw new IllegalArgumentException("Cursor was issued for a different sort order");
+            }
+            spec = spec.and(seek(after));
+        }
+
+        Sort order = "id".equals(property)
+                ? Sort.by(direction, "id")
+                : Sort.by(direction, property).and(Sort.by(direction, "id"));
+        // One extra row tells us whether there is a next page without counting
+        List<T> rows = repository.<T, List<T>>findBy(spec, query -> fetch.isEmpty()
+                ? query.sortBy(order).limit(pageSize + 1).all()
+                : query.sortBy(order).limit(pageSize + 1).project(fetch).all());
+
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            BeanWrapperImpl last = new BeanWrapperImpl(rows.get(rows.size() - 1));
+            Object lastValue = last.getPropertyValue(property);
+            long lastId = ((Number) last.getPropertyValue("id")).longValue();
+            nextCursor = new KeysetCursor(property, direction, KeysetCursor.toCursorValue(lastValue), lastId).encode();
+        }
+        return new CursorPage<>(rows, rows.size(), hasMore, nextCursor);
+    }
+
+    // (sort > v) OR (sort = v AND id > lastId), mirrored for descending order
+    private static <T> Specification<T> seek(KeysetCursor after) {
+        return (root, query, cb) -> {
+            Path<Long> id = root.get("id");
+            boolean ascending = after.direction().isAscending();
+            if ("id".equals(after.property())) {
+                return ascending ? cb.greaterThan(id, after.id()) : cb.lessThan(id, after.id());
+            }
+            Path<Comparable<Object>> key = root.get(after.property());
+            Comparable<Object> value = after.typedValue(key.getJavaType());
+            return cb.or(
+                    ascending ? cb.greaterThan(key, value) : cb.lessThan(key, value),
+                    cb.and(cb.equal(key, value), ascending ? cb.greaterThan(id, after.id()) : cb.lessThan(id, after.id())));
+        };
+    }
+}
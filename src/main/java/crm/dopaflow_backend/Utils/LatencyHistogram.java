@@ -0,0 +1,46 @@
+package crm.dopaflow_backend.Utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Fixed-bucket latency histogram in milliseconds, cheap enough to record on every call
+public class LatencyHistogram {
+    private static final long[] BUCKET_BOUNDS_MS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        long millis = nanos / 1_000_000;
+        int index = 0;
+        while (index < BUCKET_BOUNDS_MS.length && millis > BUCKET_BOUNDS_MS[index]) {
+            index++;
+        }
+        buckets[index].increment();
+        count.increment();
+        totalNanos.add(nanos);
+    }
+
+    public Map<String, Object> snapshot() {
+        long total = count.sum();
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            counts.put("le_" + BUCKET_BOUNDS_MS[i] + "ms", buckets[i].sum());
+        }
+        counts.put("gt_" + BUCKET_BOUNDS_MS[BUCKET_BOUNDS_MS.length - 1] + "ms", buckets[BUCKET_BOUNDS_MS.length].sum());
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("count", total);
+        snapshot.put("meanMs", total == 0 ? 0.0 : totalNanos.sum() / 1_000_000.0 / total);
+        snapshot.put("buckets", counts);
+        return snapshot;
+    }
+}
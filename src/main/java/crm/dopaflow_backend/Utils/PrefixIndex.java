@@ -0,0 +1,109 @@
+package crm.dopaflow_backend.Utils;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Concurrent, incrementally maintained prefix index from names to ids. Every name is indexed under its
+ * normalized full form and under each later word, so "acme" and "corp" both find "Acme Corp". A lookup
+ * is a range scan over a skip list starting at the prefix, i.e. O(log n + k) for the top k matches,
+ * returned in alphabetical order of the matched key.
+ */
+public class PrefixIndex {
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WORD_SEPARATORS = Pattern.compile("[\\s\\-_.,&/()]+");
+    // Separates the indexed key from the id so identical names of different entities get distinct keys
+    private static final char ID_SEPARATOR = '\u0000';
+
+    public record Entry(long id, String name) {
+    }
+
+    private final ConcurrentSkipListMap<String, Entry> keys = new ConcurrentSkipListMap<>();
+    private final Map<Long, List<String>> keysById = new ConcurrentHashMap<>();
+
+    public void put(long id, String name) {
+        if (name == null || name.isBlank()) {
+            remove(id);
+            return;
+        }
+        Entry entry = new Entry(id, name);
+        List<String> newKeys = keysFor(id, name);
+        // compute() serializes concurrent updates of the same id
+        keysById.compute(id, (key, oldKeys) -> {
+            if (oldKeys != null) {
+                oldKeys.forEach(keys::remove);
+            }
+            newKeys.forEach(indexKey -> keys.put(indexKey, entry));
+            return newKeys;
+        });
+    }
+
+    public void remove(long id) {
+        keysById.computeIfPresent(id, (key, oldKeys) -> {
+            oldKeys.forEach(keys::remove);
+            return null;
+        });
+    }
+
+    /**
+     * Removes ids missing from a full reload. Ids above maxLoadedId were created after the reload's
+     * snapshot and are kept.
+     */
+    public void retainOnly(Set<Long> ids, long maxLoadedId) {
+        for (Long id : keysById.keySet()) {
+            if (id <= maxLoadedId && !ids.contains(id)) {
+                remove(id);
+            }
+        }
+    }
+
+    public List<Entry> search(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        List<Entry> matches = new ArrayList<>(limit);
+        Set<Long> seen = new HashSet<>();
+        for (Map.Entry<String, Entry> candidate : keys.tailMap(normalized, true).entrySet()) {
+            if (!candidate.getKey().startsWith(normalized)) {
+                break;
+            }
+            if (seen.add(candidate.getValue().id())) {
+                matches.add(candidate.getValue());
+                if (matches.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+
+    public int size() {
+        return keysById.size();
+    }
+
+    private static List<String> keysFor(long id, String name) {
+        String normalized = normalize(name);
+        List<String> result = new ArrayList<>();
+        result.add(normalized + ID_SEPARATOR + id);
+        String[] words = WORD_SEPARATORS.split(normalized);
+        for (int i = 1; i < words.length; i++) {
+            if (!words[i].isEmpty()) {
+                result.add(words[i] + ID_SEPARATOR + id);
+            }
+        }
+        return result;
+    }
+
+    // Lower case without accents, so "eco" finds "École"
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(value.trim(), Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
@@ -2,13 +2,28 @@ package crm.dopaflow_backend.Utils;
 
 import lombok.Getter;
 
+import java.util.function.DoubleConsumer;
+
 // Helper class for tracking progress
-@Getter
 public class ProgressTracker {
+    @Getter
     private double progress = 0.0;
+    private final DoubleConsumer listener;
+
+    public ProgressTracker() {
+        this(null);
+    }
+
+    // The listener is called on every update, from the thread doing the work
+    public ProgressTracker(DoubleConsumer listener) {
+        this.listener = listener;
+    }
 
     public void updateProgress(double percentage) {
         this.progress = Math.min(100.0, Math.max(0.0, percentage));
+        if (listener != null) {
+            listener.accept(progress);
+        }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,170 @@
+package crm.dopaflow_backend.Utils;
+
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Writes a single-sheet .xlsx on POI's SXSSF: only the last {@code rowWindow} rows are kept in memory,
+ * older rows are flushed to a compressed temp file, so heap usage does not grow with the row count.
+ * Cell styles are created once per workbook and shared by every cell (Excel caps a file at 64k styles),
+ * and column widths are set up front since autoSizeColumn needs every row in memory.
+ *
+ * Usage: columnWidths(...), then headerRow(...) / startRow() + cell values, then writeTo(out) and close().
+ */
+public class StreamingExcelWriter implements Closeable {
+
+    public static final String CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    public static final int DEFAULT_ROW_WINDOW = 100;
+    public static final int DEFAULT_COLUMN_WIDTH = 20;
+    private static final int MAX_COLUMN_WIDTH = 255;
+
+    private final SXSSFWorkbook workbook;
+    private final SXSSFSheet sheet;
+    private final CellStyle headerStyle;
+    private final CellStyle dateTimeStyle;
+
+    private int nextRowIndex;
+    private Row row;
+    private int nextCellIndex;
+
+    public StreamingExcelWriter(String sheetName) {
+        this(sheetName, DEFAULT_ROW_WINDOW);
+    }
+
+    public StreamingExcelWriter(String sheetName, int rowWindow) {
+        this.workbook = new SXSSFWorkbook(rowWindow);
+        this.workbook.setCompressTempFiles(true);
+        this.sheet = workbook.createSheet(sheetName);
+
+        Font headerFont = workbook.createFont();
+        headerFont.setBold(true);
+        this.headerStyle = workbook.createCellStyle();
+        this.headerStyle.setFont(headerFont);
+        this.headerStyle.setFillForegroundColor(IndexedColors.LIGHT_BLUE.getIndex());
+        this.headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+
+        this.dateTimeStyle = workbook.createCellStyle();
+        this.dateTimeStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss"));
+    }
+
+    /**
+     * Column widths in characters, applied to the first columns in order.
+     */
+    public StreamingExcelWriter columnWidths(int... widths) {
+        for (int i = 0; i < widths.length; i++) {
+            sheet.setColumnWidth(i, Math.min(Math.max(widths[i], 1), MAX_COLUMN_WIDTH) * 256);
+        }
+        return this;
+    }
+
+    public StreamingExcelWriter headerRow(List<String> headers) {
+        startRow();
+        for (String header : headers) {
+            header(header);
+        }
+        return this;
+    }
+
+    public StreamingExcelWriter startRow() {
+        row = sheet.createRow(nextRowIndex++);
+        nextCellIndex = 0;
+        return this;
+    }
+
+    /**
+     * Leaves an empty row, used to separate sections.
+     */
+    public StreamingExcelWriter skipRow() {
+        nextRowIndex++;
+        row = null;
+        return this;
+    }
+
+    public StreamingExcelWriter header(String value) {
+        Cell cell = nextCell();
+        cell.setCellValue(value);
+        cell.setCellStyle(headerStyle);
+        return this;
+    }
+
+    public StreamingExcelWriter text(String value) {
+        if (value == null) {
+            nextCellIndex++;
+        } else {
+            nextCell().setCellValue(value);
+        }
+        return this;
+    }
+
+    public StreamingExcelWriter number(double value) {
+        nextCell().setCellValue(value);
+        return this;
+    }
+
+    public StreamingExcelWriter dateTime(LocalDateTime value) {
+        if (value == null) {
+            nextCellIndex++;
+        } else {
+            Cell cell = nextCell();
+            cell.setCellValue(value);
+            cell.setCellStyle(dateTimeStyle);
+        }
+        return this;
+    }
+
+    /**
+     * Writes a JDBC or entity value with the matching cell type; null leaves the cell blank.
+     */
+    public StreamingExcelWriter value(Object value) {
+        if (value == null) {
+            nextCellIndex++;
+        } else if (value instanceof Number number) {
+            number(number.doubleValue());
+        } else if (value instanceof Timestamp timestamp) {
+            dateTime(timestamp.toLocalDateTime());
+        } else if (value instanceof LocalDateTime dateTime) {
+            dateTime(dateTime);
+        } else if (value instanceof Date date) {
+            dateTime(new Timestamp(date.getTime()).toLocalDateTime());
+        } else if (value instanceof Boolean bool) {
+            nextCell().setCellValue(bool);
+        } else {
+            text(value.toString());
+        }
+        return this;
+    }
+
+    public int getRowCount() {
+        return nextRowIndex;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        workbook.write(out);
+        out.flush();
+    }
+
+    private Cell nextCell() {
+        if (row == null) {
+            throw new IllegalStateException("startRow() must be called before writing cells");
+        }
+        return row.createCell(nextCellIndex++);
+    }
+
+    /**
+     * Deletes the temp file backing the flushed rows.
+     */
+    @Override
+    public void close() throws IOException {
+        workbook.dispose();
+        workbook.close();
+    }
+}
@@ -0,0 +1,83 @@
+package crm.dopaflow_backend.Utils;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Writes uploaded files to disk through a fixed 64 KB buffer instead of MultipartFile.getBytes(), computing
+ * the SHA-256 on the way, so an upload costs the same memory whatever its size. The file is written to a
+ * temporary name in the target directory and moved into place once complete: a failed or aborted upload
+ * never leaves a partial file under the final name.
+ */
+public final class StreamingUpload {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public record StoredFile(Path path, long size, String sha256) {
+    }
+
+    private StreamingUpload() {
+    }
+
+    public static StoredFile store(MultipartFile file, Path target) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return store(in, target);
+        }
+    }
+
+    public static StoredFile store(InputStream in, Path target) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, ".upload", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            long size = 0;
+            try (DigestInputStream digestIn = new DigestInputStream(in, digest);
+                 OutputStream out = Files.newOutputStream(temp)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = digestIn.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                    size += read;
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return new StoredFile(target, size, HexFormat.of().formatHex(digest.digest()));
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * The client file name reduced to a safe last path segment: directories ("../", "C:\") are dropped and
+     * characters outside letters, digits, dot, dash and underscore become "_".
+     */
+    public static String safeFileName(String originalFilename) {
+        if (originalFilename == null || originalFilename.isBlank()) {
+            return "file";
+        }
+        String name = originalFilename.substring(Math.max(originalFilename.lastIndexOf('/'), originalFilename.lastIndexOf('\\')) + 1);
+        name = name.replaceAll("[^\\p{L}\\p{N}._-]", "_");
+        if (name.isEmpty() || name.chars().allMatch(c -> c == '.')) {
+            return "file";
+        }
+        return name.length() > 150 ? name.substring(name.length() - 150) : name;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
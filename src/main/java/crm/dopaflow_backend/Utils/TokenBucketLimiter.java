@@ -0,0 +1,53 @@
+package crm.dopaflow_backend.Utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-key token bucket, implemented as a generic cell rate algorithm: each key holds a single
+ * "theoretical arrival time" that is advanced with a CAS loop, so acquiring is lock-free and a
+ * bucket costs one AtomicLong. A key may burst up to {@code capacity} calls, then refills at
+ * {@code capacity} calls per {@code refillPeriod}.
+ */
+public class TokenBucketLimiter {
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+
+    public TokenBucketLimiter(int capacity, long refillPeriod, TimeUnit unit) {
+        this.emissionIntervalNanos = unit.toNanos(refillPeriod) / Math.max(1, capacity);
+        this.burstToleranceNanos = emissionIntervalNanos * Math.max(1, capacity);
+    }
+
+    /**
+     * Takes one token for the key.
+     * @return 0 if the call is allowed, otherwise the number of nanoseconds until a token is available.
+     */
+    public long tryAcquire(String key) {
+        long now = System.nanoTime();
+        AtomicLong arrival = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        while (true) {
+            long current = arrival.get();
+            long next = Math.max(current, now) + emissionIntervalNanos;
+            long wait = next - now - burstToleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (arrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // Buckets whose arrival time is in the past are full again and can be forgotten
+    public void evictIdle() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(arrival -> arrival.get() - now <= 0);
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,230 @@
+package crm.dopaflow_backend.Utils;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Reads the first sheet of an .xlsx file row by row with a SAX parser over the sheet XML (XSSFReader),
+ * instead of building the whole workbook DOM like WorkbookFactory does. Only the shared strings table
+ * (each distinct text once) and the current row are held in memory. The upload is first copied to a
+ * temp file so the zip is read with random access rather than inflated in memory.
+ *
+ * Cell values are returned as getCellValue used to read them: trimmed text, numbers truncated to a long,
+ * "true"/"false" for booleans, an empty string for blank and error cells. Legacy .xls files (at most
+ * 65536 rows) are still read through WorkbookFactory. An optional progress callback receives, after each
+ * row, the fraction (0..1) of the sheet read so far.
+ */
+public final class XlsxRowReader {
+
+    @FunctionalInterface
+    public interface RowHandler {
+        /**
+         * @param rowIndex zero-based row index in the sheet, rows absent from the file are not reported
+         * @param values cell values by column index, missing cells as empty strings
+         */
+        void row(int rowIndex, List<String> values);
+    }
+
+    private XlsxRowReader() {
+    }
+
+    public static void read(InputStream in, RowHandler handler) throws IOException {
+        read(in, handler, null);
+    }
+
+    public static void read(InputStream in, RowHandler handler, DoubleConsumer progress) throws IOException {
+        Path tempFile = Files.createTempFile("import-", ".xlsx");
+        try {
+            Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            read(tempFile.toFile(), handler, progress);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    public static void read(File file, RowHandler handler) throws IOException {
+        read(file, handler, null);
+    }
+
+    public static void read(File file, RowHandler handler, DoubleConsumer progress) throws IOException {
+        if (FileMagic.valueOf(file) == FileMagic.OLE2) {
+            readLegacy(file, handler, progress);
+            return;
+        }
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg, false);
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return;
+            }
+            try (CountingInputStream sheet = new CountingInputStream(sheets.next())) {
+                long sheetSize = sheets.getSheetPart().getSize();
+                RowHandler rowHandler = progress == null || sheetSize <= 0 ? handler : (rowIndex, values) -> {
+                    handler.row(rowIndex, values);
+                    progress.accept(Math.min(1.0, (double) sheet.getCount() / sheetSize));
+                };
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new SheetHandler(sharedStrings, rowHandler));
+                parser.parse(new InputSource(sheet));
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Invalid Excel file: " + e.getMessage(), e);
+        }
+    }
+
+    private static void readLegacy(File file, RowHandler handler, DoubleConsumer progress) throws IOException {
+        try (Workbook workbook = WorkbookFactory.create(file, null, true)) {
+            Sheet sheet = workbook.getSheetAt(0);
+            int lastRow = Math.max(1, sheet.getLastRowNum());
+            for (Row row : sheet) {
+                List<String> values = new ArrayList<>();
+                for (int c = 0; c < row.getLastCellNum(); c++) {
+                    values.add(getCellValue(row.getCell(c)));
+                }
+                handler.row(row.getRowNum(), values);
+                if (progress != null) {
+                    progress.accept(Math.min(1.0, (double) row.getRowNum() / lastRow));
+                }
+            }
+        }
+    }
+
+    private static String getCellValue(Cell cell) {
+        if (cell == null) return "";
+        switch (cell.getCellType()) {
+            case STRING: return cell.getStringCellValue().trim();
+            case NUMERIC: return String.valueOf((long) cell.getNumericCellValue());
+            case BOOLEAN: return String.valueOf(cell.getBooleanCellValue());
+            default: return "";
+        }
+    }
+
+    /**
+     * Handles the &lt;sheetData&gt; part of a worksheet: &lt;row r="2"&gt;&lt;c r="B2" t="s"&gt;&lt;v&gt;3&lt;/v&gt;&lt;/c&gt;...&lt;/row&gt;.
+     * Formula cells report their cached result.
+     */
+    private static final class SheetHandler extends DefaultHandler {
+        private final ReadOnlySharedStringsTable sharedStrings;
+        private final RowHandler handler;
+
+        private final List<String> values = new ArrayList<>();
+        private final StringBuilder text = new StringBuilder();
+        private int rowIndex = -1;
+        private int column;
+        private String cellType;
+        private boolean collecting;
+
+        SheetHandler(ReadOnlySharedStringsTable sharedStrings, RowHandler handler) {
+            this.sharedStrings = sharedStrings;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row" -> {
+                    String r = attributes.getValue("r");
+                    rowIndex = r != null ? Integer.parseInt(r) - 1 : rowIndex + 1;
+                    values.clear();
+                    column = 0;
+                }
+                case "c" -> {
+                    String ref = attributes.getValue("r");
+                    if (ref != null) {
+                        column = columnIndex(ref);
+                    }
+                    cellType = attributes.getValue("t");
+                    text.setLength(0);
+                }
+                // <v> holds the value, <t> the text of an inline string (possibly split in rich text runs)
+                case "v", "t" -> collecting = true;
+                default -> {
+                }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (collecting) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "v", "t" -> collecting = false;
+                case "c" -> {
+                    while (values.size() < column) {
+                        values.add("");
+                    }
+                    values.add(cellValue());
+                    column++;
+                }
+                case "row" -> handler.row(rowIndex, Collections.unmodifiableList(new ArrayList<>(values)));
+                default -> {
+                }
+            }
+        }
+
+        private String cellValue() {
+            String raw = text.toString();
+            if (raw.isEmpty()) {
+                return "";
+            }
+            if (cellType == null || cellType.equals("n")) {
+                try {
+                    return String.valueOf((long) Double.parseDouble(raw));
+                } catch (NumberFormatException e) {
+                    return "";
+                }
+            }
+            switch (cellType) {
+                case "s":
+                    return sharedStrings.getItemAt(Integer.parseInt(raw)).getString().trim();
+                case "inlineStr":
+                case "str":
+                    return raw.trim();
+                case "b":
+                    return String.valueOf("1".equals(raw));
+                default: // "e" (error)
+                    return "";
+            }
+        }
+
+        // "AB12" -> 27
+        private static int columnIndex(String cellReference) {
+            int index = 0;
+            for (int i = 0; i < cellReference.length(); i++) {
+                char ch = cellReference.charAt(i);
+                if (ch < 'A' || ch > 'Z') {
+                    break;
+                }
+                index = index * 26 + (ch - 'A' + 1);
+            }
+            return index - 1;
+        }
+    }
+}
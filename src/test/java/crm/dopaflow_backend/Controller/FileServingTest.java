@@ -0,0 +1,283 @@
+package crm.dopaflow_backend.Controller;
+
+import crm.dopaflow_backend.Model.StoredAttachment;
+import crm.dopaflow_backend.Service.AttachmentUploadService;
+import crm.dopaflow_backend.Service.FileServingService;
+import crm.dopaflow_backend.Service.ImageDerivativeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.handler;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * File and attachment downloads through FileController and AttachmentController with the real
+ * FileServingService: validators and Cache-Control, conditional GETs, single byte ranges, If-Range, and
+ * file names that try to leave their directory. The files are written under uploads/ and removed afterwards.
+ */
+class FileServingTest {
+
+    private static final Path PHOTO_DIR = Paths.get("uploads/photos");
+    private static final Path ATTACHMENT_DIR = Paths.get("uploads/attachments");
+    private static final Instant MODIFIED = Instant.parse("2025-03-01T10:15:30Z");
+    private static final String IMMUTABLE = "max-age=31536000, public, immutable";
+    private static final String REVALIDATED = "max-age=3600, public";
+
+    private final ImageDerivativeService imageDerivativeService = mock(ImageDerivativeService.class);
+    private final AttachmentUploadService attachmentUploadService = mock(AttachmentUploadService.class);
+    private final List<Path> created = new ArrayList<>();
+
+    private MockMvc mockMvc;
+    private byte[] content;
+    private String photo;
+    private String etag;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        FileServingService fileServingService = new FileServingService(31536000, 3600, 49152);
+        mockMvc = MockMvcBuilders.standaloneSetup(
+                new FileController(fileServingService, imageDerivativeService),
+                new AttachmentController(attachmentUploadService, fileServingService)).build();
+
+        content = new byte[1000];
+        new Random().nextBytes(content);
+        photo = UUID.randomUUID() + ".png";
+        write(PHOTO_DIR.resolve(photo));
+        // Size and modification time in hex, see FileServingService.serve
+        etag = "\"" + Long.toHexString(content.length) + "-" + Long.toHexString(MODIFIED.toEpochMilli()) + "\"";
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (Path file : created) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void wholeFileWithValidators() throws Exception {
+        mockMvc.perform(get("/photos/" + photo))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(content))
+                .andExpect(content().contentType("image/png"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, content.length))
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, MODIFIED.toEpochMilli()))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, IMMUTABLE))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"));
+    }
+
+    @Test
+    void matchingValidatorsAreNotModified() throws Exception {
+        mockMvc.perform(get("/photos/" + photo).header(HttpHeaders.IF_NONE_MATCH, "\"other\", W/" + etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]))
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        mockMvc.perform(get("/photos/" + photo).header(HttpHeaders.IF_MODIFIED_SINCE, httpDate(MODIFIED)))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void changedValidatorsGetTheFile() throws Exception {
+        mockMvc.perform(get("/photos/" + photo).header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(content));
+        // If-None-Match wins over a matching If-Modified-Since
+        mockMvc.perform(get("/photos/" + photo)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"other\"")
+                        .header(HttpHeaders.IF_MODIFIED_SINCE, httpDate(MODIFIED)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/photos/" + photo).header(HttpHeaders.IF_MODIFIED_SINCE, httpDate(MODIFIED.minusSeconds(60))))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void suffixRangeIsPartial() throws Exception {
+        mockMvc.perform(get("/photos/" + photo).header(HttpHeaders.RANGE, "bytes=-100"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 900-999/1000"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 100))
+                .andExpect(content().bytes(Arrays.copyOfRange(content, 900, 1000)));
+        // A suffix longer than the file is the whole file
+        mockMvc.perform(get("/photos/" + photo).header(HttpHeaders.RANGE, "bytes=-5000"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 0-999/1000"))
+                .andExpect(content().bytes(content));
+    }
+
+    @Test
+    void openEndedRangeIsPartial() throws Exception {
+        mockMvc.perform(get("/photos/" + photo).header(HttpHeaders.RANGE, "bytes=250-"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 250-999/1000"))
+                .andExpect(content().bytes(Arrays.copyOfRange(content, 250, 1000)));
+        mockMvc.perform(get("/photos/" + photo).header(HttpHeaders.RANGE, "bytes=10-19"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 10-19/1000"))
+                .andExpect(content().bytes(Arrays.copyOfRange(content, 10, 20)));
+    }
+
+    @Test
+    void rangePastTheEndIsNotSatisfiable() throws Exception {
+        mockMvc.perform(get("/photos/" + photo).header(HttpHeaders.RANGE, "bytes=1000-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */1000"));
+        mockMvc.perform(get("/photos/" + photo).header(HttpHeaders.RANGE, "bytes=-0"))
+                .andExpect(status().isRequestedRangeNotSatisfiable());
+    }
+
+    @Test
+    void ignoredRangesGetTheWholeFile() throws Exception {
+        for (String range : List.of("bytes=0-10,20-30", "bytes=abc", "bytes=50-10", "items=0-10")) {
+            mockMvc.perform(get("/photos/" + photo).header(HttpHeaders.RANGE, range))
+                    .andExpect(status().isOk())
+                    .andExpect(content().bytes(content));
+        }
+    }
+
+    @Test
+    void staleIfRangeGetsTheWholeFile() throws Exception {
+        mockMvc.perform(get("/photos/" + photo)
+                        .header(HttpHeaders.RANGE, "bytes=500-")
+                        .header(HttpHeaders.IF_RANGE, "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                .andExpect(content().bytes(content));
+        // If-Range takes the strong comparison only
+        mockMvc.perform(get("/photos/" + photo)
+                        .header(HttpHeaders.RANGE, "bytes=500-")
+                        .header(HttpHeaders.IF_RANGE, "W/" + etag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/photos/" + photo)
+                        .header(HttpHeaders.RANGE, "bytes=500-")
+                        .header(HttpHeaders.IF_RANGE, httpDate(MODIFIED.minusSeconds(60))))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void currentIfRangeIsPartial() throws Exception {
+        mockMvc.perform(get("/photos/" + photo)
+                        .header(HttpHeaders.RANGE, "bytes=500-")
+                        .header(HttpHeaders.IF_RANGE, etag))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(Arrays.copyOfRange(content, 500, 1000)));
+        mockMvc.perform(get("/photos/" + photo)
+                        .header(HttpHeaders.RANGE, "bytes=500-")
+                        .header(HttpHeaders.IF_RANGE, httpDate(MODIFIED)))
+                .andExpect(status().isPartialContent());
+    }
+
+    @Test
+    void missingThumbnailServesTheOriginalRevalidated() throws Exception {
+        String thumbnail = photo + ".128.jpg";
+        when(imageDerivativeService.originalOf(thumbnail)).thenReturn(photo);
+
+        mockMvc.perform(get("/photos/" + thumbnail))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/png"))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, REVALIDATED))
+                .andExpect(content().bytes(content));
+        verify(imageDerivativeService).generateAsync(PHOTO_DIR.resolve(photo));
+    }
+
+    @Test
+    void missingFileIsNotFound() throws Exception {
+        mockMvc.perform(get("/photos/" + UUID.randomUUID() + ".png"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/attachments/" + "0".repeat(64) + "/a.pdf"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void storedAttachmentUsesItsHashAsETag() throws Exception {
+        String sha256 = "ab".repeat(32);
+        Path stored = ATTACHMENT_DIR.resolve(UUID.randomUUID().toString());
+        write(stored);
+        when(attachmentUploadService.findStored(sha256)).thenReturn(Optional.of(StoredAttachment.builder()
+                .sha256(sha256).size(content.length).contentType("application/pdf").refCount(1).build()));
+        when(attachmentUploadService.pathOf(sha256)).thenReturn(stored);
+
+        mockMvc.perform(get("/attachments/" + sha256 + "/report.pdf"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/pdf"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + sha256 + "\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, IMMUTABLE))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, startsWith("inline;")))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, containsString("filename*=UTF-8''report.pdf")))
+                .andExpect(content().bytes(content));
+        mockMvc.perform(get("/attachments/" + sha256 + "/report.pdf").header(HttpHeaders.IF_NONE_MATCH, "\"" + sha256 + "\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void photoNamesCannotLeaveTheirDirectory() throws Exception {
+        // An existing file one level up, which a traversal would reach
+        Path outside = Paths.get("uploads", UUID.randomUUID() + ".png");
+        write(outside);
+        String name = outside.getFileName().toString();
+
+        for (String path : List.of("/photos/..%2F" + name, "/photos/..%5C" + name, "/contact-photos/..%2F..%2Fpom.xml",
+                "/avatars/..%2F" + name, "/avatars/..%5C..%5Cpom.xml", "/photos/..", "/company-photos/.hidden")) {
+            // Rejected by the controller, not merely unmatched
+            mockMvc.perform(get(URI.create(path)))
+                    .andExpect(handler().handlerType(FileController.class))
+                    .andExpect(status().isNotFound());
+        }
+    }
+
+    @Test
+    void attachmentNamesCannotLeaveTheirDirectory() throws Exception {
+        Path outside = Paths.get("uploads", UUID.randomUUID() + ".pdf");
+        write(outside);
+        String name = outside.getFileName().toString();
+        // The staging directory of the store, and a staged file in it
+        Path staged = ATTACHMENT_DIR.resolve(".staging").resolve(UUID.randomUUID().toString());
+        write(staged);
+
+        for (String path : List.of("/attachments/..%2F" + name, "/attachments/..%5C" + name, "/attachments/..%2F..%2Fpom.xml",
+                "/attachments/.staging", "/attachments/.staging%2F" + staged.getFileName())) {
+            mockMvc.perform(get(URI.create(path)))
+                    .andExpect(handler().handlerType(AttachmentController.class))
+                    .andExpect(status().isNotFound());
+        }
+    }
+
+    private void write(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content);
+        Files.setLastModifiedTime(file, FileTime.from(MODIFIED));
+        created.add(file);
+    }
+
+    private static String httpDate(Instant instant) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(instant.atOffset(ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,31 @@
+package crm.dopaflow_backend;
+
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.core.annotation.AliasFor;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A @DataJpaTest on the in-memory H2 database of the "h2" profile (application-h2.properties). The database
+ * is the profile's own rather than Spring's embedded replacement, which could not set H2's NON_KEYWORDS.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+public @interface H2DataJpaTest {
+
+    // Test-specific properties, on top of the profile
+    @AliasFor(annotation = DataJpaTest.class)
+    String[] properties() default {};
+}
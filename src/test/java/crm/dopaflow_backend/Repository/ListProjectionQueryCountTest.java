@@ -0,0 +1,108 @@
+package crm.dopaflow_backend.Repository;
+
+import crm.dopaflow_backend.DTO.ContactFilter;
+import crm.dopaflow_backend.DTO.ContactListItem;
+import crm.dopaflow_backend.DTO.CursorPage;
+import crm.dopaflow_backend.DTO.OpportunityListItem;
+import crm.dopaflow_backend.H2DataJpaTest;
+import crm.dopaflow_backend.Model.Company;
+import crm.dopaflow_backend.Model.Contact;
+import crm.dopaflow_backend.Model.User;
+import crm.dopaflow_backend.Utils.KeysetPaging;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Set;
+
+import static crm.dopaflow_backend.TestEntities.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The list endpoints must cost a fixed number of statements per page, whatever the number of distinct owners,
+ * companies and contacts on it: one select (plus the count query for offset pages), no follow-up loads of
+ * EAGER associations. Runs on an in-memory H2 database, with Hibernate statistics counting the statements.
+ */
+@H2DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ListProjectionQueryCountTest {
+
+    private static final int ROWS = 30;
+    private static final int PAGE_SIZE = 25;
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private ContactRepository contactRepository;
+    @Autowired
+    private OpportunityRepository opportunityRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        // One owner, company and contact per row, so N+1 loading would show up as dozens of statements
+        for (int i = 0; i < ROWS; i++) {
+            User owner = entityManager.persist(user("user" + i));
+            Company company = entityManager.persist(company("Company " + i, owner));
+            Contact contact = entityManager.persist(contact("Contact " + i, "contact" + i + "@example.com", owner, company));
+            entityManager.persist(opportunity("Opportunity " + i, owner, contact));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void contactPageIsOneSelectPlusCount() {
+        Page<ContactListItem> page = contactRepository.findListItems(PageRequest.of(0, PAGE_SIZE, Sort.by("createdAt")));
+
+        assertThat(page.getContent()).hasSize(PAGE_SIZE);
+        assertThat(page.getTotalElements()).isEqualTo(ROWS);
+        assertThat(page.getContent()).allSatisfy(item -> {
+            assertThat(item.owner()).isNotNull();
+            assertThat(item.company()).isNotNull();
+        });
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void contactKeysetPageIsOneSelect() {
+        CursorPage<ContactListItem> page = KeysetPaging.fetchPage(contactRepository,
+                        ContactSpecifications.fromFilter(ContactFilter.builder().build()), "createdAt,desc", null, PAGE_SIZE,
+                        Set.of("id", "createdAt"), List.of("owner", "company"))
+                .map(ContactListItem::from);
+
+        assertThat(page.getContent()).hasSize(PAGE_SIZE);
+        assertThat(page.getContent()).allSatisfy(item -> {
+            assertThat(item.owner()).isNotNull();
+            assertThat(item.company()).isNotNull();
+        });
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void opportunityPageIsOneSelectPlusCount() {
+        Page<OpportunityListItem> page = opportunityRepository.findListItems(
+                PageRequest.of(0, PAGE_SIZE, Sort.by(Sort.Direction.DESC, "createdAt")));
+
+        assertThat(page.getContent()).hasSize(PAGE_SIZE);
+        assertThat(page.getTotalElements()).isEqualTo(ROWS);
+        assertThat(page.getContent()).allSatisfy(item -> {
+            assertThat(item.owner()).isNotNull();
+            assertThat(item.contact()).isNotNull();
+        });
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+}
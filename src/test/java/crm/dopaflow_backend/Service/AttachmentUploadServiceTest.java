@@ -0,0 +1,170 @@
+package crm.dopaflow_backend.Service;
+
+import crm.dopaflow_backend.H2DataJpaTest;
+import crm.dopaflow_backend.Model.StoredAttachment;
+import crm.dopaflow_backend.Repository.StoredAttachmentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Content-addressed attachment store on an in-memory H2 database: deduplication, reference counting and the
+ * unreferenced sweep, and uploads whose transaction rolls back. Tests manage their own transactions, since the
+ * store only acts once the caller's transaction has completed.
+ */
+@H2DataJpaTest
+@Import(AttachmentUploadService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AttachmentUploadServiceTest {
+
+    private static final Path STAGING_DIR = Paths.get("uploads/attachments/.staging");
+
+    @Autowired
+    private AttachmentUploadService attachmentUploadService;
+    @Autowired
+    private StoredAttachmentRepository storedAttachmentRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private byte[] content;
+    private List<Path> stagedBefore;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        transaction = new TransactionTemplate(transactionManager);
+        // Random content, so every test stores a file of its own
+        content = new byte[4096];
+        new Random().nextBytes(content);
+        stagedBefore = staged();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (StoredAttachment stored : storedAttachmentRepository.findAll()) {
+            Files.deleteIfExists(attachmentUploadService.pathOf(stored.getSha256()));
+        }
+        storedAttachmentRepository.deleteAll();
+    }
+
+    @Test
+    void identicalContentIsStoredOnce() throws IOException {
+        List<String> urls = transaction.execute(status -> upload(file("report.pdf"), file("copy of report.pdf")));
+
+        assertThat(urls).hasSize(2);
+        String sha256 = hashOf(urls.get(0));
+        assertThat(urls.get(0)).endsWith("/report.pdf");
+        assertThat(urls.get(1)).isEqualTo("/attachments/" + sha256 + "/copy_of_report.pdf");
+        assertThat(storedAttachmentRepository.count()).isEqualTo(1);
+        StoredAttachment stored = storedAttachmentRepository.findById(sha256).orElseThrow();
+        assertThat(stored.getRefCount()).isEqualTo(2);
+        assertThat(stored.getSize()).isEqualTo(content.length);
+        assertThat(stored.getContentType()).isEqualTo("application/pdf");
+        assertThat(Files.readAllBytes(attachmentUploadService.pathOf(sha256))).isEqualTo(content);
+        assertThat(staged()).isEqualTo(stagedBefore);
+    }
+
+    @Test
+    void referencesAreCountedUpAndDownAndUnreferencedFilesSwept() throws IOException {
+        String first = upload(file("a.pdf")).get(0);
+        String second = upload(file("b.pdf")).get(0);
+        String sha256 = hashOf(first);
+        assertThat(refCount(sha256)).isEqualTo(2);
+
+        attachmentUploadService.releaseAfterCommit(List.of(first));
+        assertThat(refCount(sha256)).isEqualTo(1);
+        attachmentUploadService.sweepUnreferenced();
+        assertThat(Files.exists(attachmentUploadService.pathOf(sha256))).isTrue();
+
+        // Released inside a transaction: only counted once it commits
+        transaction.executeWithoutResult(status -> {
+            attachmentUploadService.releaseAfterCommit(List.of(second));
+            assertThat(refCount(sha256)).isEqualTo(1);
+        });
+        assertThat(refCount(sha256)).isZero();
+
+        attachmentUploadService.sweepUnreferenced();
+        assertThat(storedAttachmentRepository.findById(sha256)).isEmpty();
+        assertThat(Files.exists(attachmentUploadService.pathOf(sha256))).isFalse();
+    }
+
+    @Test
+    void releasingFlatAttachmentUrlsIsIgnored() throws IOException {
+        String url = upload(file("a.pdf")).get(0);
+
+        attachmentUploadService.releaseAfterCommit(List.of("/attachments/0b1c_a.pdf", "/photos/" + hashOf(url) + "/a.pdf"));
+
+        assertThat(refCount(hashOf(url))).isEqualTo(1);
+    }
+
+    @Test
+    void rolledBackUploadLeavesNoReferenceOrFile() throws IOException {
+        String url = transaction.execute(status -> {
+            String uploaded = upload(file("a.pdf")).get(0);
+            status.setRollbackOnly();
+            return uploaded;
+        });
+
+        String sha256 = hashOf(url);
+        assertThat(storedAttachmentRepository.findById(sha256)).isEmpty();
+        assertThat(Files.exists(attachmentUploadService.pathOf(sha256))).isFalse();
+        assertThat(staged()).isEqualTo(stagedBefore);
+    }
+
+    @Test
+    void rolledBackDuplicateKeepsTheExistingReferences() throws IOException {
+        String sha256 = hashOf(upload(file("a.pdf")).get(0));
+
+        transaction.executeWithoutResult(status -> {
+            upload(file("b.pdf"));
+            status.setRollbackOnly();
+        });
+
+        assertThat(refCount(sha256)).isEqualTo(1);
+        assertThat(Files.readAllBytes(attachmentUploadService.pathOf(sha256))).isEqualTo(content);
+    }
+
+    private MockMultipartFile file(String name) {
+        return new MockMultipartFile("files", name, "application/pdf", content);
+    }
+
+    private List<String> upload(MockMultipartFile... files) {
+        try {
+            return attachmentUploadService.uploadAttachments(List.of(files));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private int refCount(String sha256) {
+        return storedAttachmentRepository.findById(sha256).orElseThrow().getRefCount();
+    }
+
+    private static String hashOf(String url) {
+        return url.split("/")[2];
+    }
+
+    private static List<Path> staged() throws IOException {
+        if (!Files.isDirectory(STAGING_DIR)) return List.of();
+        try (Stream<Path> files = Files.list(STAGING_DIR)) {
+            return files.sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package crm.dopaflow_backend.Service;
+
+import crm.dopaflow_backend.DTO.ContactBulkRequest;
+import crm.dopaflow_backend.H2DataJpaTest;
+import crm.dopaflow_backend.Model.Company;
+import crm.dopaflow_backend.Model.Contact;
+import crm.dopaflow_backend.Model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static crm.dopaflow_backend.TestEntities.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bulk updates on an in-memory H2 database, with chunks smaller than the selection: "updated" counts each
+ * changed contact once, however many fields the request changes.
+ */
+@H2DataJpaTest(properties = "contacts.bulk.chunk-size=2")
+@Import(ContactBulkService.class)
+class ContactBulkServiceTest {
+
+    @Autowired
+    private ContactBulkService contactBulkService;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockitoBean
+    private ContactService contactService;
+    @MockitoBean
+    private SuggestionIndexService suggestionIndexService;
+
+    private User owner;
+    private Company company;
+    private final List<Long> contactIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        owner = entityManager.persist(user("owner"));
+        company = entityManager.persist(company("Company", owner));
+        for (int i = 0; i < 3; i++) {
+            contactIds.add(entityManager.persist(contact("Contact " + i, "contact" + i + "@example.com", owner, company)).getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void severalChangesCountEachContactOnce() {
+        ContactBulkRequest request = new ContactBulkRequest();
+        List<Long> ids = new ArrayList<>(contactIds);
+        ids.add(-1L);
+        request.setIds(ids);
+        request.setStatus("Closed");
+        request.setOwnerId(owner.getId());
+        request.setClearCompany(true);
+
+        Map<String, Object> result = contactBulkService.update(request);
+
+        assertThat(result).containsEntry("matched", 3).containsEntry("updated", 3);
+        entityManager.clear();
+        for (Long id : contactIds) {
+            Contact contact = entityManager.find(Contact.class, id);
+            assertThat(contact.getStatus()).isEqualTo("Closed");
+            assertThat(contact.getOwner().getId()).isEqualTo(owner.getId());
+            assertThat(contact.getCompany()).isNull();
+            assertThat(contact.getLastActivity()).isNotNull();
+        }
+    }
+
+    @Test
+    void singleChangeCountsTheSelectedContacts() {
+        ContactBulkRequest request = new ContactBulkRequest();
+        request.setIds(contactIds.subList(0, 2));
+        request.setClearOwner(true);
+
+        Map<String, Object> result = contactBulkService.update(request);
+
+        assertThat(result).containsEntry("matched", 2).containsEntry("updated", 2);
+        entityManager.clear();
+        assertThat(entityManager.find(Contact.class, contactIds.get(0)).getOwner()).isNull();
+        assertThat(entityManager.find(Contact.class, contactIds.get(2)).getOwner()).isNotNull();
+    }
+}
@@ -0,0 +1,162 @@
+package crm.dopaflow_backend.Service;
+
+import crm.dopaflow_backend.DTO.ContactFilter;
+import crm.dopaflow_backend.H2DataJpaTest;
+import crm.dopaflow_backend.Model.Company;
+import crm.dopaflow_backend.Model.Contact;
+import crm.dopaflow_backend.Model.User;
+import crm.dopaflow_backend.Repository.ContactRepository;
+import crm.dopaflow_backend.Repository.ContactSpecifications;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static crm.dopaflow_backend.TestEntities.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * FacetService counts contacts with its own SQL, which has to mirror ContactSpecifications. For a range of
+ * filters, on an in-memory H2 database, the total must equal the size of the filtered list, and every facet must
+ * equal the list under the same filter minus the facet's own criterion, grouped by the facet's value. The facet
+ * cache is off, so every call reads the rows of the running test.
+ */
+@H2DataJpaTest(properties = "facets.cache.ttl-seconds=0")
+@Import(FacetService.class)
+class FacetServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final List<String> STATUSES = List.of("Lead", "Open", "Lead", "Closed");
+    private static final List<String> DOMAINS = List.of("example.com", "EXAMPLE.com", "ex_ample.com", "exxample.com", "other.org");
+
+    @Autowired
+    private FacetService facetService;
+    @Autowired
+    private ContactRepository contactRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User alice;
+    private User bob;
+    private Company acme;
+
+    @BeforeEach
+    void setUp() {
+        alice = entityManager.persist(user("alice"));
+        bob = entityManager.persist(user("bob"));
+        entityManager.persist(user("carol"));
+        acme = entityManager.persist(company("Acme", alice));
+        Company globex = entityManager.persist(company("Globex", bob));
+
+        List<User> owners = Arrays.asList(alice, bob, null);
+        List<Company> companies = Arrays.asList(acme, globex, null);
+        for (int i = 0; i < 24; i++) {
+            Contact contact = contact("Contact " + i, "contact" + i + "@" + DOMAINS.get(i % DOMAINS.size()),
+                    owners.get(i % owners.size()), companies.get(i / 3 % companies.size()));
+            contact.setStatus(i % 7 == 6 ? null : STATUSES.get(i % STATUSES.size()));
+            contact.setCreatedAt(START.plusDays(i));
+            contact.setLastActivity(START.plusDays(30 - i % 10));
+            entityManager.persist(contact);
+            if (i % 4 == 1) {
+                entityManager.persist(opportunity("Opportunity " + i, contact.getOwner(), contact));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void facetsMatchTheListForEverySingleCriterion() {
+        assertConsistent(filter().build());
+        assertConsistent(filter().status("Lead").build());
+        assertConsistent(filter().status("ANY").build());
+        assertConsistent(filter().ownerId(alice.getId()).build());
+        assertConsistent(filter().unassignedOnly(true).ownerId(alice.getId()).build());
+        assertConsistent(filter().companyId(acme.getId()).build());
+        assertConsistent(filter().createdFrom(START.plusDays(5)).createdTo(START.plusDays(15)).build());
+        assertConsistent(filter().lastActivityFrom(START.plusDays(25)).build());
+        assertConsistent(filter().lastActivityTo(START.plusDays(24)).build());
+        assertConsistent(filter().emailDomain("@Example.com").build());
+        // "_" is a literal, not a LIKE wildcard: exxample.com is not counted
+        assertConsistent(filter().emailDomain("ex_ample.com").build());
+        assertConsistent(filter().hasOpportunities(true).build());
+        assertConsistent(filter().hasOpportunities(false).build());
+    }
+
+    @Test
+    void facetsMatchTheListForCombinedCriteria() {
+        assertConsistent(filter().status("Lead").ownerId(bob.getId()).build());
+        assertConsistent(filter().status("Open").unassignedOnly(true).companyId(acme.getId()).build());
+        assertConsistent(filter().ownerId(alice.getId()).hasOpportunities(true).emailDomain("example.com").build());
+        assertConsistent(filter().status("Closed").companyId(acme.getId())
+                .createdFrom(START.plusDays(2)).lastActivityTo(START.plusDays(28)).hasOpportunities(false).build());
+        // Nothing matches: every facet is empty
+        assertConsistent(filter().status("Unknown").ownerId(alice.getId()).build());
+    }
+
+    private void assertConsistent(ContactFilter filter) {
+        Map<String, Object> facets = facetService.contactFacets(filter);
+
+        assertThat(facets.get("total")).as("total for %s", filter).isEqualTo((long) list(filter).size());
+        assertFacet(facets, "status", filter, Contact::getStatus, Contact::getStatus);
+        assertFacet(facets, "owner", filter,
+                contact -> contact.getOwner() != null ? contact.getOwner().getId().toString() : null,
+                contact -> contact.getOwner() != null ? contact.getOwner().getUsername() : null);
+        assertFacet(facets, "company", filter,
+                contact -> contact.getCompany() != null ? contact.getCompany().getId().toString() : null,
+                contact -> contact.getCompany() != null ? contact.getCompany().getName() : null);
+    }
+
+    // value -> {label, count} of the facet, against the list without the facet's own criterion grouped by value
+    private void assertFacet(Map<String, Object> facets, String facet, ContactFilter filter,
+                             Function<Contact, String> value, Function<Contact, String> label) {
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> values = (List<Map<String, Object>>) facets.get(facet);
+        Map<String, List<Object>> actual = new HashMap<>();
+        for (Map<String, Object> entry : values) {
+            actual.put((String) entry.get("value"), List.of(Objects.toString(entry.get("label")), entry.get("count")));
+        }
+
+        Map<String, List<Object>> expected = new HashMap<>();
+        list(without(filter, facet)).stream()
+                .collect(Collectors.groupingBy(contact -> Objects.toString(value.apply(contact), "\0"), Collectors.toList()))
+                .forEach((key, contacts) -> expected.put("\0".equals(key) ? null : key,
+                        List.of(Objects.toString(label.apply(contacts.get(0))), (long) contacts.size())));
+
+        assertThat(actual).as("%s facet for %s", facet, filter).isEqualTo(expected);
+    }
+
+    private List<Contact> list(ContactFilter filter) {
+        return contactRepository.findAll(ContactSpecifications.fromFilter(filter));
+    }
+
+    private static ContactFilter.ContactFilterBuilder filter() {
+        return ContactFilter.builder();
+    }
+
+    // The filter with the criterion of one facet removed
+    private static ContactFilter without(ContactFilter filter, String facet) {
+        return ContactFilter.builder()
+                .status(facet.equals("status") ? null : filter.getStatus())
+                .ownerId(facet.equals("owner") ? null : filter.getOwnerId())
+                .unassignedOnly(!facet.equals("owner") && filter.isUnassignedOnly())
+                .companyId(facet.equals("company") ? null : filter.getCompanyId())
+                .createdFrom(filter.getCreatedFrom())
+                .createdTo(filter.getCreatedTo())
+                .lastActivityFrom(filter.getLastActivityFrom())
+                .lastActivityTo(filter.getLastActivityTo())
+                .emailDomain(filter.getEmailDomain())
+                .hasOpportunities(filter.getHasOpportunities())
+                .build();
+    }
+}
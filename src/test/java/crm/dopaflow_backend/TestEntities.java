@@ -0,0 +1,67 @@
+package crm.dopaflow_backend;
+
+import crm.dopaflow_backend.Model.*;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Valid, not yet persisted entities for the database tests: every non-null column is set, the rest is left
+ * to each test.
+ */
+public final class TestEntities {
+
+    private TestEntities() {
+    }
+
+    public static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("password");
+        user.setRole(Role.User);
+        user.setBirthdate(new Date());
+        user.setLastLogin(new Date());
+        user.setVerified(true);
+        return user;
+    }
+
+    // "Company 3" gets company3@example.com and https://company3.example.com
+    public static Company company(String name, User owner) {
+        String slug = name.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+        Company company = new Company();
+        company.setName(name);
+        company.setEmail(slug + "@example.com");
+        company.setPhone("0100000000");
+        company.setStatus("Active");
+        company.setAddress("Address");
+        company.setWebsite("https://" + slug + ".example.com");
+        company.setIndustry("Software");
+        company.setOwner(owner);
+        return company;
+    }
+
+    public static Contact contact(String name, String email, User owner, Company company) {
+        Contact contact = new Contact();
+        contact.setName(name);
+        contact.setEmail(email);
+        contact.setStatus("Open");
+        contact.setOwner(owner);
+        contact.setCompany(company);
+        return contact;
+    }
+
+    public static Opportunity opportunity(String title, User owner, Contact contact) {
+        Opportunity opportunity = new Opportunity();
+        opportunity.setTitle(title);
+        opportunity.setValue(BigDecimal.valueOf(1000));
+        opportunity.setPriority(Priority.MEDIUM);
+        opportunity.setProgress(10);
+        opportunity.setStage(Stage.PROSPECTION);
+        opportunity.setStatus(StatutOpportunity.IN_PROGRESS);
+        opportunity.setOwner(owner);
+        opportunity.setContact(contact);
+        return opportunity;
+    }
+}
@@ -0,0 +1,177 @@
+package crm.dopaflow_backend.Utils;
+
+import crm.dopaflow_backend.Utils.DuplicateMatcher.Match;
+import crm.dopaflow_backend.Utils.DuplicateMatcher.MatchType;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Key normalization (emails, E.164 phones, typed and canonical company names) and the classification of
+ * imported rows against existing rows and earlier rows of the same file, including keys that must not match.
+ */
+class DuplicateMatcherTest {
+
+    @Test
+    void emailsIgnoreCaseAndSurroundingSpaces() {
+        assertThat(DuplicateMatcher.normalizeEmail("  John.Doe@Example.COM ")).isEqualTo("john.doe@example.com");
+        assertThat(DuplicateMatcher.normalizeEmail("   ")).isNull();
+        assertThat(DuplicateMatcher.normalizeEmail(null)).isNull();
+    }
+
+    @Test
+    void phonesInternationalFormsGiveTheSameNumber() {
+        DuplicateMatcher matcher = new DuplicateMatcher("+33");
+
+        assertThat(matcher.toE164("+33 6 12-34-56-78")).isEqualTo("+33612345678");
+        assertThat(matcher.toE164("0033612345678")).isEqualTo("+33612345678");
+        assertThat(matcher.toE164("06 12 34 56 78")).isEqualTo("+33612345678");
+        assertThat(matcher.toE164("(+33) 6.12.34.56.78")).isEqualTo("+33612345678");
+    }
+
+    @Test
+    void nationalPhonesWithoutCountryCodeKeepTheirDigits() {
+        DuplicateMatcher matcher = new DuplicateMatcher("");
+
+        assertThat(matcher.toE164("06 12 34 56 78")).isEqualTo("0612345678");
+        assertThat(matcher.toE164("(555) 123-4567")).isEqualTo("5551234567");
+        // Not the same key as the international form without a country code to expand with
+        assertThat(matcher.toE164("06 12 34 56 78")).isNotEqualTo(matcher.toE164("+33 6 12 34 56 78"));
+    }
+
+    @Test
+    void implausiblePhonesHaveNoKey() {
+        DuplicateMatcher matcher = new DuplicateMatcher("33");
+
+        assertThat(matcher.toE164(null)).isNull();
+        assertThat(matcher.toE164("")).isNull();
+        assertThat(matcher.toE164("n/a")).isNull();
+        assertThat(matcher.toE164("12345")).isNull();
+        assertThat(matcher.toE164("+1234567890123456")).isNull();
+        assertThat(matcher.toE164("123456")).isEqualTo("123456");
+    }
+
+    @Test
+    void typedNamesIgnoreCaseAndSpacing() {
+        assertThat(DuplicateMatcher.normalizeName("  ACME   corp ")).isEqualTo("acme corp");
+        assertThat(DuplicateMatcher.normalizeName("Acme\tCorp")).isEqualTo("acme corp");
+        assertThat(DuplicateMatcher.normalizeName(" ")).isNull();
+        // Punctuation is kept: only the canonical form drops it
+        assertThat(DuplicateMatcher.normalizeName("ACME, Inc.")).isNotEqualTo(DuplicateMatcher.normalizeName("Acme Inc"));
+    }
+
+    @Test
+    void canonicalNamesDropAccentsPunctuationAndLegalSuffixes() {
+        assertThat(DuplicateMatcher.canonicalName("Société Générale S.A.")).isEqualTo("societe generale");
+        assertThat(DuplicateMatcher.canonicalName("ACME, Inc.")).isEqualTo("acme");
+        assertThat(DuplicateMatcher.canonicalName("Acme Corporation")).isEqualTo("acme");
+        assertThat(DuplicateMatcher.canonicalName("Dupont S.A.R.L.")).isEqualTo("dupont");
+        assertThat(DuplicateMatcher.canonicalName("Müller GmbH & Co")).isEqualTo("muller gmbh and");
+        assertThat(DuplicateMatcher.canonicalName("A & B Ltd")).isEqualTo("a and b");
+        // Several trailing suffixes are all dropped
+        assertThat(DuplicateMatcher.canonicalName("Globex Co. Ltd")).isEqualTo("globex");
+    }
+
+    @Test
+    void canonicalNamesKeepWhatIsNotATrailingSuffix() {
+        // A name made only of a suffix keeps it
+        assertThat(DuplicateMatcher.canonicalName("Company")).isEqualTo("company");
+        assertThat(DuplicateMatcher.canonicalName("Company Co")).isEqualTo("company");
+        // Suffix words elsewhere in the name are part of it
+        assertThat(DuplicateMatcher.canonicalName("Inc Solutions")).isEqualTo("inc solutions");
+        assertThat(DuplicateMatcher.canonicalName("Co-op Market")).isEqualTo("co op market");
+        assertThat(DuplicateMatcher.canonicalName("Acme Industries")).isNotEqualTo(DuplicateMatcher.canonicalName("Acme"));
+        assertThat(DuplicateMatcher.canonicalName("...")).isNull();
+        assertThat(DuplicateMatcher.canonicalName(null)).isNull();
+    }
+
+    @Test
+    void contactsMatchExistingRowsByEmailThenPhone() {
+        DuplicateMatcher matcher = new DuplicateMatcher("33");
+        matcher.addExisting(1, "John Doe", "John.Doe@example.com", "+33 6 12 34 56 78");
+        matcher.addExisting(2, "Jane Roe", "jane@example.com", "+33 7 00 00 00 01");
+
+        Match byEmail = matcher.matchContact(0, "J. Doe", "john.doe@EXAMPLE.com", null);
+        assertThat(byEmail).isEqualTo(new Match(MatchType.EXACT_MATCH, "email", 1L, "John Doe", null));
+
+        Match byPhone = matcher.matchContact(1, "Johnny", "johnny@example.com", "06 12 34 56 78");
+        assertThat(byPhone).isEqualTo(new Match(MatchType.PROBABLE_MATCH, "phone", 1L, "John Doe", null));
+
+        // Email wins over a phone of another contact
+        Match emailFirst = matcher.matchContact(2, "Jane", "jane@example.com", "0612345678");
+        assertThat(emailFirst.existingId()).isEqualTo(2L);
+        assertThat(emailFirst.type()).isEqualTo(MatchType.EXACT_MATCH);
+    }
+
+    @Test
+    void contactsWithOtherKeysAreNew() {
+        DuplicateMatcher matcher = new DuplicateMatcher("33");
+        matcher.addExisting(1, "John Doe", "john.doe@example.com", "+33612345678");
+
+        // Same name only, neighbouring email and phone
+        assertThat(matcher.matchContact(0, "John Doe", "john.doe@example.org", "+33612345679")).isEqualTo(Match.NEW);
+        // Without email or phone there is nothing to match on, and nothing indexed
+        assertThat(matcher.matchContact(1, "Nobody", null, null)).isEqualTo(Match.NEW);
+        assertThat(matcher.matchContact(2, "Nobody", " ", "n/a")).isEqualTo(Match.NEW);
+    }
+
+    @Test
+    void repeatsWithinTheFileMatchTheirFirstRow() {
+        DuplicateMatcher matcher = new DuplicateMatcher("");
+
+        assertThat(matcher.matchContact(0, "Ann", "ann@example.com", "555 123 4567")).isEqualTo(Match.NEW);
+        assertThat(matcher.matchContact(1, "Ann B", "ANN@example.com", null))
+                .isEqualTo(new Match(MatchType.EXACT_MATCH, "email", null, "Ann", 0));
+        assertThat(matcher.matchContact(2, "Ann C", "ann.c@example.com", "(555) 123-4567"))
+                .isEqualTo(new Match(MatchType.PROBABLE_MATCH, "phone", null, "Ann", 0));
+
+        assertThat(matcher.getCounts())
+                .containsEntry(MatchType.NEW, 1)
+                .containsEntry(MatchType.EXACT_MATCH, 1)
+                .containsEntry(MatchType.PROBABLE_MATCH, 1);
+    }
+
+    @Test
+    void companiesMatchByNameThenCanonicalNameEmailAndPhone() {
+        DuplicateMatcher matcher = new DuplicateMatcher("33");
+        matcher.addExisting(10, "Acme Corp", "contact@acme.com", "+33 1 23 45 67 89");
+
+        assertThat(matcher.matchCompany(0, "  ACME  corp", null, null))
+                .isEqualTo(new Match(MatchType.EXACT_MATCH, "name", 10L, "Acme Corp", null));
+        assertThat(matcher.matchCompany(1, "Acme, Inc.", null, null))
+                .isEqualTo(new Match(MatchType.PROBABLE_MATCH, "name", 10L, "Acme Corp", null));
+        assertThat(matcher.matchCompany(2, "Acme Holding", "Contact@Acme.com", null))
+                .isEqualTo(new Match(MatchType.PROBABLE_MATCH, "email", 10L, "Acme Corp", null));
+        assertThat(matcher.matchCompany(3, "Road Runner", "hello@roadrunner.com", "01 23 45 67 89"))
+                .isEqualTo(new Match(MatchType.PROBABLE_MATCH, "phone", 10L, "Acme Corp", null));
+    }
+
+    @Test
+    void companiesWithOtherNamesAreNew() {
+        DuplicateMatcher matcher = new DuplicateMatcher("33");
+        matcher.addExisting(10, "Acme Corp", "contact@acme.com", null);
+
+        assertThat(matcher.matchCompany(0, "Acme Industries", "sales@acme-industries.com", null)).isEqualTo(Match.NEW);
+        assertThat(matcher.matchCompany(1, "Acme Corp Europe", null, null)).isEqualTo(Match.NEW);
+        assertThat(matcher.matchCompany(2, "Acmé Corp", null, null)).isEqualTo(
+                new Match(MatchType.PROBABLE_MATCH, "name", 10L, "Acme Corp", null));
+        // Earlier rows are matched too, the existing row still wins for its own keys
+        assertThat(matcher.matchCompany(3, "acme industries", null, null))
+                .isEqualTo(new Match(MatchType.EXACT_MATCH, "name", null, "Acme Industries", 0));
+    }
+
+    @Test
+    void resolvedKeysKeepTheFirstSpelling() {
+        DuplicateMatcher matcher = new DuplicateMatcher("");
+        matcher.addExisting(1, "Acme Corp", "John.Doe@Example.com", null);
+        matcher.matchContact(0, "Other", "OTHER@example.com", null);
+
+        assertThat(matcher.resolveEmail("john.doe@example.com")).isEqualTo("John.Doe@Example.com");
+        assertThat(matcher.resolveEmail("other@EXAMPLE.com")).isEqualTo("OTHER@example.com");
+        assertThat(matcher.resolveEmail("new@example.com")).isEqualTo("new@example.com");
+        assertThat(matcher.resolveEmail(null)).isNull();
+        assertThat(matcher.resolveCompanyName("ACME CORP")).isEqualTo("Acme Corp");
+        // Only the typed name resolves, a canonical match is a different company
+        assertThat(matcher.resolveCompanyName("Acme Inc")).isEqualTo("Acme Inc");
+    }
+}
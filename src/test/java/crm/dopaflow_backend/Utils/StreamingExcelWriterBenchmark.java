@@ -0,0 +1,156 @@
+package crm.dopaflow_backend.Utils;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares the old in-memory XSSFWorkbook export with StreamingExcelWriter on a contact-like sheet
+ * (8 columns) at 10k, 100k and 1M rows, reporting wall time and peak heap. Not a unit test: tagged
+ * "benchmark", which the build excludes, so it only runs by hand:
+ *
+ *   mvn test -Dtest=StreamingExcelWriterBenchmark -DexcludedGroups= -DargLine=-Xmx1g [-Dbenchmark.rows=10000,100000]
+ *
+ * or through main(String...) with the row counts as arguments.
+ *
+ * XSSF runs that exhaust the heap are reported as OOM instead of aborting the benchmark, larger XSSF runs
+ * are then skipped.
+ */
+@Tag("benchmark")
+public class StreamingExcelWriterBenchmark {
+
+    private static final List<String> HEADERS =
+            List.of("name", "email", "phone", "status", "company", "notes", "owner", "createdAt");
+
+    private interface Export {
+        void write(int rows, OutputStream out) throws Exception;
+    }
+
+    @Test
+    void compareEngines() throws Exception {
+        String rows = System.getProperty("benchmark.rows", "");
+        main(rows.isBlank() ? new String[0] : rows.split(","));
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = args.length > 0
+                ? Arrays.stream(args).map(String::trim).mapToInt(Integer::parseInt).toArray()
+                : new int[]{10_000, 100_000, 1_000_000};
+
+        // Warm up both code paths so the first measured run is not dominated by class loading and JIT
+        run("warmup", StreamingExcelWriterBenchmark::writeStreaming, 5_000, false);
+        run("warmup", StreamingExcelWriterBenchmark::writeInMemory, 5_000, false);
+
+        System.out.printf("%-10s %10s %12s %14s%n", "engine", "rows", "time (ms)", "peak heap (MB)");
+        boolean inMemoryFits = true;
+        for (int rows : sizes) {
+            run("sxssf", StreamingExcelWriterBenchmark::writeStreaming, rows, true);
+            if (inMemoryFits) {
+                inMemoryFits = run("xssf", StreamingExcelWriterBenchmark::writeInMemory, rows, true);
+            } else {
+                System.out.printf("%-10s %10d %12s %14s%n", "xssf", rows, "skipped", "-");
+            }
+        }
+    }
+
+    private static boolean run(String engine, Export export, int rows, boolean print) throws Exception {
+        System.gc();
+        resetPeakHeap();
+        long start = System.nanoTime();
+        String time;
+        boolean completed = true;
+        try {
+            export.write(rows, OutputStream.nullOutputStream());
+            time = String.valueOf((System.nanoTime() - start) / 1_000_000);
+        } catch (OutOfMemoryError | IllegalArgumentException e) {
+            // closing the workbook after an OOM fails again, try-with-resources then throws "Self-suppression not permitted"
+            if (!(e instanceof OutOfMemoryError) && !(e.getCause() instanceof OutOfMemoryError)) {
+                throw e;
+            }
+            time = "OOM";
+            completed = false;
+        }
+        long peak = peakHeapBytes();
+        if (print) {
+            System.out.printf("%-10s %10d %12s %14d%n", engine, rows, time, peak / (1024 * 1024));
+        }
+        return completed;
+    }
+
+    private static void writeStreaming(int rows, OutputStream out) throws Exception {
+        try (StreamingExcelWriter writer = new StreamingExcelWriter("Contacts")) {
+            writer.columnWidths(30, 30, 18, 20, 30, 50, 20, 20);
+            writer.headerRow(HEADERS);
+            LocalDateTime createdAt = LocalDateTime.of(2025, 1, 1, 9, 0);
+            for (int i = 0; i < rows; i++) {
+                writer.startRow()
+                        .text("Contact " + i)
+                        .text("contact" + i + "@example.com")
+                        .text("+216 20 " + (100_000 + i % 900_000))
+                        .text(i % 3 == 0 ? "Open" : "Qualified")
+                        .text("Company " + (i % 500))
+                        .text("Imported from the benchmark, row " + i)
+                        .text("owner" + (i % 20))
+                        .dateTime(createdAt.plusMinutes(i));
+            }
+            writer.writeTo(out);
+        }
+    }
+
+    // The pre-streaming export: whole DOM in memory, one unstyled cell per value, autoSizeColumn at the end
+    private static void writeInMemory(int rows, OutputStream out) throws Exception {
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet("Contacts");
+            Row headerRow = sheet.createRow(0);
+            for (int i = 0; i < HEADERS.size(); i++) {
+                headerRow.createCell(i).setCellValue(HEADERS.get(i));
+            }
+            LocalDateTime createdAt = LocalDateTime.of(2025, 1, 1, 9, 0);
+            for (int i = 0; i < rows; i++) {
+                Row row = sheet.createRow(i + 1);
+                row.createCell(0).setCellValue("Contact " + i);
+                row.createCell(1).setCellValue("contact" + i + "@example.com");
+                row.createCell(2).setCellValue("+216 20 " + (100_000 + i % 900_000));
+                row.createCell(3).setCellValue(i % 3 == 0 ? "Open" : "Qualified");
+                row.createCell(4).setCellValue("Company " + (i % 500));
+                row.createCell(5).setCellValue("Imported from the benchmark, row " + i);
+                row.createCell(6).setCellValue("owner" + (i % 20));
+                row.createCell(7).setCellValue(createdAt.plusMinutes(i).toString());
+            }
+            for (int i = 0; i < HEADERS.size(); i++) {
+                sheet.autoSizeColumn(i);
+            }
+            workbook.write(out);
+        }
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    // Sum of per-pool peaks, an upper bound of the real peak but stable enough to compare the two engines
+    private static long peakHeapBytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
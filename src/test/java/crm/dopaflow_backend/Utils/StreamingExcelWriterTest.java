@@ -0,0 +1,122 @@
+package crm.dopaflow_backend.Utils;
+
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Writes sheets larger than the row window (so most rows go through SXSSF's temp file) and reads them back
+ * with XSSF to check the rows, cell types and styles that reach the file.
+ */
+class StreamingExcelWriterTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2025, 1, 1, 9, 0);
+
+    @Test
+    void rowsFlushedOutOfTheWindowAreWrittenInOrder() throws IOException {
+        int rows = 1_000;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (StreamingExcelWriter writer = new StreamingExcelWriter("Contacts", 10)) {
+            writer.columnWidths(30, 40, 20);
+            writer.headerRow(List.of("name", "email", "createdAt"));
+            for (int i = 0; i < rows; i++) {
+                writer.startRow()
+                        .text("Contact " + i)
+                        .text("contact" + i + "@example.com")
+                        .dateTime(CREATED_AT.plusMinutes(i));
+            }
+            assertThat(writer.getRowCount()).isEqualTo(rows + 1);
+            writer.writeTo(out);
+        }
+
+        try (XSSFWorkbook workbook = read(out)) {
+            Sheet sheet = workbook.getSheet("Contacts");
+            assertThat(sheet.getLastRowNum()).isEqualTo(rows);
+            assertThat(sheet.getColumnWidth(1)).isEqualTo(40 * 256);
+
+            Row header = sheet.getRow(0);
+            assertThat(header.getCell(2).getStringCellValue()).isEqualTo("createdAt");
+            assertThat(workbook.getFontAt(header.getCell(0).getCellStyle().getFontIndex()).getBold()).isTrue();
+
+            for (int i : new int[]{0, 9, 10, 500, rows - 1}) {
+                Row row = sheet.getRow(i + 1);
+                assertThat(row.getCell(0).getStringCellValue()).isEqualTo("Contact " + i);
+                assertThat(row.getCell(1).getStringCellValue()).isEqualTo("contact" + i + "@example.com");
+                assertThat(DateUtil.isCellDateFormatted(row.getCell(2))).isTrue();
+                assertThat(row.getCell(2).getLocalDateTimeCellValue()).isEqualTo(CREATED_AT.plusMinutes(i));
+            }
+        }
+    }
+
+    @Test
+    void valuesGetTheMatchingCellType() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (StreamingExcelWriter writer = new StreamingExcelWriter("Values")) {
+            writer.startRow()
+                    .value("text")
+                    .value(42L)
+                    .value(new BigDecimal("1234.5"))
+                    .value(Timestamp.valueOf(CREATED_AT))
+                    .value(true)
+                    .value(null)
+                    .value("after the blank");
+            writer.writeTo(out);
+        }
+
+        try (XSSFWorkbook workbook = read(out)) {
+            Row row = workbook.getSheetAt(0).getRow(0);
+            assertThat(row.getCell(0).getStringCellValue()).isEqualTo("text");
+            assertThat(row.getCell(1).getNumericCellValue()).isEqualTo(42.0);
+            assertThat(row.getCell(2).getNumericCellValue()).isEqualTo(1234.5);
+            assertThat(row.getCell(3).getLocalDateTimeCellValue()).isEqualTo(CREATED_AT);
+            assertThat(row.getCell(4).getCellType()).isEqualTo(CellType.BOOLEAN);
+            assertThat(row.getCell(5)).isNull();
+            assertThat(row.getCell(6).getStringCellValue()).isEqualTo("after the blank");
+        }
+    }
+
+    @Test
+    void skipRowLeavesAnEmptyRow() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (StreamingExcelWriter writer = new StreamingExcelWriter("Report")) {
+            writer.startRow().text("first section");
+            writer.skipRow();
+            writer.startRow().text("second section");
+            writer.writeTo(out);
+        }
+
+        try (XSSFWorkbook workbook = read(out)) {
+            Sheet sheet = workbook.getSheetAt(0);
+            assertThat(sheet.getRow(1)).isNull();
+            assertThat(sheet.getRow(2).getCell(0).getStringCellValue()).isEqualTo("second section");
+        }
+    }
+
+    @Test
+    void cellsNeedAStartedRow() throws IOException {
+        try (StreamingExcelWriter writer = new StreamingExcelWriter("Report")) {
+            assertThatThrownBy(() -> writer.text("no row")).isInstanceOf(IllegalStateException.class);
+            writer.startRow().text("first");
+            writer.skipRow();
+            assertThatThrownBy(() -> writer.text("skipped row")).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    private static XSSFWorkbook read(ByteArrayOutputStream out) throws IOException {
+        return new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()));
+    }
+}